@@ -0,0 +1,128 @@
+package org.example.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.factory.SpringCloudCircuitBreakerFilterFactory;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR;
+
+/**
+ * Routes {@code /api/**} to the backing services. Request and response bodies are streamed
+ * through as they arrive, so uploads and downloads are never held in gateway memory.
+ * <p>
+ * All routes to a service share one circuit breaker named after it: once the service keeps
+ * failing to answer, requests get the {@link org.example.controller.FallbackController} response
+ * at once. Each service also has its own connection pool, so a slow one cannot take the
+ * connections of the other. Requests are not retried here; the services retry their own calls
+ * within a budget, and retrying at both layers would multiply the load on a struggling service.
+ */
+@Configuration
+public class GatewayRoutesConfig {
+    private static final String API_PREFIX = "/api";
+    private static final String FILE_STORING_SERVICE = "file-storing-service";
+    private static final String FILE_ANALYSIS_SERVICE = "file-analysis-service";
+
+    @Value("${file-storage.service.url}")
+    private String fileStorageServiceUrl;
+
+    @Value("${file-analysis.service.url}")
+    private String fileAnalysisServiceUrl;
+
+    @Value("${gateway.cache.analysis-ttl:10m}")
+    private Duration analysisCacheTtl;
+
+    @Value("${gateway.cache.plagiarism-ttl:60s}")
+    private Duration plagiarismCacheTtl;
+
+    @Value("${gateway.cache.size:20MB}")
+    private DataSize responseCacheSize;
+
+    @Value("${gateway.batch.response-timeout:10m}")
+    private Duration batchResponseTimeout;
+
+    @Value("${gateway.bulk-upload.response-timeout:5m}")
+    private Duration bulkUploadResponseTimeout;
+
+    @Bean
+    public RouteLocator apiRoutes(RouteLocatorBuilder builder) {
+        return builder.routes()
+            // Analyses never change once computed; plagiarism results may, so they expire sooner
+            .route("file-analysis-results", route -> route
+                .order(-1)
+                .method(HttpMethod.GET).and().path(API_PREFIX + "/analysis/{id}")
+                .filters(filter -> filter
+                    .stripPrefix(1)
+                    .rewriteResponseHeader(HttpHeaders.LOCATION, "^/", API_PREFIX + "/")
+                    .localResponseCache(analysisCacheTtl, responseCacheSize)
+                    .circuitBreaker(circuitBreaker(FILE_ANALYSIS_SERVICE)))
+                .uri(fileAnalysisServiceUrl))
+            .route("file-plagiarism-results", route -> route
+                .order(-1)
+                .method(HttpMethod.GET).and().path(API_PREFIX + "/files/plagiarism/{id}")
+                .filters(filter -> filter
+                    .stripPrefix(1)
+                    .localResponseCache(plagiarismCacheTtl, responseCacheSize)
+                    .circuitBreaker(circuitBreaker(FILE_STORING_SERVICE)))
+                .uri(fileStorageServiceUrl))
+            // Batch results are streamed as they complete, with long pauses while files are analysed
+            .route("file-analysis-batch", route -> route
+                .order(-1)
+                .method(HttpMethod.POST).and().path(API_PREFIX + "/analysis/batch")
+                .filters(filter -> filter
+                    .stripPrefix(1)
+                    .circuitBreaker(circuitBreaker(FILE_ANALYSIS_SERVICE)))
+                .metadata(RESPONSE_TIMEOUT_ATTR, batchResponseTimeout.toMillis())
+                .uri(fileAnalysisServiceUrl))
+            // The response only comes once every file of the upload is stored
+            .route("file-upload-bulk", route -> route
+                .order(-1)
+                .method(HttpMethod.POST).and().path(API_PREFIX + "/files/upload/bulk")
+                .filters(filter -> filter
+                    .stripPrefix(1)
+                    .circuitBreaker(circuitBreaker(FILE_STORING_SERVICE)))
+                .metadata(RESPONSE_TIMEOUT_ATTR, bulkUploadResponseTimeout.toMillis())
+                .uri(fileStorageServiceUrl))
+            .route(FILE_STORING_SERVICE, route -> route
+                .path(API_PREFIX + "/files/**")
+                .filters(filter -> filter
+                    .stripPrefix(1)
+                    .rewriteResponseHeader(HttpHeaders.LOCATION, "^/", API_PREFIX + "/")
+                    .circuitBreaker(circuitBreaker(FILE_STORING_SERVICE)))
+                .uri(fileStorageServiceUrl))
+            .route(FILE_ANALYSIS_SERVICE, route -> route
+                .path(API_PREFIX + "/analysis/**")
+                .filters(filter -> filter
+                    .stripPrefix(1)
+                    .rewriteResponseHeader(HttpHeaders.LOCATION, "^/", API_PREFIX + "/")
+                    .circuitBreaker(circuitBreaker(FILE_ANALYSIS_SERVICE)))
+                .uri(fileAnalysisServiceUrl))
+            .route("file-storing-service-docs", route -> route
+                .path("/api-docs/file-storing-service")
+                .filters(filter -> filter
+                    .setPath("/v3/api-docs")
+                    .addRequestHeader("X-Forwarded-Prefix", API_PREFIX))
+                .uri(fileStorageServiceUrl))
+            .route("file-analysis-service-docs", route -> route
+                .path("/api-docs/file-analysis-service")
+                .filters(filter -> filter
+                    .setPath("/v3/api-docs")
+                    .addRequestHeader("X-Forwarded-Prefix", API_PREFIX))
+                .uri(fileAnalysisServiceUrl))
+            .build();
+    }
+
+    private static Consumer<SpringCloudCircuitBreakerFilterFactory.Config> circuitBreaker(String service) {
+        return config -> config
+            .setName(service)
+            .setFallbackUri("forward:/fallback/" + service);
+    }
+}
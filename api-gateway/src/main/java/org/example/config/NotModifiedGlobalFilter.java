@@ -0,0 +1,68 @@
+package org.example.config;
+
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Answers a conditional GET with 304 when the response, whether proxied or served from the local
+ * response cache, carries the ETag the client already has. Downstream services handle
+ * {@code If-None-Match} themselves; this covers the responses the gateway serves from its cache.
+ */
+@Component
+public class NotModifiedGlobalFilter implements GlobalFilter, Ordered {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        List<String> ifNoneMatch = exchange.getRequest().getHeaders().getIfNoneMatch();
+        if (exchange.getRequest().getMethod() != HttpMethod.GET || ifNoneMatch.isEmpty()) {
+            return chain.filter(exchange);
+        }
+
+        ServerHttpResponseDecorator response = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                if (getStatusCode() == null || getStatusCode().value() != HttpStatus.OK.value() || !matches(ifNoneMatch, getHeaders().getETag())) {
+                    return super.writeWith(body);
+                }
+                setStatusCode(HttpStatus.NOT_MODIFIED);
+                getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+                getHeaders().remove(HttpHeaders.CONTENT_TYPE);
+                return Flux.from(body).doOnNext(DataBufferUtils::release).then(Mono.defer(this::setComplete));
+            }
+        };
+        return chain.filter(exchange.mutate().response(response).build());
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    private static boolean matches(List<String> ifNoneMatch, String eTag) {
+        if (eTag == null) {
+            return false;
+        }
+        String opaqueTag = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+        for (String candidate : ifNoneMatch) {
+            if (candidate.equals("*") || candidate.equals(eTag) || candidate.equals(opaqueTag)
+                    || candidate.equals("W/" + opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,35 +0,0 @@
-package org.example.config;
-
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.ClientHttpResponse;
-import org.springframework.web.client.ResponseErrorHandler;
-import org.springframework.web.client.RestTemplate;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import java.io.IOException;
-
-@Configuration
-public class RestTemplateConfig {
-    private static final Logger logger = LoggerFactory.getLogger(RestTemplateConfig.class);
-
-    @Bean
-    public RestTemplate restTemplate() {
-        RestTemplate restTemplate = new RestTemplate();
-        restTemplate.setErrorHandler(new ResponseErrorHandler() {
-            @Override
-            public boolean hasError(ClientHttpResponse response) throws IOException {
-                return response.getStatusCode().is4xxClientError() || 
-                       response.getStatusCode().is5xxServerError();
-            }
-
-            @Override
-            public void handleError(ClientHttpResponse response) throws IOException {
-                logger.error("Error occurred while calling service. Status code: {}, Response body: {}", 
-                    response.getStatusCode(), 
-                    new String(response.getBody().readAllBytes()));
-            }
-        });
-        return restTemplate;
-    }
-} 
\ No newline at end of file
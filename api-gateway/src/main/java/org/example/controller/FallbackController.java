@@ -0,0 +1,39 @@
+package org.example.controller;
+
+import io.swagger.v3.oas.annotations.Hidden;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CIRCUITBREAKER_EXECUTION_EXCEPTION_ATTR;
+
+/**
+ * Answers requests whose route circuit breaker is open or whose backing service could not be
+ * reached, so clients fail fast with 503 (504 on a timeout) instead of waiting on a service that
+ * is down.
+ */
+@Hidden
+@RestController
+public class FallbackController {
+    private static final Logger logger = LoggerFactory.getLogger(FallbackController.class);
+    private static final String RETRY_AFTER_SECONDS = "15";
+
+    @RequestMapping("/fallback/{service}")
+    public ResponseEntity<Map<String, String>> fallback(@PathVariable String service, ServerWebExchange exchange) {
+        Throwable cause = exchange.getAttribute(CIRCUITBREAKER_EXECUTION_EXCEPTION_ATTR);
+        logger.warn("Fallback for {}: {}", service, cause != null ? cause.toString() : "no cause");
+        HttpStatus status = cause instanceof TimeoutException ? HttpStatus.GATEWAY_TIMEOUT : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status)
+            .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+            .body(Map.of("service", service, "error", service + " is temporarily unavailable"));
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.config;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class GatewayFallbackTest {
+    private static HttpServer slowAnalysisService;
+    private static int unreachablePort;
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeAll
+    static void startDownstream() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            unreachablePort = socket.getLocalPort();
+        }
+        slowAnalysisService = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        slowAnalysisService.createContext("/analysis/", exchange -> {
+            try {
+                Thread.sleep(1500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(202, -1);
+            exchange.close();
+        });
+        slowAnalysisService.start();
+    }
+
+    @AfterAll
+    static void stopDownstream() {
+        slowAnalysisService.stop(0);
+    }
+
+    @DynamicPropertySource
+    static void downstreamUrls(DynamicPropertyRegistry registry) {
+        registry.add("file-storage.service.url", () -> "http://localhost:" + unreachablePort);
+        registry.add("file-analysis.service.url", () -> "http://localhost:" + slowAnalysisService.getAddress().getPort());
+    }
+
+    @Test
+    void storingRoute_WhenServiceIsDown_ShouldAnswerWithFallback() throws Exception {
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+            HttpRequest.newBuilder(gatewayUri("/api/files/5")).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(503, response.statusCode());
+        assertTrue(response.headers().firstValue("Retry-After").isPresent());
+        assertTrue(response.body().contains("\"service\":\"file-storing-service\""));
+    }
+
+    @Test
+    void analysisRoute_WhenServiceIsSlow_ShouldWaitForItsResponse() throws Exception {
+        HttpResponse<Void> response = HttpClient.newHttpClient().send(
+            HttpRequest.newBuilder(gatewayUri("/api/analysis/7")).POST(HttpRequest.BodyPublishers.noBody()).build(),
+            HttpResponse.BodyHandlers.discarding());
+
+        assertEquals(202, response.statusCode());
+    }
+
+    private URI gatewayUri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,262 @@
+package org.example.config;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@AutoConfigureObservability
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class GatewayRoutesConfigTest {
+    private static final int CONCURRENT_UPLOADS = 8;
+    private static final long UPLOAD_SIZE = 32L * 1024 * 1024;
+
+    private static HttpServer downstream;
+    private static final AtomicLong bytesReceived = new AtomicLong();
+    private static final AtomicInteger plagiarismRequests = new AtomicInteger();
+    private static final CountDownLatch firstBatchLineReceived = new CountDownLatch(1);
+    private static final AtomicBoolean batchStreamed = new AtomicBoolean();
+    private static final AtomicReference<String> analysisTraceParent = new AtomicReference<>();
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeAll
+    static void startDownstream() throws IOException {
+        downstream = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        downstream.setExecutor(Executors.newFixedThreadPool(CONCURRENT_UPLOADS));
+        downstream.createContext("/files/upload", exchange -> {
+            long received = drain(exchange.getRequestBody());
+            bytesReceived.addAndGet(received);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            byte[] body = ("{\"id\":1,\"size\":" + received + "}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(201, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        downstream.createContext("/files/plagiarism/", exchange -> {
+            plagiarismRequests.incrementAndGet();
+            byte[] body = "{\"plagiarismFileId\":3}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("ETag", "\"5-3\"");
+            exchange.getResponseHeaders().add("Cache-Control", "max-age=60, public");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        downstream.createContext("/analysis/batch", exchange -> {
+            drain(exchange.getRequestBody());
+            exchange.getResponseHeaders().add("Content-Type", "application/x-ndjson");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write("{\"fileId\":1}\n".getBytes(StandardCharsets.UTF_8));
+                output.flush();
+                // The second result only follows once the client has seen the first one
+                batchStreamed.set(firstBatchLineReceived.await(5, TimeUnit.SECONDS));
+                output.write("{\"fileId\":2}\n".getBytes(StandardCharsets.UTF_8));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        downstream.createContext("/analysis/", exchange -> {
+            analysisTraceParent.set(exchange.getRequestHeaders().getFirst("traceparent"));
+            drain(exchange.getRequestBody());
+            exchange.getResponseHeaders().add("Location", "/analysis/jobs/42");
+            exchange.sendResponseHeaders(202, -1);
+            exchange.close();
+        });
+        downstream.start();
+    }
+
+    @AfterAll
+    static void stopDownstream() {
+        downstream.stop(0);
+    }
+
+    @DynamicPropertySource
+    static void downstreamUrls(DynamicPropertyRegistry registry) {
+        String url = "http://localhost:" + downstream.getAddress().getPort();
+        registry.add("file-storage.service.url", () -> url);
+        registry.add("file-analysis.service.url", () -> url);
+    }
+
+    @Test
+    void analysisRoute_ShouldStripPrefixAndRewriteLocation() throws Exception {
+        HttpResponse<Void> response = HttpClient.newHttpClient().send(
+            HttpRequest.newBuilder(gatewayUri("/api/analysis/7")).POST(HttpRequest.BodyPublishers.noBody()).build(),
+            HttpResponse.BodyHandlers.discarding());
+
+        assertEquals(202, response.statusCode());
+        assertEquals("/api/analysis/jobs/42", response.headers().firstValue("Location").orElseThrow());
+    }
+
+    @Test
+    void analysisRoute_ShouldPropagateTraceAndRecordLatencyHistogramPerRoute() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        client.send(HttpRequest.newBuilder(gatewayUri("/api/analysis/8")).POST(HttpRequest.BodyPublishers.noBody()).build(),
+            HttpResponse.BodyHandlers.discarding());
+
+        HttpResponse<String> metrics = client.send(
+            HttpRequest.newBuilder(gatewayUri("/actuator/prometheus")).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+
+        assertNotNull(analysisTraceParent.get());
+        assertEquals(200, metrics.statusCode());
+        assertTrue(metrics.body().lines().anyMatch(line ->
+            line.startsWith("spring_cloud_gateway_requests_seconds_bucket{") && line.contains("routeId=\"file-analysis-service\"")));
+    }
+
+    @Test
+    void batchRoute_ShouldStreamEachResultAsSoonAsItArrives() throws Exception {
+        HttpResponse<InputStream> response = HttpClient.newHttpClient().send(
+            HttpRequest.newBuilder(gatewayUri("/api/analysis/batch"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"fileIds\":[1,2]}"))
+                .build(),
+            HttpResponse.BodyHandlers.ofInputStream());
+
+        assertEquals(200, response.statusCode());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            assertEquals("{\"fileId\":1}", reader.readLine());
+            firstBatchLineReceived.countDown();
+            assertEquals("{\"fileId\":2}", reader.readLine());
+            assertNull(reader.readLine());
+        }
+        assertTrue(batchStreamed.get(), "the first result was held back until the second one was written");
+    }
+
+    @Test
+    void plagiarismRoute_ShouldServeRepeatedRequestsFromCacheAndHonourETag() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(gatewayUri("/api/files/plagiarism/5")).GET().build();
+
+        HttpResponse<String> first = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> second = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> conditional = client.send(
+            HttpRequest.newBuilder(gatewayUri("/api/files/plagiarism/5")).header("If-None-Match", "\"5-3\"").GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, first.statusCode());
+        assertEquals(200, second.statusCode());
+        assertEquals(first.body(), second.body());
+        assertEquals(304, conditional.statusCode());
+        assertEquals("", conditional.body());
+        assertEquals(1, plagiarismRequests.get());
+    }
+
+    @Test
+    void uploadRoute_ShouldStreamConcurrentLargeUploadsWithoutBufferingThem() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        AtomicLong peakHeap = new AtomicLong(heapBefore);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() ->
+            peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max), 0, 10, TimeUnit.MILLISECONDS);
+        try {
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_UPLOADS; i++) {
+                HttpRequest request = HttpRequest.newBuilder(gatewayUri("/api/files/upload"))
+                    .header("Content-Type", "application/octet-stream")
+                    .POST(HttpRequest.BodyPublishers.fromPublisher(
+                        HttpRequest.BodyPublishers.ofInputStream(() -> new GeneratedInputStream(UPLOAD_SIZE)), UPLOAD_SIZE))
+                    .build();
+                responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+            }
+            for (CompletableFuture<HttpResponse<String>> response : responses) {
+                HttpResponse<String> completed = response.get(2, TimeUnit.MINUTES);
+                assertEquals(201, completed.statusCode());
+                assertTrue(completed.body().contains("\"size\":" + UPLOAD_SIZE));
+            }
+        } finally {
+            sampler.shutdownNow();
+        }
+
+        long totalUploaded = CONCURRENT_UPLOADS * UPLOAD_SIZE;
+        assertEquals(totalUploaded, bytesReceived.get());
+        assertTrue(peakHeap.get() - heapBefore < totalUploaded / 2,
+            "Heap grew by " + (peakHeap.get() - heapBefore) + " bytes while proxying " + totalUploaded + " bytes");
+    }
+
+    private URI gatewayUri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static long drain(InputStream input) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * Produces {@code size} bytes of text on the fly, so the client side holds no payload either.
+     */
+    private static final class GeneratedInputStream extends InputStream {
+        private long remaining;
+
+        GeneratedInputStream(long size) {
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() {
+            if (remaining == 0) {
+                return -1;
+            }
+            remaining--;
+            return 'a' + (int) (remaining % 26);
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (remaining == 0) {
+                return -1;
+            }
+            int count = (int) Math.min(length, remaining);
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = (byte) ('a' + (int) ((remaining - i) % 26));
+            }
+            remaining -= count;
+            return count;
+        }
+    }
+}
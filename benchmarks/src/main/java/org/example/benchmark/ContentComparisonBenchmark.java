@@ -0,0 +1,84 @@
+package org.example.benchmark;
+
+import org.example.storage.ContentVerifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Content comparison of plagiarism candidates: the original {@code areFilesContentEqual}, which
+ * reads both files into memory, against {@link ContentVerifier}. Identical files are the worst
+ * case, since every byte has to be compared.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContentComparisonBenchmark {
+
+    @Param({"64", "1024", "16384"})
+    private int sizeKb;
+
+    private Path directory;
+    private Path original;
+    private Path copy;
+    private long size;
+    private final ContentVerifier sharedVerifier = new ContentVerifier();
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] content = SyntheticText.document(new Random(42), sizeKb * 1024).getBytes(StandardCharsets.UTF_8);
+        directory = Files.createTempDirectory("comparison-benchmark");
+        original = Files.write(directory.resolve("original.txt"), content);
+        copy = Files.write(directory.resolve("copy.txt"), content);
+        size = content.length;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public boolean legacyReadAllBytes() throws IOException {
+        byte[] currentBytes = Files.readAllBytes(original);
+        byte[] otherBytes = Files.readAllBytes(copy);
+        return MessageDigest.isEqual(currentBytes, otherBytes);
+    }
+
+    /**
+     * First comparison of a pair: streams both files and compares them chunk by chunk.
+     */
+    @Benchmark
+    public boolean verifierFirstComparison() throws IOException {
+        return new ContentVerifier().sameContent(1, original, size, 2, copy, size);
+    }
+
+    /**
+     * Repeated check of a pair already verified: answered from the cache of equal pairs.
+     */
+    @Benchmark
+    public boolean verifierRepeatedComparison() throws IOException {
+        return sharedVerifier.sameContent(1, original, size, 2, copy, size);
+    }
+}
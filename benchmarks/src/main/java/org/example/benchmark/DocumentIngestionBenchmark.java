@@ -0,0 +1,120 @@
+package org.example.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import org.example.analysis.CharsetDetector;
+import org.example.analysis.MappedFileReader;
+import org.example.analysis.TextStatistics;
+import org.example.analysis.TextStatisticsCollector;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingestion of a stored document by {@code FileAnalysisService}: decoding and counting a file
+ * mapped from the shared uploads volume against streaming it from a local HTTP server, as the
+ * storing service serves it. The {@code megabytes} counter is the throughput in MB/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentIngestionBenchmark {
+
+    @Param({"64", "1024", "16384"})
+    private int sizeKb;
+
+    @Param({"UTF-8", "windows-1251"})
+    private String charset;
+
+    private Path file;
+    private long fileSize;
+    private HttpServer server;
+    private URL url;
+
+    @Setup
+    public void setUp() throws IOException {
+        String text = SyntheticText.document(new Random(42), sizeKb * 1024);
+        file = Files.createTempFile("ingestion", ".txt");
+        Files.write(file, text.getBytes(Charset.forName(charset)));
+        fileSize = Files.size(file);
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/files/1", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+            exchange.sendResponseHeaders(200, fileSize);
+            try (OutputStream body = exchange.getResponseBody()) {
+                Files.copy(file, body);
+            }
+        });
+        server.start();
+        url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/files/1");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        server.stop(0);
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public TextStatistics mappedFile(Megabytes megabytes) throws IOException {
+        try (Reader reader = MappedFileReader.open(file)) {
+            TextStatistics statistics = TextStatisticsCollector.collect(reader);
+            megabytes.add(fileSize);
+            return statistics;
+        }
+    }
+
+    @Benchmark
+    public TextStatistics httpStream(Megabytes megabytes) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try (InputStream body = connection.getInputStream();
+             Reader reader = CharsetDetector.newReader(body)) {
+            TextStatistics statistics = TextStatisticsCollector.collect(reader);
+            megabytes.add(fileSize);
+            return statistics;
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Megabytes {
+        public double megabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+        }
+
+        void add(long bytes) {
+            megabytes += bytes / (1024.0 * 1024.0);
+        }
+    }
+}
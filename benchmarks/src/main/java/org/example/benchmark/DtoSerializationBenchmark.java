@@ -0,0 +1,108 @@
+package org.example.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.dto.AnalysisResponseDTO;
+import org.example.dto.SimilarFilePairDTO;
+import org.example.dto.SimilarityClusterDTO;
+import org.example.dto.SimilarityReportDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON mapping of the DTOs exchanged between the services: a single analysis result and a
+ * similarity report with a given number of clusters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoSerializationBenchmark {
+
+    @Param({"10", "1000"})
+    private int clusters;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private AnalysisResponseDTO analysis;
+    private SimilarityReportDTO report;
+    private String analysisJson;
+    private String reportJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        Random random = new Random(42);
+        analysis = new AnalysisResponseDTO();
+        analysis.setParagraphCount(42L);
+        analysis.setWordCount(12_345L);
+        analysis.setCharacterCount(87_654L);
+        analysis.setSentenceCount(789L);
+        analysis.setUniqueWordCount(2_345L);
+        analysis.setAverageWordLength(6.2);
+        analysis.setPlagiarismFileId(17L);
+        analysis.setWordCloudPath("/app/wordclouds/1700000000000.png");
+
+        List<SimilarityClusterDTO> clusterList = new ArrayList<>();
+        long id = 0;
+        for (int i = 0; i < clusters; i++) {
+            long first = ++id;
+            long second = ++id;
+            long third = ++id;
+            SimilarityClusterDTO cluster = new SimilarityClusterDTO();
+            cluster.setFileIds(List.of(first, second, third));
+            cluster.setPairs(List.of(pair(first, second, random), pair(second, third, random)));
+            clusterList.add(cluster);
+        }
+        report = new SimilarityReportDTO();
+        report.setThreshold(0.8);
+        report.setFileCount((int) id);
+        report.setSkippedFileIds(List.of());
+        report.setClusters(clusterList);
+
+        analysisJson = objectMapper.writeValueAsString(analysis);
+        reportJson = objectMapper.writeValueAsString(report);
+    }
+
+    @Benchmark
+    public String serializeAnalysis() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(analysis);
+    }
+
+    @Benchmark
+    public AnalysisResponseDTO deserializeAnalysis() throws JsonProcessingException {
+        return objectMapper.readValue(analysisJson, AnalysisResponseDTO.class);
+    }
+
+    @Benchmark
+    public String serializeReport() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(report);
+    }
+
+    @Benchmark
+    public SimilarityReportDTO deserializeReport() throws JsonProcessingException {
+        return objectMapper.readValue(reportJson, SimilarityReportDTO.class);
+    }
+
+    private static SimilarFilePairDTO pair(long first, long second, Random random) {
+        SimilarFilePairDTO pair = new SimilarFilePairDTO();
+        pair.setFirstFileId(first);
+        pair.setSecondFileId(second);
+        pair.setSimilarity(0.8 + random.nextDouble() / 5);
+        return pair;
+    }
+}
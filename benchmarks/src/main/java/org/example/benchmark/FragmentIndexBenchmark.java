@@ -0,0 +1,97 @@
+package org.example.benchmark;
+
+import org.example.dto.FragmentSearchResponseDTO;
+import org.example.service.FragmentIndexService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Fragment search over an on-disk shingle index of essay-sized documents. Queries are passages
+ * of indexed documents with a few words changed. The size of the index is printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class FragmentIndexBenchmark {
+    private static final int DOCUMENT_LENGTH = 16 * 1024;
+    private static final int QUERY_LENGTH = 1500;
+    private static final int QUERIES = 64;
+
+    @Param({"1000", "10000"})
+    private int documents;
+
+    private Path directory;
+    private FragmentIndexService fragmentIndexService;
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        directory = Files.createTempDirectory("fragment-benchmark");
+        Path indexDirectory = directory.resolve("fragment-index");
+        fragmentIndexService = new FragmentIndexService(indexDirectory);
+        Path document = directory.resolve("document.txt");
+        queries = new String[QUERIES];
+        for (int i = 0; i < documents; i++) {
+            String text = SyntheticText.document(random, DOCUMENT_LENGTH);
+            Files.writeString(document, text, StandardCharsets.UTF_8);
+            fragmentIndexService.index((long) i + 1, document);
+            if (i < QUERIES) {
+                queries[i] = paraphrase(random, text.substring(DOCUMENT_LENGTH / 2, DOCUMENT_LENGTH / 2 + QUERY_LENGTH));
+            }
+        }
+        fragmentIndexService.close();
+        // Reopen, so the queries hit the flushed segments rather than the in-memory buffer
+        fragmentIndexService = new FragmentIndexService(indexDirectory);
+        System.out.printf("%nFragment index of %d documents: %.1f MB on disk%n",
+                documents, sizeOf(indexDirectory) / (1024.0 * 1024.0));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fragmentIndexService.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public FragmentSearchResponseDTO search() {
+        return fragmentIndexService.search(queries[next++ % QUERIES], 10);
+    }
+
+    private static String paraphrase(Random random, String passage) {
+        String[] words = passage.split(" ");
+        for (int i = 0; i < words.length; i += 15 + random.nextInt(10)) {
+            words[i] = SyntheticText.word(random);
+        }
+        return String.join(" ", words);
+    }
+
+    private static long sizeOf(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+}
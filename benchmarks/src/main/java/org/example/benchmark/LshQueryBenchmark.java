@@ -0,0 +1,65 @@
+package org.example.benchmark;
+
+import org.example.similarity.LshIndex;
+import org.example.similarity.MinHasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plagiarism candidate lookup against corpora of increasing size. Every query has a few planted
+ * near-duplicates, the rest of the corpus is unrelated; latency should stay flat as it grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LshQueryBenchmark {
+    private static final int QUERIES = 256;
+    private static final int DUPLICATES_PER_QUERY = 3;
+    private static final double THRESHOLD = 0.8;
+
+    @Param({"10000", "100000", "300000"})
+    private int corpusSize;
+
+    private LshIndex index;
+    private int[][] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = new LshIndex(MinHasher.DEFAULT_NUM_HASHES, LshIndex.DEFAULT_BANDS);
+        queries = new int[QUERIES][];
+        long id = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = SyntheticText.randomSignature(random, MinHasher.DEFAULT_NUM_HASHES);
+            for (int j = 0; j < DUPLICATES_PER_QUERY; j++) {
+                index.add(++id, SyntheticText.perturb(random, queries[i], 0.1));
+            }
+        }
+        while (id < corpusSize) {
+            index.add(++id, SyntheticText.randomSignature(random, MinHasher.DEFAULT_NUM_HASHES));
+        }
+    }
+
+    @Benchmark
+    public List<LshIndex.Match> query() {
+        int[] signature = queries[next++ % QUERIES];
+        return index.query(signature, -1, THRESHOLD, 10);
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.benchmark;
+
+import org.example.similarity.LshIndex;
+import org.example.similarity.MinHasher;
+import org.example.similarity.SimilarityClusterer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clustering behind {@code POST /files/similarity-report}, by document count and parallelism.
+ * A tenth of the documents belong to groups of near-duplicates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimilarityReportBenchmark {
+    private static final double THRESHOLD = 0.8;
+    private static final int GROUP_SIZE = 5;
+
+    @Param({"1000", "5000", "10000"})
+    private int documents;
+
+    @Param({"1", "2", "4"})
+    private int parallelism;
+
+    private long[] ids;
+    private int[][] signatures;
+    private ForkJoinPool pool;
+    private final SimilarityClusterer clusterer = new SimilarityClusterer(LshIndex.DEFAULT_BANDS);
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        ids = new long[documents];
+        signatures = new int[documents][];
+        int grouped = documents / 10;
+        for (int i = 0; i < documents; i++) {
+            ids[i] = i + 1;
+            signatures[i] = i < grouped && i % GROUP_SIZE != 0
+                    ? SyntheticText.perturb(random, signatures[i - i % GROUP_SIZE], 0.1)
+                    : SyntheticText.randomSignature(random, MinHasher.DEFAULT_NUM_HASHES);
+        }
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<SimilarityClusterer.Cluster> cluster() {
+        return clusterer.cluster(ids, signatures, THRESHOLD, pool);
+    }
+}
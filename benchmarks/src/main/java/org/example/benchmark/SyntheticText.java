@@ -0,0 +1,89 @@
+package org.example.benchmark;
+
+import java.util.Random;
+
+/**
+ * Deterministic synthetic corpus: Cyrillic and Latin words with a skewed frequency distribution,
+ * grouped into sentences, lines and paragraphs like student essays.
+ */
+final class SyntheticText {
+    private static final String[] SYLLABLES = {
+        "про", "ана", "лиз", "тек", "ст", "ра", "бо", "та", "ми", "ни", "ко", "ве", "де", "ло", "сть",
+        "ing", "con", "tion", "pla", "gia", "rism", "da", "ta", "re", "port", "struc", "ture", "al", "go"
+    };
+    private static final String[] VOCABULARY = buildVocabulary(5000);
+
+    private SyntheticText() {
+    }
+
+    static String document(Random random, int approximateLength) {
+        StringBuilder text = new StringBuilder(approximateLength + 64);
+        int wordsInSentence = 0;
+        int wordsInLine = 0;
+        int linesInParagraph = 0;
+        while (text.length() < approximateLength) {
+            text.append(word(random));
+            wordsInSentence++;
+            wordsInLine++;
+            if (wordsInSentence >= 8 + random.nextInt(12)) {
+                text.append('.');
+                wordsInSentence = 0;
+            }
+            if (wordsInLine >= 12 + random.nextInt(6)) {
+                text.append('\n');
+                wordsInLine = 0;
+                if (++linesInParagraph >= 3 + random.nextInt(4)) {
+                    text.append('\n');
+                    linesInParagraph = 0;
+                }
+            } else {
+                text.append(' ');
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Frequent words are picked far more often than rare ones, as in natural text.
+     */
+    static String word(Random random) {
+        double skewed = Math.pow(random.nextDouble(), 3);
+        return VOCABULARY[(int) (skewed * VOCABULARY.length)];
+    }
+
+    static int[] randomSignature(Random random, int numHashes) {
+        int[] signature = new int[numHashes];
+        for (int i = 0; i < numHashes; i++) {
+            signature[i] = random.nextInt();
+        }
+        return signature;
+    }
+
+    /**
+     * @return a copy of the signature with about {@code changed} of its values replaced, i.e. a
+     * near-duplicate with an estimated similarity of about {@code 1 - changed}
+     */
+    static int[] perturb(Random random, int[] signature, double changed) {
+        int[] copy = signature.clone();
+        for (int i = 0; i < copy.length; i++) {
+            if (random.nextDouble() < changed) {
+                copy[i] = random.nextInt();
+            }
+        }
+        return copy;
+    }
+
+    private static String[] buildVocabulary(int size) {
+        Random random = new Random(7);
+        String[] vocabulary = new String[size];
+        for (int i = 0; i < size; i++) {
+            StringBuilder word = new StringBuilder();
+            int syllables = 1 + random.nextInt(4);
+            for (int j = 0; j < syllables; j++) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            vocabulary[i] = word.toString();
+        }
+        return vocabulary;
+    }
+}
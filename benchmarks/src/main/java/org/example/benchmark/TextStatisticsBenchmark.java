@@ -0,0 +1,98 @@
+package org.example.benchmark;
+
+import org.example.analysis.TermFrequencyCollector;
+import org.example.analysis.TextStatistics;
+import org.example.analysis.TextStatisticsCollector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Text statistics of {@code FileAnalysisService}: the single-pass collectors against the
+ * line-by-line {@code split("\\s+")} loop they replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextStatisticsBenchmark {
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    @Param({"64", "1024", "8192"})
+    private int sizeKb;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        text = SyntheticText.document(new Random(42), sizeKb * 1024);
+    }
+
+    @Benchmark
+    public TextStatistics singlePassCollector() throws IOException {
+        return TextStatisticsCollector.collect(new StringReader(text));
+    }
+
+    /**
+     * Statistics and word-cloud term frequencies in one pass, as {@code analyzeFile} computes them.
+     */
+    @Benchmark
+    public Map<String, Integer> singlePassWithTermFrequencies() throws IOException {
+        TextStatisticsCollector collector = new TextStatisticsCollector();
+        TermFrequencyCollector terms = new TermFrequencyCollector();
+        StringReader reader = new StringReader(text);
+        CharBuffer buffer = CharBuffer.allocate(READ_BUFFER_SIZE);
+        while (reader.read(buffer) != -1) {
+            buffer.flip();
+            collector.accept(buffer);
+            buffer.rewind();
+            terms.accept(buffer);
+            buffer.clear();
+        }
+        collector.finish();
+        return terms.topTerms(150, 3);
+    }
+
+    /**
+     * The original loop: copies the text into a StringBuilder and splits every line with a regex.
+     */
+    @Benchmark
+    public long[] legacyLineSplit() throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader(text));
+        String line;
+        StringBuilder content = new StringBuilder();
+        int paragraphCount = 0;
+        int wordCount = 0;
+        int characterCount = 0;
+        while ((line = reader.readLine()) != null) {
+            content.append(line).append("\n");
+            if (line.trim().isEmpty()) {
+                paragraphCount++;
+            }
+            wordCount += line.split("\\s+").length;
+            characterCount += line.length();
+        }
+        if (!content.toString().trim().isEmpty()) {
+            paragraphCount++;
+        }
+        return new long[] {paragraphCount, wordCount, characterCount};
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.service.FileStorageService;
+import org.example.service.FragmentIndexService;
+import org.example.service.SimilarityIndexService;
+import org.example.storage.StagedUpload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SHA-256 hashing of uploads: the original in-memory {@code calculateHash}, plain streaming
+ * hashing, and the whole staging step of {@code FileStorageService}, which hashes, computes the
+ * MinHash signature and writes the temp file in one pass.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UploadHashingBenchmark {
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    @Param({"64", "1024", "16384"})
+    private int sizeKb;
+
+    private byte[] content;
+    private Path storageDirectory;
+    private FragmentIndexService fragmentIndexService;
+    private FileStorageService fileStorageService;
+
+    @Setup
+    public void setUp() throws IOException {
+        content = SyntheticText.document(new Random(42), sizeKb * 1024).getBytes(StandardCharsets.UTF_8);
+        storageDirectory = Files.createTempDirectory("upload-benchmark");
+        fragmentIndexService = new FragmentIndexService(storageDirectory.resolve("fragment-index"));
+        // Staging only touches the blob store and the MinHash parameters
+        fileStorageService = new FileStorageService(null, new SimilarityIndexService(null), fragmentIndexService,
+                null, new SimpleMeterRegistry(), storageDirectory);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fragmentIndexService.close();
+        FileSystemUtils.deleteRecursively(storageDirectory);
+    }
+
+    /**
+     * The original: the whole upload as one array, hex-encoded with {@code String.format}.
+     */
+    @Benchmark
+    public String legacyCalculateHash() throws NoSuchAlgorithmException {
+        byte[] bytes = MessageDigest.getInstance("SHA-256").digest(content.clone());
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    @Benchmark
+    public String streamingDigest() throws NoSuchAlgorithmException, IOException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (InputStream input = new ByteArrayInputStream(content)) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    @Benchmark
+    public String stageUpload() throws IOException {
+        StagedUpload upload = fileStorageService.stage("essay.txt", new ByteArrayInputStream(content));
+        fileStorageService.discard(List.of(upload));
+        return upload.getHash();
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.benchmark;
+
+import org.example.analysis.TermFrequencyCollector;
+import org.example.wordcloud.LocalWordCloudRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process word cloud rendering (layout and PNG encoding) for the top terms of a synthetic
+ * document, at the size {@code FileAnalysisService} requests and a smaller preview.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class WordCloudRenderBenchmark {
+    @Param({"50", "150"})
+    private int terms;
+
+    @Param({"500", "1000"})
+    private int sizePx;
+
+    private LocalWordCloudRenderer renderer;
+    private Map<String, Integer> frequencies;
+
+    @Setup
+    public void setUp() {
+        renderer = new LocalWordCloudRenderer("SansSerif");
+        TermFrequencyCollector collector = new TermFrequencyCollector();
+        collector.accept(CharBuffer.wrap(SyntheticText.document(new Random(42), 1024 * 1024)));
+        frequencies = collector.topTerms(terms, 3);
+    }
+
+    @Benchmark
+    public byte[] render() throws IOException {
+        return renderer.render(frequencies, sizePx, sizePx);
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Schema(description = "File analysis job")
+public class AnalysisJobDTO {
+    @Schema(description = "Job ID")
+    private String jobId;
+    @Schema(description = "ID of the analysed file")
+    private Long fileId;
+    @Schema(description = "Current stage of the job")
+    private AnalysisJobStatus status;
+    @Schema(description = "Analysis result, present once the job is completed")
+    private AnalysisResponseDTO result;
+    @Schema(description = "Failure reason, present if the job failed")
+    private String error;
+    @Schema(description = "When the job was submitted")
+    private Instant submittedAt;
+    @Schema(description = "When the job last changed its stage")
+    private Instant updatedAt;
+}
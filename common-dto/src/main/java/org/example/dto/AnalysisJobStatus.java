@@ -0,0 +1,17 @@
+package org.example.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Analysis job stage")
+public enum AnalysisJobStatus {
+    QUEUED,
+    ANALYZING_TEXT,
+    RENDERING_WORD_CLOUD,
+    CHECKING_PLAGIARISM,
+    COMPLETED,
+    FAILED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
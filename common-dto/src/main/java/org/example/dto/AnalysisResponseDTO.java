@@ -9,6 +9,11 @@ public class AnalysisResponseDTO {
     private Long paragraphCount;
     private Long wordCount;
     private Long characterCount;
+    private Long sentenceCount;
+    private Long uniqueWordCount;
+    private Double averageWordLength;
     private Long plagiarismFileId;
     private String wordCloudPath;
+    @Schema(description = "The word cloud could not be rendered yet; it is retried and the analysis is not cacheable until then")
+    private Boolean wordCloudPending;
 } 
\ No newline at end of file
@@ -0,0 +1,13 @@
+package org.example.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "Batch analysis request")
+public class BatchAnalysisRequestDTO {
+    @Schema(description = "IDs of the files to analyse; duplicates are analysed once")
+    private List<Long> fileIds;
+}
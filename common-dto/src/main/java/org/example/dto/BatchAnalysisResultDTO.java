@@ -0,0 +1,15 @@
+package org.example.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "Analysis result of one file in a batch")
+public class BatchAnalysisResultDTO {
+    @Schema(description = "ID of the analysed file")
+    private Long fileId;
+    @Schema(description = "Analysis result, absent if the analysis failed")
+    private AnalysisResponseDTO analysis;
+    @Schema(description = "Failure reason, present if the analysis failed")
+    private String error;
+}
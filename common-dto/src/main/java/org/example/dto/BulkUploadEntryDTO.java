@@ -0,0 +1,17 @@
+package org.example.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "Outcome of one file of a bulk upload")
+public class BulkUploadEntryDTO {
+    @Schema(description = "Name of the uploaded file, or its path inside the archive")
+    private String name;
+    @Schema(description = "Stored file ID, absent if the file was rejected")
+    private Long id;
+    @Schema(description = "Whether identical content was already stored")
+    private boolean duplicate;
+    @Schema(description = "Why the file was rejected, absent if it was stored")
+    private String error;
+}
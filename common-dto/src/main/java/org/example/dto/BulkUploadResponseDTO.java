@@ -0,0 +1,13 @@
+package org.example.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "Bulk upload response")
+public class BulkUploadResponseDTO {
+    @Schema(description = "One entry per uploaded file, in upload order")
+    private List<BulkUploadEntryDTO> files;
+}
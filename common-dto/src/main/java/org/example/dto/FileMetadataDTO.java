@@ -0,0 +1,19 @@
+package org.example.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "Stored file metadata")
+public class FileMetadataDTO {
+    @Schema(description = "File ID")
+    private Long id;
+    @Schema(description = "Original file name")
+    private String name;
+    @Schema(description = "SHA-256 hash of the content")
+    private String hash;
+    @Schema(description = "Content size in bytes")
+    private Long size;
+    @Schema(description = "Path of the content relative to the uploads volume, absent if it is stored elsewhere")
+    private String location;
+}
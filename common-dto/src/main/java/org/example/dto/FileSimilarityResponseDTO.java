@@ -0,0 +1,15 @@
+package org.example.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "File similarity response")
+public class FileSimilarityResponseDTO {
+    @Schema(description = "Checked file ID")
+    private Long fileId;
+    @Schema(description = "Near-duplicate files, most similar first")
+    private List<SimilarFileDTO> matches;
+}
@@ -8,4 +8,6 @@ import lombok.Data;
 public class FileUploadResponseDTO {
     @Schema(description = "Uploaded file ID")
     private Long id;
-} 
\ No newline at end of file
+    @Schema(description = "Whether identical content was already stored")
+    private boolean duplicate;
+}
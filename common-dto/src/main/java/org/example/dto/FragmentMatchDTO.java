@@ -0,0 +1,15 @@
+package org.example.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "Stored file sharing passages with the searched text")
+public class FragmentMatchDTO {
+    @Schema(description = "Source file ID")
+    private Long fileId;
+    @Schema(description = "Passages found in both texts, in source file order")
+    private List<FragmentSpanDTO> spans;
+}
@@ -0,0 +1,13 @@
+package org.example.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "Fragment search response")
+public class FragmentSearchResponseDTO {
+    @Schema(description = "Stored files sharing passages with the searched text, the ones sharing the most text first")
+    private List<FragmentMatchDTO> matches;
+}
@@ -0,0 +1,17 @@
+package org.example.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "Passage found in both the searched text and a stored file")
+public class FragmentSpanDTO {
+    @Schema(description = "Start of the passage in the searched text, in characters")
+    private Integer queryStart;
+    @Schema(description = "End of the passage in the searched text, in characters, exclusive")
+    private Integer queryEnd;
+    @Schema(description = "Start of the passage in the source file, in bytes")
+    private Integer sourceStart;
+    @Schema(description = "End of the passage in the source file, in bytes, exclusive")
+    private Integer sourceEnd;
+}
@@ -0,0 +1,13 @@
+package org.example.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "Near-duplicate file")
+public class SimilarFileDTO {
+    @Schema(description = "Similar file ID")
+    private Long fileId;
+    @Schema(description = "Estimated Jaccard similarity of word shingles, from 0 to 1")
+    private Double similarity;
+}
@@ -0,0 +1,15 @@
+package org.example.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "Pair of similar files")
+public class SimilarFilePairDTO {
+    @Schema(description = "ID of the first file")
+    private Long firstFileId;
+    @Schema(description = "ID of the second file")
+    private Long secondFileId;
+    @Schema(description = "Estimated Jaccard similarity of the files' word shingles, from 0 to 1")
+    private Double similarity;
+}
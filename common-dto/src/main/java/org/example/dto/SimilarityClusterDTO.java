@@ -0,0 +1,15 @@
+package org.example.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "Group of similar files")
+public class SimilarityClusterDTO {
+    @Schema(description = "Files of the group, in ID order")
+    private List<Long> fileIds;
+    @Schema(description = "Most similar pairs within the group, most similar first")
+    private List<SimilarFilePairDTO> pairs;
+}
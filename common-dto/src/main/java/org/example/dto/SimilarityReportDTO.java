@@ -0,0 +1,19 @@
+package org.example.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "Pairwise similarity report over a set of files")
+public class SimilarityReportDTO {
+    @Schema(description = "Minimum estimated similarity of a reported pair")
+    private Double threshold;
+    @Schema(description = "Number of compared files")
+    private Integer fileCount;
+    @Schema(description = "Requested files that were not compared: unknown or without words")
+    private List<Long> skippedFileIds;
+    @Schema(description = "Groups of transitively similar files, largest first")
+    private List<SimilarityClusterDTO> clusters;
+}
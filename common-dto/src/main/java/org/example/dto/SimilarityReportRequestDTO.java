@@ -0,0 +1,15 @@
+package org.example.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "Similarity report request")
+public class SimilarityReportRequestDTO {
+    @Schema(description = "IDs of the files to compare with each other")
+    private List<Long> fileIds;
+    @Schema(description = "Minimum estimated similarity of a reported pair, from 0 to 1", defaultValue = "0.8")
+    private Double threshold;
+}
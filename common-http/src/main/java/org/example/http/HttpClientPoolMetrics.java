@@ -0,0 +1,34 @@
+package org.example.http;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+
+/**
+ * Publishes connection pool usage as {@code http.client.pool.*} gauges. A growing
+ * {@code pending} count means callers wait for connections and the pool is too small.
+ */
+public class HttpClientPoolMetrics implements MeterBinder {
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    public HttpClientPoolMetrics(PoolingHttpClientConnectionManager connectionManager) {
+        this.connectionManager = connectionManager;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("http.client.pool.leased", connectionManager, manager -> manager.getTotalStats().getLeased())
+                .description("Connections currently in use")
+                .register(registry);
+        Gauge.builder("http.client.pool.available", connectionManager, manager -> manager.getTotalStats().getAvailable())
+                .description("Idle connections kept alive for reuse")
+                .register(registry);
+        Gauge.builder("http.client.pool.pending", connectionManager, manager -> manager.getTotalStats().getPending())
+                .description("Requests waiting for a connection")
+                .register(registry);
+        Gauge.builder("http.client.pool.max", connectionManager, manager -> manager.getTotalStats().getMax())
+                .description("Maximum number of pooled connections")
+                .register(registry);
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.http;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "http.client")
+public class HttpClientProperties {
+    /** Connections kept open across all downstream services. */
+    private int maxConnections = 200;
+    /** Connections kept open to a single host. */
+    private int maxConnectionsPerRoute = 50;
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    /** Maximum wait for data on an established connection. */
+    private Duration readTimeout = Duration.ofSeconds(30);
+    /** Maximum wait for a free connection when the pool is exhausted. */
+    private Duration connectionRequestTimeout = Duration.ofSeconds(2);
+    /** Idle connections are closed after this long. */
+    private Duration idleTimeout = Duration.ofSeconds(30);
+    /** Pooled connections idle for longer are checked before reuse. */
+    private Duration validateAfterInactivity = Duration.ofSeconds(2);
+}
@@ -0,0 +1,81 @@
+package org.example.http;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.web.client.RestTemplateAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestTemplateCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+/**
+ * Shares one pooled Apache HttpClient between all RestTemplates built from the
+ * {@code RestTemplateBuilder}, so inter-service calls reuse keep-alive connections and are bounded
+ * by the {@code http.client.*} timeouts.
+ */
+@AutoConfiguration(before = RestTemplateAutoConfiguration.class)
+@EnableConfigurationProperties(HttpClientProperties.class)
+public class PooledHttpClientAutoConfiguration {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public PoolingHttpClientConnectionManager pooledConnectionManager(HttpClientProperties properties) {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxConnections())
+                .setMaxConnPerRoute(properties.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(properties.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(properties.getReadTimeout()))
+                        .setValidateAfterInactivity(TimeValue.of(properties.getValidateAfterInactivity()))
+                        .build())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public CloseableHttpClient pooledHttpClient(PoolingHttpClientConnectionManager connectionManager,
+                                                HttpClientProperties properties) {
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(properties.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(properties.getReadTimeout()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(properties.getIdleTimeout()))
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ClientHttpRequestFactory pooledClientHttpRequestFactory(CloseableHttpClient httpClient) {
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    @Bean
+    public RestTemplateCustomizer pooledRequestFactoryCustomizer(ClientHttpRequestFactory requestFactory) {
+        return restTemplate -> restTemplate.setRequestFactory(requestFactory);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    static class PoolMetricsConfiguration {
+
+        @Bean
+        public HttpClientPoolMetrics httpClientPoolMetrics(PoolingHttpClientConnectionManager connectionManager) {
+            return new HttpClientPoolMetrics(connectionManager);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.http;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.web.client.RestTemplateAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledHttpClientAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(
+                    PooledHttpClientAutoConfiguration.class, RestTemplateAutoConfiguration.class));
+
+    @Test
+    void restTemplate_ShouldUseSharedPooledRequestFactory() {
+        contextRunner.run(context -> {
+            RestTemplateBuilder builder = context.getBean(RestTemplateBuilder.class);
+            RestTemplate first = builder.build();
+            RestTemplate second = builder.build();
+
+            ClientHttpRequestFactory requestFactory = context.getBean(ClientHttpRequestFactory.class);
+            assertSame(requestFactory, first.getRequestFactory());
+            assertSame(requestFactory, second.getRequestFactory());
+        });
+    }
+
+    @Test
+    void connectionManager_ShouldApplyConfiguredPoolLimits() {
+        contextRunner
+                .withPropertyValues("http.client.max-connections=40", "http.client.max-connections-per-route=10")
+                .run(context -> {
+                    PoolingHttpClientConnectionManager connectionManager =
+                            context.getBean(PoolingHttpClientConnectionManager.class);
+                    assertEquals(40, connectionManager.getMaxTotal());
+                    assertEquals(10, connectionManager.getDefaultMaxPerRoute());
+                });
+    }
+
+    @Test
+    void poolMetrics_ShouldReportPoolUsage() {
+        contextRunner.run(context -> {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            context.getBean(HttpClientPoolMetrics.class).bindTo(registry);
+
+            assertEquals(200.0, registry.get("http.client.pool.max").gauge().value());
+            assertEquals(0.0, registry.get("http.client.pool.leased").gauge().value());
+        });
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.analysis;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Guesses the encoding of an uploaded text from its first {@value #SAMPLE_SIZE} bytes: the byte
+ * order mark if there is one, otherwise UTF-8 if the sample is valid UTF-8, otherwise
+ * windows-1251, in which older Russian texts are usually saved.
+ */
+public final class CharsetDetector {
+    public static final int SAMPLE_SIZE = 64 * 1024;
+    public static final Charset WINDOWS_1251 = Charset.forName("windows-1251");
+
+    private static final int DECODE_CHUNK_SIZE = 8192;
+
+    private CharsetDetector() {
+    }
+
+    /**
+     * @param sample   the first bytes of the content; its position is left unchanged
+     * @param complete whether the sample is the whole content, so a truncated last character is an error
+     */
+    public static Charset detect(ByteBuffer sample, boolean complete) {
+        Charset byteOrderMarkCharset = byteOrderMarkCharset(sample);
+        if (byteOrderMarkCharset != null) {
+            return byteOrderMarkCharset;
+        }
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        ByteBuffer input = sample.duplicate();
+        CharBuffer output = CharBuffer.allocate(DECODE_CHUNK_SIZE);
+        while (true) {
+            CoderResult result = decoder.decode(input, output, complete);
+            if (result.isError()) {
+                return WINDOWS_1251;
+            }
+            if (result.isUnderflow()) {
+                return StandardCharsets.UTF_8;
+            }
+            output.clear();
+        }
+    }
+
+    /**
+     * @return the number of bytes of the byte order mark the sample starts with, 0 if none
+     */
+    public static int byteOrderMarkLength(ByteBuffer sample) {
+        Charset charset = byteOrderMarkCharset(sample);
+        if (charset == null) {
+            return 0;
+        }
+        return charset == StandardCharsets.UTF_8 ? 3 : 2;
+    }
+
+    /**
+     * Decodes a stream in its detected charset. The sample is read ahead and replayed, so nothing
+     * has to be buffered beyond it; the byte order mark is skipped.
+     */
+    public static Reader newReader(InputStream content) throws IOException {
+        byte[] sample = content.readNBytes(SAMPLE_SIZE);
+        ByteBuffer sampleBuffer = ByteBuffer.wrap(sample);
+        Charset charset = detect(sampleBuffer, sample.length < SAMPLE_SIZE);
+        int skipped = byteOrderMarkLength(sampleBuffer);
+        InputStream replayed = new SequenceInputStream(
+                new ByteArrayInputStream(sample, skipped, sample.length - skipped), content);
+        return new InputStreamReader(replayed, charset);
+    }
+
+    private static Charset byteOrderMarkCharset(ByteBuffer sample) {
+        int position = sample.position();
+        int remaining = sample.remaining();
+        if (remaining >= 3 && (sample.get(position) & 0xFF) == 0xEF && (sample.get(position + 1) & 0xFF) == 0xBB
+                && (sample.get(position + 2) & 0xFF) == 0xBF) {
+            return StandardCharsets.UTF_8;
+        }
+        if (remaining >= 2 && (sample.get(position) & 0xFF) == 0xFE && (sample.get(position + 1) & 0xFF) == 0xFF) {
+            return StandardCharsets.UTF_16BE;
+        }
+        if (remaining >= 2 && (sample.get(position) & 0xFF) == 0xFF && (sample.get(position + 1) & 0xFF) == 0xFE) {
+            return StandardCharsets.UTF_16LE;
+        }
+        return null;
+    }
+}
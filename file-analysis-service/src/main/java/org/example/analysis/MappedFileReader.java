@@ -0,0 +1,111 @@
+package org.example.analysis;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Decodes a local file through read-only memory-mapped windows, so its bytes go from the page
+ * cache straight into the decoder. The charset is detected from the start of the file with
+ * {@link CharsetDetector}; undecodable bytes become replacement characters. The file must not be
+ * truncated while it is read, which holds for stored uploads since they are never modified.
+ * Not thread-safe.
+ */
+public class MappedFileReader extends Reader {
+    static final long DEFAULT_WINDOW_SIZE = 32L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long windowSize;
+    private final Charset charset;
+    private final CharsetDecoder decoder;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private boolean flushing;
+    private boolean finished;
+
+    private MappedFileReader(FileChannel channel, long windowSize) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.windowSize = windowSize;
+        map(0);
+        ByteBuffer sample = window.slice(0, (int) Math.min(window.limit(), CharsetDetector.SAMPLE_SIZE));
+        this.charset = CharsetDetector.detect(sample, sample.limit() == size);
+        window.position(CharsetDetector.byteOrderMarkLength(sample));
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    public static MappedFileReader open(Path file) throws IOException {
+        return open(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    static MappedFileReader open(Path file, long windowSize) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new MappedFileReader(channel, windowSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, buffer.length);
+        if (length == 0) {
+            return 0;
+        }
+        CharBuffer output = CharBuffer.wrap(buffer, offset, length);
+        decode(output);
+        int read = output.position() - offset;
+        return read == 0 && finished ? -1 : read;
+    }
+
+    private void decode(CharBuffer output) throws IOException {
+        while (output.hasRemaining() && !finished) {
+            if (!flushing) {
+                boolean lastWindow = windowStart + window.limit() == size;
+                CoderResult result = decoder.decode(window, output, lastWindow);
+                if (result.isOverflow()) {
+                    return;
+                }
+                if (!lastWindow) {
+                    // Bytes of a character split by the window end are mapped again with the next one
+                    map(windowStart + window.position());
+                    continue;
+                }
+                flushing = true;
+            }
+            if (decoder.flush(output).isOverflow()) {
+                return;
+            }
+            finished = true;
+        }
+    }
+
+    private void map(long position) throws IOException {
+        windowStart = position;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, size - position));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
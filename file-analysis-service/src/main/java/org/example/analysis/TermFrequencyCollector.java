@@ -0,0 +1,177 @@
+package org.example.analysis;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Counts lower-cased words (runs of letters and digits) of a text fed as {@link CharBuffer} chunks.
+ * A {@link String} is only allocated the first time a term is seen; repeated terms are looked up
+ * by their characters in an open-addressing table. Not thread-safe.
+ */
+public class TermFrequencyCollector {
+    private static final int MAX_TERM_LENGTH = 64;
+
+    private final char[] token = new char[MAX_TERM_LENGTH];
+    private int tokenLength;
+    private int tokenHash;
+    private boolean tokenTooLong;
+
+    private String[] terms = new String[1024];
+    private int[] counts = new int[1024];
+    private int size;
+
+    public void accept(CharBuffer chunk) {
+        for (int i = chunk.position(); i < chunk.limit(); i++) {
+            accept(chunk.get(i));
+        }
+        chunk.position(chunk.limit());
+    }
+
+    private void accept(char c) {
+        if (Character.isLetterOrDigit(c)) {
+            if (tokenLength == MAX_TERM_LENGTH) {
+                tokenTooLong = true;
+                return;
+            }
+            char lower = Character.toLowerCase(c);
+            token[tokenLength++] = lower;
+            tokenHash = 31 * tokenHash + lower;
+        } else {
+            endToken();
+        }
+    }
+
+    private void endToken() {
+        if (tokenLength > 0 && !tokenTooLong) {
+            increment();
+        }
+        tokenLength = 0;
+        tokenHash = 0;
+        tokenTooLong = false;
+    }
+
+    private void increment() {
+        int mask = terms.length - 1;
+        int index = slot(tokenHash, mask);
+        while (terms[index] != null) {
+            if (matchesToken(terms[index])) {
+                counts[index]++;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        terms[index] = new String(token, 0, tokenLength);
+        counts[index] = 1;
+        if (++size * 2 > terms.length) {
+            resize();
+        }
+    }
+
+    private static int slot(int hash, int mask) {
+        int spread = hash * 0x9E3779B9;
+        return (spread ^ (spread >>> 16)) & mask;
+    }
+
+    private boolean matchesToken(String term) {
+        if (term.length() != tokenLength) {
+            return false;
+        }
+        for (int i = 0; i < tokenLength; i++) {
+            if (term.charAt(i) != token[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void resize() {
+        String[] oldTerms = terms;
+        int[] oldCounts = counts;
+        terms = new String[oldTerms.length * 2];
+        counts = new int[oldCounts.length * 2];
+        int mask = terms.length - 1;
+        for (int i = 0; i < oldTerms.length; i++) {
+            if (oldTerms[i] == null) {
+                continue;
+            }
+            int index = slot(oldTerms[i].hashCode(), mask);
+            while (terms[index] != null) {
+                index = (index + 1) & mask;
+            }
+            terms[index] = oldTerms[i];
+            counts[index] = oldCounts[i];
+        }
+    }
+
+    /**
+     * @return up to {@code limit} most frequent terms, most frequent first, skipping stop words,
+     * numbers and terms shorter than {@code minLength}
+     */
+    public Map<String, Integer> topTerms(int limit, int minLength) {
+        endToken();
+        Integer[] order = new Integer[terms.length];
+        int candidates = 0;
+        for (int i = 0; i < terms.length; i++) {
+            String term = terms[i];
+            if (term != null && term.length() >= minLength && !StopWords.contains(term) && !isNumber(term)) {
+                order[candidates++] = i;
+            }
+        }
+        Integer[] selected = Arrays.copyOf(order, candidates);
+        Arrays.sort(selected, (a, b) -> counts[a] != counts[b]
+                ? Integer.compare(counts[b], counts[a])
+                : terms[a].compareTo(terms[b]));
+
+        Map<String, Integer> top = new LinkedHashMap<>();
+        for (int i = 0; i < Math.min(limit, selected.length); i++) {
+            top.put(terms[selected[i]], counts[selected[i]]);
+        }
+        return top;
+    }
+
+    private static boolean isNumber(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            if (!Character.isDigit(term.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static final class StopWords {
+        private static final Set<String> WORDS = Set.of(
+                // English
+                "the", "and", "for", "are", "but", "not", "you", "all", "any", "can", "had", "her", "was",
+                "one", "our", "out", "has", "have", "his", "how", "its", "may", "who", "did", "get", "him",
+                "she", "too", "use", "that", "with", "this", "from", "they", "will", "would", "there",
+                "their", "what", "about", "which", "when", "were", "been", "than", "then", "them", "these",
+                "some", "into", "only", "also", "such", "more", "most", "other", "over", "very", "just",
+                "your", "each", "does", "because", "while", "where", "being", "should", "could", "those",
+                // Russian
+                "и", "в", "во", "не", "что", "он", "на", "я", "с", "со", "как", "а", "то", "все", "она",
+                "так", "его", "но", "да", "ты", "к", "у", "же", "вы", "за", "бы", "по", "только", "ее",
+                "мне", "было", "вот", "от", "меня", "еще", "нет", "о", "из", "ему", "теперь", "когда",
+                "даже", "ну", "вдруг", "ли", "если", "уже", "или", "ни", "быть", "был", "него", "до",
+                "вас", "нибудь", "опять", "уж", "вам", "ведь", "там", "потом", "себя", "ничего", "ей",
+                "может", "они", "тут", "где", "есть", "надо", "ней", "для", "мы", "тебя", "их", "чем",
+                "была", "сам", "чтоб", "без", "будто", "чего", "раз", "тоже", "себе", "под", "будет",
+                "тогда", "кто", "этот", "того", "потому", "этого", "какой", "совсем", "ним", "здесь",
+                "этом", "один", "почти", "мой", "тем", "чтобы", "нее", "сейчас", "были", "куда",
+                "зачем", "всех", "никогда", "можно", "при", "наконец", "два", "об", "другой", "хоть",
+                "после", "над", "больше", "тот", "через", "эти", "нас", "про", "всего", "них", "какая",
+                "много", "разве", "три", "эту", "моя", "впрочем", "хорошо", "свою", "этой", "перед",
+                "иногда", "лучше", "чуть", "том", "нельзя", "такой", "им", "более", "всегда", "конечно",
+                "всю", "между", "это", "также", "которые", "который", "которая", "которое"
+        );
+
+        private StopWords() {
+        }
+
+        static boolean contains(String term) {
+            return WORDS.contains(term);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.analysis;
+
+import lombok.Getter;
+
+@Getter
+public class TextStatistics {
+    private final long paragraphCount;
+    private final long wordCount;
+    private final long characterCount;
+    private final long sentenceCount;
+    private final long uniqueWordCount;
+    private final double averageWordLength;
+
+    public TextStatistics(long paragraphCount, long wordCount, long characterCount,
+                          long sentenceCount, long uniqueWordCount, double averageWordLength) {
+        this.paragraphCount = paragraphCount;
+        this.wordCount = wordCount;
+        this.characterCount = characterCount;
+        this.sentenceCount = sentenceCount;
+        this.uniqueWordCount = uniqueWordCount;
+        this.averageWordLength = averageWordLength;
+    }
+}
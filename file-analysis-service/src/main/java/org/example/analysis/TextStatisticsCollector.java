@@ -0,0 +1,220 @@
+package org.example.analysis;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Single-pass text statistics over a stream of {@link CharBuffer} chunks.
+ * <ul>
+ *     <li>a word is a whitespace-delimited token containing at least one letter or digit;</li>
+ *     <li>a paragraph is a group of non-blank lines separated by blank lines;</li>
+ *     <li>a sentence ends with {@code . ! ? …}, a paragraph break or the end of text;</li>
+ *     <li>characters are Unicode code points, excluding line terminators;</li>
+ *     <li>unique words and word length only consider letters and digits, case-insensitively.</li>
+ * </ul>
+ * Tokens are never materialized: unique words are tracked as 64-bit hashes in a primitive set,
+ * so the per-token cost is allocation-free. Not thread-safe.
+ */
+public class TextStatisticsCollector {
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final LongHashSet uniqueWords = new LongHashSet();
+
+    private long paragraphCount;
+    private long wordCount;
+    private long characterCount;
+    private long sentenceCount;
+    private long wordCharacterCount;
+
+    private boolean inToken;
+    private boolean tokenHasWordCharacters;
+    private long tokenHash = FNV_OFFSET;
+    private boolean lineHasContent;
+    private boolean inParagraph;
+    private boolean sentenceHasWords;
+    private char pendingHighSurrogate;
+
+    public static TextStatistics collect(Reader reader) throws IOException {
+        TextStatisticsCollector collector = new TextStatisticsCollector();
+        CharBuffer buffer = CharBuffer.allocate(READ_BUFFER_SIZE);
+        while (reader.read(buffer) != -1) {
+            buffer.flip();
+            collector.accept(buffer);
+            buffer.clear();
+        }
+        return collector.finish();
+    }
+
+    /**
+     * Consumes the remaining characters of the chunk. Chunks may split words, lines and sentences
+     * at any position.
+     */
+    public void accept(CharBuffer chunk) {
+        if (chunk.hasArray()) {
+            char[] array = chunk.array();
+            int start = chunk.arrayOffset() + chunk.position();
+            int end = chunk.arrayOffset() + chunk.limit();
+            for (int i = start; i < end; i++) {
+                accept(array[i]);
+            }
+        } else {
+            for (int i = chunk.position(); i < chunk.limit(); i++) {
+                accept(chunk.get(i));
+            }
+        }
+        chunk.position(chunk.limit());
+    }
+
+    /**
+     * Supplementary characters arrive as surrogate pairs, possibly split between chunks, and are
+     * counted once.
+     */
+    private void accept(char c) {
+        if (pendingHighSurrogate != 0) {
+            char high = pendingHighSurrogate;
+            pendingHighSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                acceptCodePoint(Character.toCodePoint(high, c));
+                return;
+            }
+            acceptCodePoint(high);
+        }
+        if (Character.isHighSurrogate(c)) {
+            pendingHighSurrogate = c;
+            return;
+        }
+        acceptCodePoint(c);
+    }
+
+    private void acceptCodePoint(int c) {
+        if (c == '\n') {
+            endToken();
+            endLine();
+            return;
+        }
+        if (c == '\r') {
+            endToken();
+            return;
+        }
+        characterCount++;
+        if (Character.isWhitespace(c)) {
+            endToken();
+            return;
+        }
+        if (!lineHasContent) {
+            lineHasContent = true;
+            if (!inParagraph) {
+                inParagraph = true;
+                paragraphCount++;
+            }
+        }
+        inToken = true;
+        if (Character.isLetterOrDigit(c)) {
+            tokenHasWordCharacters = true;
+            tokenHash = (tokenHash ^ Character.toLowerCase(c)) * FNV_PRIME;
+            wordCharacterCount++;
+            sentenceHasWords = true;
+        } else if (isSentenceTerminator(c) && sentenceHasWords) {
+            sentenceCount++;
+            sentenceHasWords = false;
+        }
+    }
+
+    private void endToken() {
+        if (!inToken) {
+            return;
+        }
+        if (tokenHasWordCharacters) {
+            wordCount++;
+            uniqueWords.add(tokenHash);
+        }
+        inToken = false;
+        tokenHasWordCharacters = false;
+        tokenHash = FNV_OFFSET;
+    }
+
+    private void endLine() {
+        if (!lineHasContent && inParagraph) {
+            inParagraph = false;
+            endSentence();
+        }
+        lineHasContent = false;
+    }
+
+    private void endSentence() {
+        if (sentenceHasWords) {
+            sentenceCount++;
+            sentenceHasWords = false;
+        }
+    }
+
+    private static boolean isSentenceTerminator(int c) {
+        return c == '.' || c == '!' || c == '?' || c == '…';
+    }
+
+    public TextStatistics finish() {
+        if (pendingHighSurrogate != 0) {
+            acceptCodePoint(pendingHighSurrogate);
+            pendingHighSurrogate = 0;
+        }
+        endToken();
+        endSentence();
+        double averageWordLength = wordCount == 0 ? 0 : (double) wordCharacterCount / wordCount;
+        return new TextStatistics(paragraphCount, wordCount, characterCount, sentenceCount,
+                uniqueWords.size(), averageWordLength);
+    }
+
+    /**
+     * Open-addressing set of 64-bit hashes with linear probing.
+     */
+    private static final class LongHashSet {
+        private static final long EMPTY = 0;
+
+        private long[] table = new long[1024];
+        private int size;
+        private boolean containsEmpty;
+
+        void add(long value) {
+            if (value == EMPTY) {
+                if (!containsEmpty) {
+                    containsEmpty = true;
+                    size++;
+                }
+                return;
+            }
+            if ((size + 1) * 2 > table.length) {
+                resize();
+            }
+            if (insert(table, value)) {
+                size++;
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        private static boolean insert(long[] table, long value) {
+            int mask = table.length - 1;
+            int index = (int) ((value * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+            while (table[index] != EMPTY) {
+                if (table[index] == value) {
+                    return false;
+                }
+                index = (index + 1) & mask;
+            }
+            table[index] = value;
+            return true;
+        }
+
+        private void resize() {
+            long[] resized = new long[table.length * 2];
+            Arrays.stream(table).filter(value -> value != EMPTY).forEach(value -> insert(resized, value));
+            table = resized;
+        }
+    }
+}
@@ -1,14 +1,55 @@
 package org.example.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
+@EnableCaching
+@EnableScheduling
 public class AppConfig {
     
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(RestTemplateBuilder restTemplateBuilder) {
+        return restTemplateBuilder.build();
     }
-} 
\ No newline at end of file
+
+    /**
+     * Bounded pool for analysis jobs; once the queue is full new jobs are rejected rather than
+     * piling up in memory.
+     */
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor analysisExecutor(@Value("${analysis.executor.threads:4}") int threads,
+                                                   @Value("${analysis.executor.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("analysis-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * With {@code spring.threads.virtual.enabled} each job gets its own virtual thread. Jobs mostly
+     * wait on file-storing-service and QuickChart, so their number is limited by the HTTP
+     * connections available per downstream rather than by the platform pool size.
+     */
+    @Bean(name = "analysisExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public BoundedTaskExecutor virtualAnalysisExecutor(
+            @Value("${analysis.executor.virtual-concurrency:${http.client.max-connections-per-route:50}}") int concurrency,
+            @Value("${analysis.executor.queue-capacity:100}") int queueCapacity) {
+        return new BoundedTaskExecutor(new VirtualThreadTaskExecutor("analysis-"), concurrency, queueCapacity);
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.config;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs at most {@code concurrency} tasks at a time on the delegate and admits up to
+ * {@code queueCapacity} more that wait for a slot; anything beyond is rejected. Gives a
+ * thread-per-task executor, such as one backed by virtual threads, the same back pressure as a
+ * bounded thread pool.
+ */
+public class BoundedTaskExecutor implements TaskExecutor {
+    private final TaskExecutor delegate;
+    private final Semaphore admitted;
+    private final Semaphore running;
+
+    public BoundedTaskExecutor(TaskExecutor delegate, int concurrency, int queueCapacity) {
+        this.delegate = delegate;
+        this.admitted = new Semaphore(concurrency + queueCapacity);
+        this.running = new Semaphore(concurrency);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!admitted.tryAcquire()) {
+            throw new TaskRejectedException("Executor is full, rejected " + task);
+        }
+        try {
+            delegate.execute(() -> {
+                try {
+                    running.acquire();
+                    try {
+                        task.run();
+                    } finally {
+                        running.release();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    admitted.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            admitted.release();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Runs asynchronous responses, such as the NDJSON stream of a batch analysis, on a bounded pool.
+ * Declaring {@code analysisExecutor} switches off Spring Boot's {@code applicationTaskExecutor},
+ * without which MVC would start an unmanaged thread per stream. Streams beyond
+ * {@code analysis.batch.max-streams} are rejected rather than queued, since a queued stream would
+ * hold its connection open without sending anything.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ThreadPoolTaskExecutor mvcAsyncExecutor;
+
+    @Autowired
+    public WebConfig(@Qualifier("mvcAsyncExecutor") ThreadPoolTaskExecutor mvcAsyncExecutor) {
+        this.mvcAsyncExecutor = mvcAsyncExecutor;
+    }
+
+    @Bean
+    public static ThreadPoolTaskExecutor mvcAsyncExecutor(@Value("${analysis.batch.max-streams:16}") int maxStreams) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxStreams);
+        executor.setMaxPoolSize(maxStreams);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("mvc-async-");
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcAsyncExecutor);
+    }
+}
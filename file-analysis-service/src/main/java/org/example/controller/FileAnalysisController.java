@@ -3,13 +3,25 @@ package org.example.controller;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.dto.AnalysisJobDTO;
 import org.example.dto.AnalysisResponseDTO;
+import org.example.dto.BatchAnalysisRequestDTO;
+import org.example.dto.BatchAnalysisResultDTO;
+import org.example.service.AnalysisJobService;
+import org.example.service.BatchAnalysisService;
 import org.example.service.FileAnalysisService;
+import org.example.wordcloud.WordCloudStore;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -20,69 +32,208 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/analysis")
 @Tag(name = "File Analysis", description = "API for retrieving files analysis")
 public class FileAnalysisController {
 
+    private static final String RETRY_AFTER_SECONDS = "5";
+    private static final Duration ANALYSIS_MAX_AGE = Duration.ofDays(1);
+    private static final Duration WORD_CLOUD_MAX_AGE = Duration.ofDays(365);
+
     private final FileAnalysisService fileAnalysisService;
+    private final AnalysisJobService analysisJobService;
+    private final BatchAnalysisService batchAnalysisService;
+    private final WordCloudStore wordCloudStore;
+    private final ObjectMapper objectMapper;
+
 
-    @Value("${wordcloud.storage.path:wordclouds}")
-    private String wordCloudStoragePath;
+    @Value("${analysis.batch.max-size:5000}")
+    private int batchMaxSize = 5000;
 
     @Autowired
-    public FileAnalysisController(FileAnalysisService fileAnalysisService) {
+    public FileAnalysisController(FileAnalysisService fileAnalysisService, AnalysisJobService analysisJobService,
+                                  BatchAnalysisService batchAnalysisService, WordCloudStore wordCloudStore,
+                                  ObjectMapper objectMapper) {
         this.fileAnalysisService = fileAnalysisService;
+        this.analysisJobService = analysisJobService;
+        this.batchAnalysisService = batchAnalysisService;
+        this.wordCloudStore = wordCloudStore;
+        this.objectMapper = objectMapper;
     }
 
-    @Operation(summary = "Get file analysis by ID", description = "Retrieves the analysis of a file by its ID")
+    @Operation(summary = "Get file analysis by ID",
+               description = "Returns the stored analysis of a file; if there is none yet, starts an analysis job and returns it")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "File analysed successfully",
                      content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
                              schema = @Schema(implementation = AnalysisResponseDTO.class))),
-        @ApiResponse(responseCode = "404", description = "File not found"),
-        @ApiResponse(responseCode = "500", description = "Internal server error during file retrieval")
+        @ApiResponse(responseCode = "202", description = "Analysis job started, poll the Location header for its status",
+                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                             schema = @Schema(implementation = AnalysisJobDTO.class))),
+        @ApiResponse(responseCode = "503", description = "Analysis queue is full, retry later")
     })
     @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<AnalysisResponseDTO> getAnalysis(
+    public ResponseEntity<?> getAnalysis(
             @Parameter(description = "ID of the file to retrieve", required = true)
+            @PathVariable Long id,
+            WebRequest webRequest) throws IOException {
+        Optional<AnalysisResponseDTO> analysis = fileAnalysisService.findAnalysis(id);
+        if (analysis.isPresent() && Boolean.TRUE.equals(analysis.get().getWordCloudPending())) {
+            // Saved while the renderer was unavailable: served as it is, but not cached, while a
+            // job renders the word cloud in the background
+            try {
+                analysisJobService.submit(id);
+            } catch (RejectedExecutionException e) {
+                // Queue full: a later request retries it
+            }
+            return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(analysis.get());
+        }
+        if (analysis.isPresent()) {
+            // A stored analysis never changes, so clients and the gateway may keep it. The ETag is
+            // a hash of the exact bytes sent, which are then written as they are
+            byte[] body = objectMapper.writeValueAsBytes(analysis.get());
+            String eTag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+            if (webRequest.checkNotModified(eTag)) {
+                return null;
+            }
+            return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.maxAge(ANALYSIS_MAX_AGE).cachePublic().immutable())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+        }
+        return submitAnalysis(id);
+    }
+
+    @Operation(summary = "Start file analysis", description = "Queues an analysis job for a file; a job already running for the file is returned instead of starting a new one")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Analysis job accepted",
+                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                             schema = @Schema(implementation = AnalysisJobDTO.class))),
+        @ApiResponse(responseCode = "503", description = "Analysis queue is full, retry later")
+    })
+    @PostMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> submitAnalysis(
+            @Parameter(description = "ID of the file to analyse", required = true)
             @PathVariable Long id) {
         try {
-            AnalysisResponseDTO response = fileAnalysisService.analyzeFile(id);
-            return ResponseEntity.ok().body(response);
-        } catch (RuntimeException e) {
-            System.out.println(e.getMessage());
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+            AnalysisJobDTO job = analysisJobService.submit(id);
+            return ResponseEntity.accepted()
+                .location(URI.create("/analysis/jobs/" + job.getJobId()))
+                .cacheControl(CacheControl.noStore())
+                .body(job);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .build();
+        }
+    }
+
+    @Operation(summary = "Analyse files in batch",
+               description = "Streams one JSON line per distinct file as soon as its analysis is available: stored analyses first, then the others as they complete")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Results are streamed as newline-delimited JSON",
+                     content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                             schema = @Schema(implementation = BatchAnalysisResultDTO.class))),
+        @ApiResponse(responseCode = "400", description = "No file IDs, a null ID or too many IDs"),
+        @ApiResponse(responseCode = "503", description = "Too many batch streams open, retry later")
+    })
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> analyzeBatch(@RequestBody BatchAnalysisRequestDTO request) {
+        if (request.getFileIds() == null || request.getFileIds().isEmpty()
+                || request.getFileIds().contains(null) || request.getFileIds().size() > batchMaxSize) {
+            return ResponseEntity.badRequest().build();
         }
+        StreamingResponseBody body = output -> {
+            try {
+                batchAnalysisService.analyze(request.getFileIds(), result -> {
+                    try {
+                        output.write(objectMapper.writeValueAsBytes(result));
+                        output.write('\n');
+                        output.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Batch analysis interrupted");
+            }
+        };
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .cacheControl(CacheControl.noStore())
+            .body(body);
+    }
+
+    @Operation(summary = "Get analysis job status", description = "Reports the stage of an analysis job and its result once completed")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Job status retrieved successfully",
+                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                             schema = @Schema(implementation = AnalysisJobDTO.class))),
+        @ApiResponse(responseCode = "404", description = "Job not found or expired")
+    })
+    @GetMapping(value = "/jobs/{jobId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<AnalysisJobDTO> getJob(
+            @Parameter(description = "ID of the analysis job", required = true)
+            @PathVariable String jobId) {
+        return analysisJobService.getJob(jobId)
+            .map(job -> ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(job))
+            .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
-    @Operation(summary = "Get word cloud image", description = "Retrieves the word cloud image for a file")
+    @Operation(summary = "Get word cloud image",
+               description = "Retrieves a word cloud image. Images are named by their content and never change, so they may be cached indefinitely; an evicted image is rendered again on request")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Word cloud image retrieved successfully",
                      content = @Content(mediaType = MediaType.IMAGE_PNG_VALUE)),
-        @ApiResponse(responseCode = "404", description = "Word cloud image not found"),
-        @ApiResponse(responseCode = "500", description = "Internal server error during image retrieval")
+        @ApiResponse(responseCode = "304", description = "The image the client has is current"),
+        @ApiResponse(responseCode = "404", description = "Word cloud image not found")
     })
     @GetMapping(value = "/wordcloud/{filename}", produces = MediaType.IMAGE_PNG_VALUE)
     public ResponseEntity<Resource> getWordCloudImage(
             @Parameter(description = "Name of the word cloud image file", required = true)
-            @PathVariable String filename) {
-        try {
-            Path filePath = Paths.get(wordCloudStoragePath, filename);
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (resource.exists() && resource.isReadable()) {
-                return ResponseEntity.ok()
-                    .contentType(MediaType.IMAGE_PNG)
-                    .body(resource);
-            } else {
-                return ResponseEntity.notFound().build();
-            }
-        } catch (IOException e) {
-            return ResponseEntity.internalServerError().build();
+            @PathVariable String filename,
+            WebRequest webRequest) {
+        Optional<Path> image = wordCloudStore.resolve(filename);
+        if (image.isEmpty()) {
+            // Evicted from the store, but an analysis may still link to it
+            image = fileAnalysisService.restoreWordCloud(filename);
+        }
+        if (image.isEmpty()) {
+            return ResponseEntity.notFound().build();
         }
+        String eTag = "\"" + filename + "\"";
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+            .eTag(eTag)
+            .cacheControl(CacheControl.maxAge(WORD_CLOUD_MAX_AGE).cachePublic().immutable())
+            .contentType(MediaType.IMAGE_PNG)
+            .body(new FileSystemResource(image.get()));
+    }
+
+    /**
+     * A batch stream that finds every async slot taken; see {@code WebConfig}.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Void> handleRejected() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+            .build();
     }
-} 
\ No newline at end of file
+}
@@ -4,16 +4,19 @@ import jakarta.persistence.*;
 import lombok.Data;
 
 @Entity
-@Table(name = "analysis_metadata", indexes = {
-    @Index(name = "idx_analysis_metadata_file_id", columnList = "file_id")
+@Table(name = "analysis_metadata", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_analysis_metadata_file_id", columnNames = "file_id")
+}, indexes = {
+    @Index(name = "idx_analysis_metadata_word_cloud_path", columnList = "word_cloud_path")
 })
 @Data
 public class AnalysisMetadata {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "analysis_metadata_seq")
+    @SequenceGenerator(name = "analysis_metadata_seq", sequenceName = "analysis_metadata_seq", allocationSize = 50)
     private Long id;
     
-    @Column(name = "file_id")
+    @Column(name = "file_id", nullable = false)
     private Long fileId;
     
     private Long plagiarismFileId;
@@ -21,7 +24,14 @@ public class AnalysisMetadata {
     private Long paragraphCount;
     private Long wordCount;
     private Long characterCount;
+    private Long sentenceCount;
+    private Long uniqueWordCount;
+    private Double averageWordLength;
 
     @Column(name = "word_cloud_path")
     private String wordCloudPath;
+
+    /** Rendering the word cloud failed transiently; it is retried on a later request */
+    @Column(name = "word_cloud_pending")
+    private Boolean wordCloudPending;
 }
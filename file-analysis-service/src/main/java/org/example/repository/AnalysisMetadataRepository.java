@@ -1,12 +1,34 @@
 package org.example.repository;
 
 import org.example.model.AnalysisMetadata;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+/**
+ * Analyses never change once saved, so lookups by file ID are served from the
+ * {@value #ANALYSES_CACHE} cache; missing analyses are not cached.
+ */
 @Repository
 public interface AnalysisMetadataRepository extends JpaRepository<AnalysisMetadata, Long> {
+    String ANALYSES_CACHE = "analyses";
+
+    @Cacheable(cacheNames = ANALYSES_CACHE, unless = "#result == null")
     Optional<AnalysisMetadata> findByFileId(Long fileId);
-}
\ No newline at end of file
+
+    List<AnalysisMetadata> findByFileIdIn(Collection<Long> fileIds);
+
+    /**
+     * @return an analysis that links to the word cloud image, to render it again from
+     */
+    Optional<AnalysisMetadata> findFirstByWordCloudPath(String wordCloudPath);
+
+    @Override
+    @CachePut(cacheNames = ANALYSES_CACHE, key = "#result.fileId")
+    <S extends AnalysisMetadata> S save(S entity);
+}
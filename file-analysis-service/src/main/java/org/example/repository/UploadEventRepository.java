@@ -0,0 +1,101 @@
+package org.example.repository;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Reads "file uploaded" events from the outbox table that file-storing-service writes in the
+ * shared database. Events are claimed with a lease: several consumers can poll concurrently
+ * without blocking each other, and an event whose consumer died is claimed again once its lease
+ * runs out. Times come from the database clock, so consumers do not need synchronised clocks.
+ */
+@Repository
+public class UploadEventRepository {
+    private static final String FILE_UPLOADED = "FILE_UPLOADED";
+
+    private static final String CLAIM_SQL = """
+            update outbox_event
+               set claimed_until = now() + ? * interval '1 millisecond', attempts = attempts + 1
+             where id in (select id from outbox_event
+                           where event_type = ?
+                             and available_at <= now()
+                             and (claimed_until is null or claimed_until < now())
+                             and attempts < ?
+                           order by id
+                           limit ?
+                             for update skip locked)
+            returning id, file_id, attempts""";
+
+    private static final String RELEASE_SQL = """
+            update outbox_event
+               set claimed_until = null, available_at = now() + ? * interval '1 millisecond'
+             where id = ?""";
+
+    private static final String DELETE_SQL = "delete from outbox_event where id = ?";
+
+    private static final String DELETE_EXHAUSTED_SQL = """
+            delete from outbox_event
+             where event_type = ?
+               and attempts >= ?
+               and (claimed_until is null or claimed_until < now())
+            returning id, file_id, attempts""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public UploadEventRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return up to {@code limit} available events, now leased to the caller for {@code lease}
+     */
+    public List<UploadEvent> claim(int limit, Duration lease, int maxAttempts) {
+        return jdbcTemplate.query(CLAIM_SQL,
+                (resultSet, row) -> new UploadEvent(resultSet.getLong("id"), resultSet.getLong("file_id"),
+                        resultSet.getInt("attempts")),
+                lease.toMillis(), FILE_UPLOADED, maxAttempts, limit);
+    }
+
+    /**
+     * Gives a claimed event back, to be claimed again after {@code delay}.
+     */
+    public void release(long eventId, Duration delay) {
+        jdbcTemplate.update(RELEASE_SQL, delay.toMillis(), eventId);
+    }
+
+    public void delete(List<Long> eventIds) {
+        jdbcTemplate.batchUpdate(DELETE_SQL, eventIds, eventIds.size(), (statement, id) -> statement.setLong(1, id));
+    }
+
+    /**
+     * Deletes events that used up their attempts and are not leased, e.g. because their consumer
+     * died during the last attempt.
+     *
+     * @return the deleted events
+     */
+    public List<UploadEvent> deleteExhausted(int maxAttempts) {
+        return jdbcTemplate.query(DELETE_EXHAUSTED_SQL,
+                (resultSet, row) -> new UploadEvent(resultSet.getLong("id"), resultSet.getLong("file_id"),
+                        resultSet.getInt("attempts")),
+                FILE_UPLOADED, maxAttempts);
+    }
+
+    @Getter
+    public static class UploadEvent {
+        private final long id;
+        private final long fileId;
+        private final int attempts;
+
+        public UploadEvent(long id, long fileId, int attempts) {
+            this.id = id;
+            this.fileId = fileId;
+            this.attempts = attempts;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.resilience;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.core.functions.Either;
+import io.github.resilience4j.retry.RetryConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Calls to one remote service, each attempt passing through its bulkhead and circuit breaker.
+ * Failed attempts the retry config deems transient are retried after a jittered exponential
+ * backoff while the {@link RetryBudget} allows it. A full bulkhead or an open circuit fails the
+ * call at once with {@code BulkheadFullException} or {@code CallNotPermittedException}.
+ */
+public class Downstream {
+    private final String name;
+    private final Bulkhead bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryConfig retryConfig;
+    private final RetryBudget retryBudget;
+    private final Counter retries;
+    private final Counter retriesOverBudget;
+
+    public Downstream(String name, Bulkhead bulkhead, CircuitBreaker circuitBreaker, RetryConfig retryConfig,
+                      RetryBudget retryBudget, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.bulkhead = bulkhead;
+        this.circuitBreaker = circuitBreaker;
+        this.retryConfig = retryConfig;
+        this.retryBudget = retryBudget;
+        this.retries = retryCounter(meterRegistry, name, "retried");
+        this.retriesOverBudget = retryCounter(meterRegistry, name, "over_budget");
+        Gauge.builder("downstream.retry.budget", retryBudget, RetryBudget::getTokens)
+            .description("Retries the budget currently allows")
+            .tag("downstream", name)
+            .register(meterRegistry);
+    }
+
+    private static Counter retryCounter(MeterRegistry meterRegistry, String name, String outcome) {
+        return Counter.builder("downstream.retries")
+            .description("Failed calls that were retried, or not because the retry budget was spent")
+            .tag("downstream", name)
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public <T> T call(Supplier<T> call) {
+        try {
+            return execute(call::get);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public <T> T callIO(IOCall<T> call) throws IOException {
+        try {
+            return execute(call::execute);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> T execute(Callable<T> call) throws Exception {
+        retryBudget.recordCall();
+        Callable<T> guarded = CircuitBreaker.decorateCallable(circuitBreaker, Bulkhead.decorateCallable(bulkhead, call));
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return guarded.call();
+            } catch (Exception e) {
+                if (attempt >= retryConfig.getMaxAttempts() || rejected(e) || !retryConfig.getExceptionPredicate().test(e)) {
+                    throw e;
+                }
+                if (!retryBudget.tryWithdraw()) {
+                    retriesOverBudget.increment();
+                    throw e;
+                }
+                retries.increment();
+                sleep(retryConfig.getIntervalBiFunction().apply(attempt, Either.left(e)), e);
+            }
+        }
+    }
+
+    private static boolean rejected(Exception e) {
+        return e instanceof CallNotPermittedException || e instanceof BulkheadFullException;
+    }
+
+    private static void sleep(long millis, Exception failure) throws Exception {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interrupted = new InterruptedIOException("Interrupted before retrying");
+            interrupted.addSuppressed(failure);
+            throw interrupted;
+        }
+    }
+
+    @FunctionalInterface
+    public interface IOCall<T> {
+        T execute() throws IOException;
+    }
+}
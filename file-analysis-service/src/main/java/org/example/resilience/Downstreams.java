@@ -0,0 +1,58 @@
+package org.example.resilience;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link Downstream} per remote service, configured by the {@code resilience4j.bulkhead} and
+ * {@code resilience4j.circuitbreaker} instances and the {@code resilience4j.retry} config of the
+ * same name, each with its own {@code downstream.retry-budget.*} budget.
+ */
+@Component
+public class Downstreams {
+    public static final String FILE_STORING_SERVICE = "file-storing-service";
+    public static final String QUICKCHART = "quickchart";
+
+    private final BulkheadRegistry bulkheadRegistry;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final RetryRegistry retryRegistry;
+    private final MeterRegistry meterRegistry;
+    private final double retryBudgetRatio;
+    private final double retryBudgetMaxTokens;
+    private final ConcurrentHashMap<String, Downstream> downstreams = new ConcurrentHashMap<>();
+
+    public Downstreams(BulkheadRegistry bulkheadRegistry, CircuitBreakerRegistry circuitBreakerRegistry,
+                       RetryRegistry retryRegistry, MeterRegistry meterRegistry,
+                       @Value("${downstream.retry-budget.ratio:0.1}") double retryBudgetRatio,
+                       @Value("${downstream.retry-budget.max-tokens:10}") double retryBudgetMaxTokens) {
+        this.bulkheadRegistry = bulkheadRegistry;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.retryRegistry = retryRegistry;
+        this.meterRegistry = meterRegistry;
+        this.retryBudgetRatio = retryBudgetRatio;
+        this.retryBudgetMaxTokens = retryBudgetMaxTokens;
+    }
+
+    /**
+     * Defaults of Resilience4j, for tests.
+     */
+    public static Downstreams ofDefaults(MeterRegistry meterRegistry) {
+        return new Downstreams(BulkheadRegistry.ofDefaults(), CircuitBreakerRegistry.ofDefaults(),
+            RetryRegistry.ofDefaults(), meterRegistry, 0.1, 10);
+    }
+
+    public Downstream get(String name) {
+        return downstreams.computeIfAbsent(name, key -> new Downstream(key,
+            bulkheadRegistry.bulkhead(key),
+            circuitBreakerRegistry.circuitBreaker(key),
+            retryRegistry.getConfiguration(key).orElseGet(retryRegistry::getDefaultConfig),
+            new RetryBudget(retryBudgetRatio, retryBudgetMaxTokens),
+            meterRegistry));
+    }
+}
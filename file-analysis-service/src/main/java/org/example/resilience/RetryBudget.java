@@ -0,0 +1,41 @@
+package org.example.resilience;
+
+/**
+ * Caps retries at a fraction of the calls made: every call deposits {@code ratio} of a token,
+ * every retry withdraws a whole one. While a downstream is healthy the budget fills up to
+ * {@code maxTokens}; once it is failing, retries stop after the reserve is spent instead of
+ * multiplying the load on it. Thread-safe.
+ */
+public class RetryBudget {
+    private final double ratio;
+    private final double maxTokens;
+    private double tokens;
+
+    public RetryBudget(double ratio, double maxTokens) {
+        if (ratio < 0 || maxTokens < 0) {
+            throw new IllegalArgumentException("Retry budget ratio and size must not be negative");
+        }
+        this.ratio = ratio;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+    }
+
+    public synchronized void recordCall() {
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    /**
+     * @return whether a retry may be made, in which case its token is withdrawn
+     */
+    public synchronized boolean tryWithdraw() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+
+    public synchronized double getTokens() {
+        return tokens;
+    }
+}
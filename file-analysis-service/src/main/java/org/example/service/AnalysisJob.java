@@ -0,0 +1,69 @@
+package org.example.service;
+
+import org.example.dto.AnalysisJobDTO;
+import org.example.dto.AnalysisJobStatus;
+import org.example.dto.AnalysisResponseDTO;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Mutable state of one analysis job. Written by the worker thread, read by status requests.
+ */
+class AnalysisJob {
+    private final String id = UUID.randomUUID().toString();
+    private final Long fileId;
+    private final Instant submittedAt = Instant.now();
+    private volatile Instant updatedAt = submittedAt;
+    private volatile AnalysisJobStatus status = AnalysisJobStatus.QUEUED;
+    private volatile AnalysisResponseDTO result;
+    private volatile String error;
+
+    AnalysisJob(Long fileId) {
+        this.fileId = fileId;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    Long getFileId() {
+        return fileId;
+    }
+
+    AnalysisJobStatus getStatus() {
+        return status;
+    }
+
+    Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    void advance(AnalysisJobStatus status) {
+        this.status = status;
+        this.updatedAt = Instant.now();
+    }
+
+    void complete(AnalysisResponseDTO result) {
+        this.result = result;
+        advance(AnalysisJobStatus.COMPLETED);
+    }
+
+    void fail(String error) {
+        this.error = error;
+        advance(AnalysisJobStatus.FAILED);
+    }
+
+    AnalysisJobDTO toDTO() {
+        AnalysisJobDTO dto = new AnalysisJobDTO();
+        dto.setJobId(id);
+        dto.setFileId(fileId);
+        // Read the status first: result and error are written before it
+        dto.setStatus(status);
+        dto.setResult(result);
+        dto.setError(error);
+        dto.setSubmittedAt(submittedAt);
+        dto.setUpdatedAt(updatedAt);
+        return dto;
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.service;
+
+import org.example.dto.AnalysisJobDTO;
+import org.example.dto.AnalysisResponseDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs file analyses in the background. Each file has at most one job in flight: submitting a
+ * file that is already being analysed returns the running job, and a file whose analysis is
+ * already stored shares one completed job. Finished jobs stay queryable for
+ * {@code analysis.jobs.retention} and are purged on a schedule.
+ */
+@Service
+public class AnalysisJobService {
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisJobService.class);
+
+    private final FileAnalysisService fileAnalysisService;
+    private final TaskExecutor analysisExecutor;
+    private final Duration retention;
+    private final ConcurrentHashMap<String, AnalysisJob> jobs = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, AnalysisJob> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, AnalysisJob> stored = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AnalysisJobService(FileAnalysisService fileAnalysisService,
+                              @Qualifier("analysisExecutor") TaskExecutor analysisExecutor,
+                              @Value("${analysis.jobs.retention:PT15M}") Duration retention) {
+        this.fileAnalysisService = fileAnalysisService;
+        this.analysisExecutor = analysisExecutor;
+        this.retention = retention;
+    }
+
+    /**
+     * @throws RejectedExecutionException if the executor queue is full
+     */
+    public AnalysisJobDTO submit(Long fileId) {
+        Optional<AnalysisResponseDTO> existing = fileAnalysisService.findAnalysis(fileId);
+        // An analysis still missing its word cloud is not final: a job completes it
+        if (existing.isPresent() && !Boolean.TRUE.equals(existing.get().getWordCloudPending())) {
+            return stored.computeIfAbsent(fileId, id -> {
+                AnalysisJob job = new AnalysisJob(id);
+                job.complete(existing.get());
+                jobs.put(job.getId(), job);
+                return job;
+            }).toDTO();
+        }
+
+        AnalysisJob created = new AnalysisJob(fileId);
+        AnalysisJob job = inFlight.computeIfAbsent(fileId, id -> {
+            jobs.put(created.getId(), created);
+            return created;
+        });
+        if (job != created) {
+            logger.info("Joining in-flight analysis job {} for file ID: {}", job.getId(), fileId);
+            return job.toDTO();
+        }
+
+        try {
+            analysisExecutor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(fileId, job);
+            jobs.remove(job.getId());
+            throw e;
+        }
+        logger.info("Queued analysis job {} for file ID: {}", job.getId(), fileId);
+        return job.toDTO();
+    }
+
+    public Optional<AnalysisJobDTO> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(AnalysisJob::toDTO);
+    }
+
+    private void run(AnalysisJob job) {
+        try {
+            job.complete(fileAnalysisService.analyzeFile(job.getFileId(), job::advance));
+            logger.info("Analysis job {} completed", job.getId());
+        } catch (RuntimeException e) {
+            logger.error("Analysis job {} failed", job.getId(), e);
+            job.fail(e.getMessage());
+        } finally {
+            inFlight.remove(job.getFileId(), job);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${analysis.jobs.purge-interval:PT1M}")
+    public void purgeExpiredJobs() {
+        Instant expiry = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> {
+            if (!job.getStatus().isFinished() || !job.getUpdatedAt().isBefore(expiry)) {
+                return false;
+            }
+            stored.remove(job.getFileId(), job);
+            return true;
+        });
+    }
+
+    int jobCount() {
+        return jobs.size();
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.service;
+
+import org.example.dto.AnalysisResponseDTO;
+import org.example.dto.BatchAnalysisResultDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Analyses many files in one go. Stored analyses are looked up with a single query and reported
+ * first; the remaining files are analysed on the analysis executor, at most
+ * {@code analysis.batch.concurrency} at a time per batch, and reported as they complete.
+ */
+@Service
+public class BatchAnalysisService {
+    private static final Logger logger = LoggerFactory.getLogger(BatchAnalysisService.class);
+
+    private final FileAnalysisService fileAnalysisService;
+    private final TaskExecutor analysisExecutor;
+    private final int concurrency;
+
+    @Autowired
+    public BatchAnalysisService(FileAnalysisService fileAnalysisService,
+                                @Qualifier("analysisExecutor") TaskExecutor analysisExecutor,
+                                @Value("${analysis.batch.concurrency:4}") int concurrency) {
+        this.fileAnalysisService = fileAnalysisService;
+        this.analysisExecutor = analysisExecutor;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Blocks until every file is reported. {@code results} is only called from the calling thread,
+     * once per distinct file ID, in completion order.
+     */
+    public void analyze(Collection<Long> fileIds, Consumer<BatchAnalysisResultDTO> results) throws InterruptedException {
+        LinkedHashSet<Long> distinctIds = new LinkedHashSet<>(fileIds);
+        Map<Long, AnalysisResponseDTO> stored = fileAnalysisService.findAnalyses(distinctIds);
+        Deque<Long> pending = new ArrayDeque<>();
+        for (Long fileId : distinctIds) {
+            AnalysisResponseDTO analysis = stored.get(fileId);
+            if (analysis != null) {
+                results.accept(success(fileId, analysis));
+            } else {
+                pending.add(fileId);
+            }
+        }
+        logger.info("Batch of {} files: {} already analysed, {} to analyse", distinctIds.size(), stored.size(), pending.size());
+
+        BlockingQueue<BatchAnalysisResultDTO> completed = new LinkedBlockingQueue<>();
+        int running = 0;
+        while (!pending.isEmpty() || running > 0) {
+            while (!pending.isEmpty() && running < concurrency) {
+                Long fileId = pending.peek();
+                try {
+                    analysisExecutor.execute(() -> completed.add(analyzeOne(fileId)));
+                } catch (RejectedExecutionException e) {
+                    if (running > 0) {
+                        // The executor is busy with other work; retry once one of ours finishes
+                        break;
+                    }
+                    pending.poll();
+                    results.accept(failure(fileId, "Analysis queue is full"));
+                    continue;
+                }
+                pending.poll();
+                running++;
+            }
+            if (running > 0) {
+                results.accept(completed.take());
+                running--;
+            }
+        }
+    }
+
+    private BatchAnalysisResultDTO analyzeOne(Long fileId) {
+        try {
+            return success(fileId, fileAnalysisService.analyzeFile(fileId));
+        } catch (RuntimeException e) {
+            logger.warn("Batch analysis of file ID: {} failed: {}", fileId, e.getMessage());
+            return failure(fileId, e.getMessage());
+        }
+    }
+
+    private static BatchAnalysisResultDTO success(Long fileId, AnalysisResponseDTO analysis) {
+        BatchAnalysisResultDTO result = new BatchAnalysisResultDTO();
+        result.setFileId(fileId);
+        result.setAnalysis(analysis);
+        return result;
+    }
+
+    private static BatchAnalysisResultDTO failure(Long fileId, String error) {
+        BatchAnalysisResultDTO result = new BatchAnalysisResultDTO();
+        result.setFileId(fileId);
+        result.setError(error);
+        return result;
+    }
+}
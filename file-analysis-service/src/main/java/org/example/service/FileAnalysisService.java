@@ -1,126 +1,308 @@
 package org.example.service;
 
+import org.example.analysis.CharsetDetector;
+import org.example.analysis.MappedFileReader;
+import org.example.analysis.TermFrequencyCollector;
+import org.example.analysis.TextStatistics;
+import org.example.analysis.TextStatisticsCollector;
+import org.example.dto.AnalysisJobStatus;
 import org.example.dto.AnalysisResponseDTO;
+import org.example.dto.FileMetadataDTO;
 import org.example.dto.FilePlagiarismResponseDTO;
 import org.example.model.AnalysisMetadata;
 import org.example.repository.AnalysisMetadataRepository;
+import org.example.resilience.Downstream;
+import org.example.resilience.Downstreams;
+import org.example.wordcloud.WordCloudRenderer;
+import org.example.wordcloud.WordCloudStore;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.observation.ClientHttpObservationDocumentation;
+import org.springframework.http.client.observation.ClientRequestObservationContext;
+import org.springframework.http.client.observation.DefaultClientRequestObservationConvention;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.InputStream;
-import java.net.URL;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.CharBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Service
 public class FileAnalysisService {
     private static final Logger logger = LoggerFactory.getLogger(FileAnalysisService.class);
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final int MIN_WORD_CLOUD_TERM_LENGTH = 3;
     
     private final AnalysisMetadataRepository analysisMetadataRepository;
     private final RestTemplate restTemplate;
-    private final String wordCloudStoragePath;
+    private final WordCloudRenderer wordCloudRenderer;
+    private final Downstream fileStorage;
+    private final WordCloudStore wordCloudStore;
+    private final ConcurrentHashMap<Long, CompletableFuture<AnalysisResponseDTO>> inFlightAnalyses = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Optional<Path>>> inFlightWordClouds = new ConcurrentHashMap<>();
+    private final Timer fetchTimer;
+    private final Timer statisticsTimer;
+    private final Timer wordCloudTimer;
+    private final Timer plagiarismTimer;
+    private final Timer saveTimer;
+    private final Counter storedResults;
+    private final Counter computedResults;
+    private final Counter mappedReads;
+    private final Counter streamedReads;
     
     @Value("${file-storage.service.url}")
     private String fileStorageServiceUrl;
 
-    @Value("${quickchart.api.url:https://quickchart.io/wordcloud}")
-    private String quickChartApiUrl;
+    /** The uploads volume of the storing service if it is mounted here, read directly instead of over HTTP */
+    @Value("${analysis.uploads.location:}")
+    private String uploadsLocation = "";
+
+    @Value("${wordcloud.width:1000}")
+    private int wordCloudWidth = 1000;
+
+    @Value("${wordcloud.height:1000}")
+    private int wordCloudHeight = 1000;
+
+    @Value("${wordcloud.max-words:150}")
+    private int wordCloudMaxWords = 150;
 
     @Autowired
     public FileAnalysisService(AnalysisMetadataRepository analysisMetadataRepository,
                              RestTemplate restTemplate,
-                             @Value("${wordcloud.storage.path:wordclouds}") String wordCloudStoragePath) {
+                             WordCloudRenderer wordCloudRenderer,
+                             WordCloudStore wordCloudStore,
+                             MeterRegistry meterRegistry,
+                             Downstreams downstreams) {
         this.analysisMetadataRepository = analysisMetadataRepository;
         this.restTemplate = restTemplate;
-        this.wordCloudStoragePath = wordCloudStoragePath != null ? wordCloudStoragePath : "wordclouds";
-        createWordCloudDirectory();
+        this.wordCloudRenderer = wordCloudRenderer;
+        this.fileStorage = downstreams.get(Downstreams.FILE_STORING_SERVICE);
+        this.wordCloudStore = wordCloudStore;
+        this.fetchTimer = stageTimer(meterRegistry, "fetch");
+        this.statisticsTimer = stageTimer(meterRegistry, "statistics");
+        this.wordCloudTimer = stageTimer(meterRegistry, "word_cloud");
+        this.plagiarismTimer = stageTimer(meterRegistry, "plagiarism_check");
+        this.saveTimer = stageTimer(meterRegistry, "save");
+        this.storedResults = resultCounter(meterRegistry, "stored");
+        this.computedResults = resultCounter(meterRegistry, "computed");
+        this.mappedReads = readCounter(meterRegistry, "mapped");
+        this.streamedReads = readCounter(meterRegistry, "http");
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("analysis.stage")
+                .description("Time spent in one stage of a file analysis")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static Counter resultCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("analysis.results")
+                .description("Analysis results returned, by whether they were already stored or computed now")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    private static Counter readCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("analysis.reads")
+                .description("File contents read for analysis, by whether they were mapped from the shared volume or streamed over HTTP")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the stored analysis of the file; one whose word cloud is still pending is not final
+     * and is completed by the next {@link #analyzeFile} call
+     */
+    public Optional<AnalysisResponseDTO> findAnalysis(Long fileId) {
+        return analysisMetadataRepository.findByFileId(fileId).map(this::convertToResponseDTO);
+    }
+
+    /**
+     * Looks up the stored analyses of several files with a single query.
+     *
+     * @return analyses by file ID; files that have not been analysed yet are absent
+     */
+    public Map<Long, AnalysisResponseDTO> findAnalyses(Collection<Long> fileIds) {
+        Map<Long, AnalysisResponseDTO> analyses = new HashMap<>();
+        if (fileIds.isEmpty()) {
+            return analyses;
+        }
+        for (AnalysisMetadata metadata : analysisMetadataRepository.findByFileIdIn(fileIds)) {
+            analyses.put(metadata.getFileId(), convertToResponseDTO(metadata));
+        }
+        return analyses;
+    }
+
+    public AnalysisResponseDTO analyzeFile(Long fileId) {
+        return analyzeFile(fileId, status -> { });
+    }
+
+    /**
+     * Concurrent calls for the same file share a single computation: the first caller analyses the
+     * file, the others wait for its result.
+     *
+     * @param progress notified when the analysis moves on to its next stage
+     */
+    public AnalysisResponseDTO analyzeFile(Long fileId, Consumer<AnalysisJobStatus> progress) {
+        CompletableFuture<AnalysisResponseDTO> created = new CompletableFuture<>();
+        CompletableFuture<AnalysisResponseDTO> running = inFlightAnalyses.putIfAbsent(fileId, created);
+        if (running != null) {
+            logger.info("Waiting for in-flight analysis of file ID: {}", fileId);
+            return awaitAnalysis(running);
+        }
+
+        try {
+            AnalysisResponseDTO result = findOrComputeAnalysis(fileId, progress);
+            created.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            // Only after the result is saved, so a later caller finds it in the repository
+            inFlightAnalyses.remove(fileId, created);
+        }
     }
 
-    private void createWordCloudDirectory() {
+    private AnalysisResponseDTO awaitAnalysis(CompletableFuture<AnalysisResponseDTO> running) {
         try {
-            Path path = Paths.get(wordCloudStoragePath);
-            if (!Files.exists(path)) {
-                Files.createDirectories(path);
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
             }
-            logger.info("Word cloud directory created/verified at: {}", path.toAbsolutePath());
-        } catch (IOException e) {
-            logger.error("Failed to create word cloud directory", e);
-            throw new RuntimeException("Failed to create word cloud directory", e);
+            throw e;
         }
     }
 
-    public AnalysisResponseDTO analyzeFile(Long fileId) {
+    private AnalysisResponseDTO findOrComputeAnalysis(Long fileId, Consumer<AnalysisJobStatus> progress) {
         Optional<AnalysisMetadata> existingAnalysis = analysisMetadataRepository.findByFileId(fileId);
         if (existingAnalysis.isPresent()) {
             logger.info("Found existing analysis for file ID: {}", fileId);
+            storedResults.increment();
+            if (Boolean.TRUE.equals(existingAnalysis.get().getWordCloudPending())) {
+                progress.accept(AnalysisJobStatus.RENDERING_WORD_CLOUD);
+                return convertToResponseDTO(retryWordCloud(existingAnalysis.get()));
+            }
             return convertToResponseDTO(existingAnalysis.get());
         }
 
         try {
             String fileUrl = fileStorageServiceUrl + "/files/" + fileId;
             logger.info("Fetching file content from: {}", fileUrl);
-            BufferedReader reader = new BufferedReader(new InputStreamReader(getFileInputStreamFromUrl(fileUrl)));
-            
             AnalysisMetadata metadata = new AnalysisMetadata();
             metadata.setFileId(fileId);
-            
-            String line;
-            StringBuilder content = new StringBuilder();
-            int paragraphCount = 0;
-            int wordCount = 0;
-            int characterCount = 0;
-            
-            while ((line = reader.readLine()) != null) {
-                content.append(line).append("\n");
-                if (line.trim().isEmpty()) {
-                    paragraphCount++;
+
+            progress.accept(AnalysisJobStatus.ANALYZING_TEXT);
+            TextStatisticsCollector collector = new TextStatisticsCollector();
+            TermFrequencyCollector terms = new TermFrequencyCollector();
+            // Reading and counting interleave chunk by chunk, so their times are summed separately
+            long fetchNanos = 0;
+            long statisticsNanos = 0;
+            long started = System.nanoTime();
+            try (Reader reader = openFileContent(fileId, fileUrl)) {
+                CharBuffer buffer = CharBuffer.allocate(READ_BUFFER_SIZE);
+                while (true) {
+                    int read = reader.read(buffer);
+                    long fetched = System.nanoTime();
+                    fetchNanos += fetched - started;
+                    if (read == -1) {
+                        break;
+                    }
+                    buffer.flip();
+                    collector.accept(buffer);
+                    buffer.rewind();
+                    terms.accept(buffer);
+                    buffer.clear();
+                    started = System.nanoTime();
+                    statisticsNanos += started - fetched;
                 }
-                wordCount += line.split("\\s+").length;
-                characterCount += line.length();
             }
+            TextStatistics statistics = collector.finish();
+            fetchTimer.record(fetchNanos, TimeUnit.NANOSECONDS);
+            statisticsTimer.record(statisticsNanos, TimeUnit.NANOSECONDS);
+
+            metadata.setParagraphCount(statistics.getParagraphCount());
+            metadata.setWordCount(statistics.getWordCount());
+            metadata.setCharacterCount(statistics.getCharacterCount());
+            metadata.setSentenceCount(statistics.getSentenceCount());
+            metadata.setUniqueWordCount(statistics.getUniqueWordCount());
+            metadata.setAverageWordLength(statistics.getAverageWordLength());
             
-            if (!content.toString().trim().isEmpty()) {
-                paragraphCount++;
-            }
-            
-            metadata.setParagraphCount((long) paragraphCount);
-            metadata.setWordCount((long) wordCount);
-            metadata.setCharacterCount((long) characterCount);
-            
+            progress.accept(AnalysisJobStatus.RENDERING_WORD_CLOUD);
+            Timer.Sample wordCloudSample = Timer.start();
             try {
-                String wordCloudPath = generateWordCloud(content.toString());
+                String wordCloudPath = generateWordCloud(terms.topTerms(wordCloudMaxWords, MIN_WORD_CLOUD_TERM_LENGTH));
                 metadata.setWordCloudPath(wordCloudPath);
                 logger.info("Word cloud generated successfully for file ID: {}", fileId);
+            } catch (CallNotPermittedException | BulkheadFullException e) {
+                // The renderer is failing or saturated: the analysis is saved without a word cloud
+                // for now, marked so that it is neither cached nor taken as final
+                logger.warn("Skipped word cloud for file ID: {}: {}", fileId, e.getMessage());
+                metadata.setWordCloudPath(null);
+                metadata.setWordCloudPending(true);
             } catch (Exception e) {
                 logger.error("Failed to generate word cloud for file ID: {}", fileId, e);
                 metadata.setWordCloudPath(null);
+                metadata.setWordCloudPending(true);
+            } finally {
+                wordCloudSample.stop(wordCloudTimer);
             }
             
-            FilePlagiarismResponseDTO plagiarismResponse = restTemplate.getForObject(
-                fileStorageServiceUrl + "/files/plagiarism/" + fileId,
-                FilePlagiarismResponseDTO.class
-            );
+            progress.accept(AnalysisJobStatus.CHECKING_PLAGIARISM);
+            Timer.Sample plagiarismSample = Timer.start();
+            FilePlagiarismResponseDTO plagiarismResponse;
+            try {
+                // A URI template, so client metrics get one series for all files
+                plagiarismResponse = fileStorage.call(() -> restTemplate.getForObject(
+                    fileStorageServiceUrl + "/files/plagiarism/{id}",
+                    FilePlagiarismResponseDTO.class,
+                    fileId
+                ));
+            } finally {
+                plagiarismSample.stop(plagiarismTimer);
+            }
             
             if (plagiarismResponse != null && plagiarismResponse.getPlagiarismFileId() != null) {
                 metadata.setPlagiarismFileId(plagiarismResponse.getPlagiarismFileId());
                 logger.info("Plagiarism check completed for file ID: {}", fileId);
             }
             
-            AnalysisMetadata savedMetadata = analysisMetadataRepository.save(metadata);
-            logger.info("Analysis metadata saved for file ID: {}", fileId);
-            return convertToResponseDTO(savedMetadata);
+            Timer.Sample saveSample = Timer.start();
+            try {
+                AnalysisMetadata savedMetadata = saveAnalysis(metadata);
+                computedResults.increment();
+                return convertToResponseDTO(savedMetadata);
+            } finally {
+                saveSample.stop(saveTimer);
+            }
             
         } catch (IOException e) {
             logger.error("Error analyzing file ID: {}", fileId, e);
@@ -128,40 +310,130 @@ public class FileAnalysisService {
         }
     }
 
-    private String generateWordCloud(String text) throws IOException {
-        if (text == null || text.trim().isEmpty()) {
-            logger.warn("Empty text provided for word cloud generation");
-            return null;
+    /**
+     * Another instance may have analysed the same file concurrently; the unique constraint on
+     * {@code file_id} keeps the first result and this one is discarded.
+     */
+    private AnalysisMetadata saveAnalysis(AnalysisMetadata metadata) {
+        try {
+            AnalysisMetadata savedMetadata = analysisMetadataRepository.save(metadata);
+            logger.info("Analysis metadata saved for file ID: {}", metadata.getFileId());
+            return savedMetadata;
+        } catch (DataIntegrityViolationException e) {
+            Optional<AnalysisMetadata> existingAnalysis = analysisMetadataRepository.findByFileId(metadata.getFileId());
+            if (existingAnalysis.isEmpty()) {
+                throw e;
+            }
+            // The word cloud is kept: it is stored by content, so the stored analysis may share it
+            logger.info("Analysis for file ID: {} was saved concurrently, using the stored one", metadata.getFileId());
+            return existingAnalysis.get();
+        }
+    }
+
+    /**
+     * Renders the word cloud of an analysis saved while the renderer was unavailable. If it fails
+     * again, the analysis stays pending and is returned as it is.
+     */
+    private AnalysisMetadata retryWordCloud(AnalysisMetadata metadata) {
+        Timer.Sample wordCloudSample = Timer.start();
+        try {
+            String wordCloudPath = generateWordCloud(readTopTerms(metadata.getFileId()));
+            metadata.setWordCloudPath(wordCloudPath);
+            metadata.setWordCloudPending(false);
+            logger.info("Word cloud generated on retry for file ID: {}", metadata.getFileId());
+            return analysisMetadataRepository.save(metadata);
+        } catch (Exception e) {
+            logger.warn("Word cloud of file ID: {} is still pending: {}", metadata.getFileId(), e.getMessage());
+            return metadata;
+        } finally {
+            wordCloudSample.stop(wordCloudTimer);
         }
+    }
 
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("format", "png");
-        requestBody.put("width", 1000);
-        requestBody.put("height", 1000);
-        requestBody.put("fontScale", 15);
-        requestBody.put("scale", "linear");
-        requestBody.put("text", text);
+    private Map<String, Integer> readTopTerms(Long fileId) throws IOException {
+        TermFrequencyCollector terms = new TermFrequencyCollector();
+        try (Reader reader = openFileContent(fileId, fileStorageServiceUrl + "/files/" + fileId)) {
+            CharBuffer buffer = CharBuffer.allocate(READ_BUFFER_SIZE);
+            while (reader.read(buffer) != -1) {
+                buffer.flip();
+                terms.accept(buffer);
+                buffer.clear();
+            }
+        }
+        return terms.topTerms(wordCloudMaxWords, MIN_WORD_CLOUD_TERM_LENGTH);
+    }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
+    /**
+     * Renders a word cloud image that was evicted from the store again, from the file of an
+     * analysis that links to it. Concurrent requests for the same image share one rendering.
+     *
+     * @return the image, unless no analysis links to it or it cannot be rendered right now
+     */
+    public Optional<Path> restoreWordCloud(String fileName) {
+        CompletableFuture<Optional<Path>> created = new CompletableFuture<>();
+        CompletableFuture<Optional<Path>> running = inFlightWordClouds.putIfAbsent(fileName, created);
+        if (running != null) {
+            return running.join();
+        }
+        try {
+            Optional<Path> restored = renderWordCloudAgain(fileName);
+            created.complete(restored);
+            return restored;
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightWordClouds.remove(fileName, created);
+        }
+    }
 
-        HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
+    private Optional<Path> renderWordCloudAgain(String fileName) {
+        Optional<AnalysisMetadata> analysis = analysisMetadataRepository.findFirstByWordCloudPath(fileName);
+        if (analysis.isEmpty()) {
+            return Optional.empty();
+        }
+        Long fileId = analysis.get().getFileId();
+        Timer.Sample wordCloudSample = Timer.start();
+        try {
+            Map<String, Integer> frequencies = readTopTerms(fileId);
+            String key = WordCloudStore.key(frequencies, wordCloudWidth, wordCloudHeight);
+            if (!WordCloudStore.fileName(key).equals(fileName)) {
+                // Rendered with other wordcloud.* settings, so it cannot be reproduced under this name
+                logger.warn("Word cloud {} of file ID: {} no longer matches its content, not restoring it", fileName, fileId);
+                return Optional.empty();
+            }
+            String restored = generateWordCloud(frequencies);
+            logger.info("Restored evicted word cloud {} from file ID: {}", fileName, fileId);
+            return restored == null ? Optional.empty() : wordCloudStore.resolve(restored);
+        } catch (IOException | RestClientException | CallNotPermittedException | BulkheadFullException e) {
+            logger.warn("Could not restore word cloud {} from file ID: {}: {}", fileName, fileId, e.getMessage());
+            return Optional.empty();
+        } finally {
+            wordCloudSample.stop(wordCloudTimer);
+        }
+    }
 
-        logger.info("Sending request to QuickChart API");
-        byte[] imageBytes = restTemplate.postForObject(quickChartApiUrl, request, byte[].class);
+    private String generateWordCloud(Map<String, Integer> frequencies) throws IOException {
+        if (frequencies.isEmpty()) {
+            logger.warn("No words available for word cloud generation");
+            return null;
+        }
+
+        String key = WordCloudStore.key(frequencies, wordCloudWidth, wordCloudHeight);
+        Optional<String> stored = wordCloudStore.find(key);
+        if (stored.isPresent()) {
+            logger.info("Reusing word cloud image {} of identical content", stored.get());
+            return stored.get();
+        }
+
+        byte[] imageBytes = wordCloudRenderer.render(frequencies, wordCloudWidth, wordCloudHeight);
         
         if (imageBytes == null || imageBytes.length == 0) {
-            logger.error("Received empty response from QuickChart API");
+            logger.error("Word cloud renderer returned an empty image");
             return null;
         }
         
-        String fileName = System.currentTimeMillis() + ".png";
-        Path filePath = Paths.get(wordCloudStoragePath, fileName);
-        
-        Files.write(filePath, imageBytes);
-        logger.info("Word cloud image saved to: {}", filePath);
-        
-        return fileName;
+        return wordCloudStore.store(key, imageBytes);
     }
 
     private AnalysisResponseDTO convertToResponseDTO(AnalysisMetadata metadata) {
@@ -169,15 +441,107 @@ public class FileAnalysisService {
         response.setParagraphCount(metadata.getParagraphCount());
         response.setWordCount(metadata.getWordCount());
         response.setCharacterCount(metadata.getCharacterCount());
+        response.setSentenceCount(metadata.getSentenceCount());
+        response.setUniqueWordCount(metadata.getUniqueWordCount());
+        response.setAverageWordLength(metadata.getAverageWordLength());
         response.setPlagiarismFileId(metadata.getPlagiarismFileId());
         response.setWordCloudPath(metadata.getWordCloudPath());
+        response.setWordCloudPending(Boolean.TRUE.equals(metadata.getWordCloudPending()));
         return response;
     }
 
+    /**
+     * Maps the file from the shared uploads volume when it is there, otherwise streams it from the
+     * storing service. Either way the content is decoded in its detected charset.
+     */
+    private Reader openFileContent(Long fileId, String fileUrl) throws IOException {
+        Path localCopy = findLocalCopy(fileId);
+        if (localCopy != null) {
+            try {
+                MappedFileReader reader = MappedFileReader.open(localCopy);
+                mappedReads.increment();
+                return reader;
+            } catch (IOException e) {
+                logger.warn("Could not map {} for file ID: {}, streaming it instead", localCopy, fileId, e);
+            }
+        }
+        streamedReads.increment();
+        return CharsetDetector.newReader(fileStorage.callIO(() -> getFileInputStreamFromUrl(fileUrl)));
+    }
+
+    /**
+     * @return the content of the file on the uploads volume, or {@code null} if the volume is not
+     * mounted here or the stored location does not match a file of the stored size on it
+     */
+    private Path findLocalCopy(Long fileId) {
+        if (uploadsLocation.isEmpty()) {
+            return null;
+        }
+        FileMetadataDTO fileMetadata;
+        try {
+            fileMetadata = fileStorage.call(() -> restTemplate.getForObject(
+                fileStorageServiceUrl + "/files/{id}/metadata",
+                FileMetadataDTO.class,
+                fileId
+            ));
+        } catch (RestClientException | CallNotPermittedException | BulkheadFullException e) {
+            logger.warn("Could not fetch metadata of file ID: {}, streaming it instead: {}", fileId, e.getMessage());
+            return null;
+        }
+        if (fileMetadata == null || fileMetadata.getLocation() == null || fileMetadata.getSize() == null) {
+            return null;
+        }
+        Path root = Paths.get(uploadsLocation).toAbsolutePath().normalize();
+        Path file = root.resolve(fileMetadata.getLocation()).normalize();
+        try {
+            if (file.startsWith(root) && Files.size(file) == fileMetadata.getSize()) {
+                return file;
+            }
+        } catch (IOException e) {
+            logger.debug("File ID: {} is not on the uploads volume at {}", fileId, file);
+        }
+        return null;
+    }
+
     /**
      * Для тестирования: этот метод можно замокать, чтобы не было реального обращения к сети.
+     * <p>
+     * Goes through the pooled request factory; the connection is returned to the pool when the
+     * stream is closed. The exchange is observed the same way as RestTemplate calls, so it carries
+     * the trace context and is timed in {@code http.client.requests} until the stream is closed.
      */
     protected InputStream getFileInputStreamFromUrl(String url) throws IOException {
-        return new URL(url).openStream();
+        ClientHttpRequest request = restTemplate.getRequestFactory().createRequest(URI.create(url), HttpMethod.GET);
+        ClientRequestObservationContext context = new ClientRequestObservationContext(request);
+        context.setUriTemplate(fileStorageServiceUrl + "/files/{id}");
+        Observation observation = ClientHttpObservationDocumentation.HTTP_CLIENT_EXCHANGES
+            .observation(null, new DefaultClientRequestObservationConvention(), () -> context,
+                restTemplate.getObservationRegistry())
+            .start();
+        ClientHttpResponse response;
+        try (Observation.Scope scope = observation.openScope()) {
+            response = request.execute();
+            context.setResponse(response);
+        } catch (IOException | RuntimeException e) {
+            observation.error(e).stop();
+            throw e;
+        }
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            try {
+                // Client and server errors as RestTemplate raises them, so only the latter are retried
+                restTemplate.getErrorHandler().handleError(URI.create(url), HttpMethod.GET, response);
+            } finally {
+                response.close();
+                observation.stop();
+            }
+            throw new IOException("Failed to fetch " + url + ": " + response.getStatusCode());
+        }
+        return new FilterInputStream(response.getBody()) {
+            @Override
+            public void close() {
+                response.close();
+                observation.stop();
+            }
+        };
     }
 }
@@ -0,0 +1,158 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.repository.UploadEventRepository;
+import org.example.repository.UploadEventRepository.UploadEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Analyses uploaded files ahead of the first request, so that request is only a lookup.
+ * <p>
+ * Every poll claims as many upload events as there are free slots, at most
+ * {@code analysis.outbox.batch-size}; with all {@code analysis.outbox.max-in-flight} slots busy
+ * nothing is claimed and the events wait in the table. Handled events are deleted in one batch on
+ * the next poll; failed ones are retried with a growing delay, up to
+ * {@code analysis.outbox.max-attempts} times. An event whose last attempt fails is dead-lettered:
+ * logged, counted in {@code analysis.outbox.dead.lettered} and deleted with the handled ones, so
+ * polls never scan it again. Exhausted events left behind by a consumer that died are swept every
+ * {@code analysis.outbox.dead-letter-sweep-interval}. The file is still analysed on first request.
+ */
+@Service
+@ConditionalOnProperty(name = "analysis.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class UploadEventConsumer {
+    private static final Logger logger = LoggerFactory.getLogger(UploadEventConsumer.class);
+
+    private final UploadEventRepository uploadEventRepository;
+    private final FileAnalysisService fileAnalysisService;
+    private final TaskExecutor analysisExecutor;
+    private final Semaphore slots;
+    private final int batchSize;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final Counter deadLettered;
+    private final ConcurrentLinkedQueue<Long> handled = new ConcurrentLinkedQueue<>();
+
+    @Autowired
+    public UploadEventConsumer(UploadEventRepository uploadEventRepository,
+                               FileAnalysisService fileAnalysisService,
+                               @Qualifier("analysisExecutor") TaskExecutor analysisExecutor,
+                               @Value("${analysis.outbox.max-in-flight:2}") int maxInFlight,
+                               @Value("${analysis.outbox.batch-size:50}") int batchSize,
+                               @Value("${analysis.outbox.lease:PT5M}") Duration lease,
+                               @Value("${analysis.outbox.max-attempts:5}") int maxAttempts,
+                               @Value("${analysis.outbox.retry-delay:PT30S}") Duration retryDelay,
+                               MeterRegistry meterRegistry) {
+        this.uploadEventRepository = uploadEventRepository;
+        this.fileAnalysisService = fileAnalysisService;
+        this.analysisExecutor = analysisExecutor;
+        this.slots = new Semaphore(maxInFlight);
+        this.batchSize = batchSize;
+        this.lease = lease;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+        this.deadLettered = Counter.builder("analysis.outbox.dead.lettered")
+            .description("Upload events dropped after their last analysis attempt failed")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${analysis.outbox.poll-interval:PT1S}")
+    public void poll() {
+        try {
+            deleteHandled();
+            int free = Math.min(slots.availablePermits(), batchSize);
+            if (free == 0) {
+                return;
+            }
+            for (UploadEvent event : uploadEventRepository.claim(free, lease, maxAttempts)) {
+                dispatch(event);
+            }
+        } catch (DataAccessException e) {
+            // E.g. the outbox table does not exist until file-storing-service has started once
+            logger.warn("Failed to poll upload events: {}", e.getMessage());
+        }
+    }
+
+    private void dispatch(UploadEvent event) {
+        if (!slots.tryAcquire()) {
+            uploadEventRepository.release(event.getId(), Duration.ZERO);
+            return;
+        }
+        try {
+            analysisExecutor.execute(() -> handle(event));
+        } catch (RejectedExecutionException e) {
+            slots.release();
+            uploadEventRepository.release(event.getId(), Duration.ZERO);
+        }
+    }
+
+    private void handle(UploadEvent event) {
+        try {
+            fileAnalysisService.analyzeFile(event.getFileId());
+            handled.add(event.getId());
+        } catch (RuntimeException e) {
+            if (event.getAttempts() >= maxAttempts) {
+                logger.error("Pre-computing analysis of file ID: {} failed {} times, dropping upload event {}: {}",
+                        event.getFileId(), event.getAttempts(), event.getId(), e.getMessage());
+                deadLettered.increment();
+                handled.add(event.getId());
+                return;
+            }
+            logger.warn("Pre-computing analysis of file ID: {} failed (attempt {} of {}): {}",
+                    event.getFileId(), event.getAttempts(), maxAttempts, e.getMessage());
+            try {
+                uploadEventRepository.release(event.getId(), retryDelay.multipliedBy(event.getAttempts()));
+            } catch (DataAccessException releaseFailure) {
+                logger.warn("Failed to release upload event {}, it is retried once its lease expires", event.getId());
+            }
+        } finally {
+            slots.release();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${analysis.outbox.dead-letter-sweep-interval:PT10M}")
+    public void sweepExhausted() {
+        try {
+            for (UploadEvent event : uploadEventRepository.deleteExhausted(maxAttempts)) {
+                logger.error("Dropping upload event {} of file ID: {} after {} attempts",
+                        event.getId(), event.getFileId(), event.getAttempts());
+                deadLettered.increment();
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Failed to sweep exhausted upload events: {}", e.getMessage());
+        }
+    }
+
+    private void deleteHandled() {
+        List<Long> eventIds = new ArrayList<>();
+        for (Long eventId = handled.poll(); eventId != null; eventId = handled.poll()) {
+            eventIds.add(eventId);
+        }
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        try {
+            uploadEventRepository.delete(eventIds);
+        } catch (DataAccessException e) {
+            handled.addAll(eventIds);
+            throw e;
+        }
+    }
+}
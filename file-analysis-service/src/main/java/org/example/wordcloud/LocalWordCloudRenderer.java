@@ -0,0 +1,162 @@
+package org.example.wordcloud;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-process word cloud renderer. Words are laid out largest first along an Archimedean spiral
+ * from the center; collisions are checked against a coarse occupancy grid of the canvas, so
+ * placement cost does not depend on how many words are already drawn.
+ */
+@Component
+@ConditionalOnProperty(name = "wordcloud.renderer", havingValue = "local", matchIfMissing = true)
+public class LocalWordCloudRenderer implements WordCloudRenderer {
+    private static final int CELL_SIZE = 4;
+    private static final int PADDING = 2;
+    private static final int MIN_FONT_SIZE = 10;
+    private static final double SPIRAL_STEP = 0.1;
+    private static final double SPIRAL_SPACING = 1.5;
+    private static final Color[] PALETTE = {
+            new Color(0x1F77B4), new Color(0xFF7F0E), new Color(0x2CA02C), new Color(0xD62728),
+            new Color(0x9467BD), new Color(0x8C564B), new Color(0xE377C2), new Color(0x17BECF)
+    };
+
+    private final String fontFamily;
+
+    public LocalWordCloudRenderer(@Value("${wordcloud.font-family:SansSerif}") String fontFamily) {
+        this.fontFamily = fontFamily;
+    }
+
+    @Override
+    public byte[] render(Map<String, Integer> frequencies, int width, int height) throws IOException {
+        if (frequencies.isEmpty()) {
+            return null;
+        }
+        int maxFrequency = frequencies.values().stream().mapToInt(Integer::intValue).max().orElse(1);
+        int minFrequency = frequencies.values().stream().mapToInt(Integer::intValue).min().orElse(1);
+        int maxFontSize = Math.max(MIN_FONT_SIZE, Math.min(width, height) / 7);
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+            Font baseFont = new Font(fontFamily, Font.BOLD, MIN_FONT_SIZE);
+            Map<Integer, Font> fonts = new HashMap<>();
+            OccupancyGrid grid = new OccupancyGrid(width, height);
+
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                String word = entry.getKey();
+                double weight = maxFrequency == minFrequency ? 1.0
+                        : (double) (entry.getValue() - minFrequency) / (maxFrequency - minFrequency);
+                int fontSize = (int) Math.round(MIN_FONT_SIZE + Math.sqrt(weight) * (maxFontSize - MIN_FONT_SIZE));
+                Font font = fonts.computeIfAbsent(fontSize, size -> baseFont.deriveFont((float) size));
+                FontMetrics metrics = graphics.getFontMetrics(font);
+
+                int boxWidth = metrics.stringWidth(word) + 2 * PADDING;
+                int boxHeight = metrics.getAscent() + metrics.getDescent() + 2 * PADDING;
+                int[] position = grid.findPlace(boxWidth, boxHeight, word.hashCode());
+                if (position == null) {
+                    continue;
+                }
+                grid.occupy(position[0], position[1], boxWidth, boxHeight);
+
+                graphics.setFont(font);
+                graphics.setColor(PALETTE[Math.floorMod(word.hashCode(), PALETTE.length)]);
+                graphics.drawString(word, position[0] + PADDING, position[1] + PADDING + metrics.getAscent());
+            }
+        } finally {
+            graphics.dispose();
+        }
+
+        return PngEncoder.encode(image);
+    }
+
+    /**
+     * Canvas occupancy at {@code CELL_SIZE} resolution, one bit per cell, so a box test touches a
+     * handful of words per row instead of every cell.
+     */
+    private static final class OccupancyGrid {
+        private final int width;
+        private final int height;
+        private final int columns;
+        private final int wordsPerRow;
+        private final long[] bits;
+
+        OccupancyGrid(int width, int height) {
+            this.width = width;
+            this.height = height;
+            this.columns = (width + CELL_SIZE - 1) / CELL_SIZE;
+            int rows = (height + CELL_SIZE - 1) / CELL_SIZE;
+            this.wordsPerRow = (columns + Long.SIZE - 1) / Long.SIZE;
+            this.bits = new long[rows * wordsPerRow];
+        }
+
+        int[] findPlace(int boxWidth, int boxHeight, int seed) {
+            if (boxWidth > width || boxHeight > height) {
+                return null;
+            }
+            double centerX = width / 2.0;
+            double centerY = height / 2.0;
+            double maxRadius = Math.hypot(centerX, centerY);
+            double startAngle = Math.floorMod(seed, 360) * Math.PI / 180;
+            double aspect = (double) width / height;
+            double t = 0;
+            while (SPIRAL_SPACING * t <= maxRadius) {
+                double radius = SPIRAL_SPACING * t;
+                int x = (int) (centerX + radius * aspect * Math.cos(t + startAngle) - boxWidth / 2.0);
+                int y = (int) (centerY + radius * Math.sin(t + startAngle) - boxHeight / 2.0);
+                if (x >= 0 && y >= 0 && x + boxWidth <= width && y + boxHeight <= height
+                        && isFree(x, y, boxWidth, boxHeight)) {
+                    return new int[]{x, y};
+                }
+                t += SPIRAL_STEP;
+            }
+            return null;
+        }
+
+        private boolean isFree(int x, int y, int boxWidth, int boxHeight) {
+            int firstColumn = x / CELL_SIZE;
+            int lastColumn = Math.min(columns - 1, (x + boxWidth - 1) / CELL_SIZE);
+            for (int row = y / CELL_SIZE; row <= (y + boxHeight - 1) / CELL_SIZE; row++) {
+                int rowStart = row * wordsPerRow;
+                for (int word = firstColumn / Long.SIZE; word <= lastColumn / Long.SIZE; word++) {
+                    if ((bits[rowStart + word] & mask(word, firstColumn, lastColumn)) != 0) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        void occupy(int x, int y, int boxWidth, int boxHeight) {
+            int firstColumn = x / CELL_SIZE;
+            int lastColumn = Math.min(columns - 1, (x + boxWidth - 1) / CELL_SIZE);
+            for (int row = y / CELL_SIZE; row <= (y + boxHeight - 1) / CELL_SIZE; row++) {
+                int rowStart = row * wordsPerRow;
+                for (int word = firstColumn / Long.SIZE; word <= lastColumn / Long.SIZE; word++) {
+                    bits[rowStart + word] |= mask(word, firstColumn, lastColumn);
+                }
+            }
+        }
+
+        private static long mask(int word, int firstColumn, int lastColumn) {
+            int from = Math.max(firstColumn - word * Long.SIZE, 0);
+            int to = Math.min(lastColumn - word * Long.SIZE, Long.SIZE - 1);
+            return (-1L >>> (Long.SIZE - 1 - to)) & (-1L << from);
+        }
+    }
+}
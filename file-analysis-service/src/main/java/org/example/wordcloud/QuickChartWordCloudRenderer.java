@@ -0,0 +1,75 @@
+package org.example.wordcloud;
+
+import org.example.resilience.Downstream;
+import org.example.resilience.Downstreams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Renders word clouds with the QuickChart API. Only the weighted word list is sent, never the
+ * document itself: each word is repeated in proportion to its frequency so that QuickChart's
+ * own counting reproduces the weights. Requests go through the {@code quickchart} downstream, so
+ * while QuickChart is slow or down renders fail fast and analyses are saved without a word cloud.
+ */
+@Component
+@ConditionalOnProperty(name = "wordcloud.renderer", havingValue = "quickchart")
+public class QuickChartWordCloudRenderer implements WordCloudRenderer {
+    private static final Logger logger = LoggerFactory.getLogger(QuickChartWordCloudRenderer.class);
+    private static final int MAX_REPETITIONS = 20;
+
+    private final RestTemplate restTemplate;
+    private final String quickChartApiUrl;
+    private final Downstream quickChart;
+
+    public QuickChartWordCloudRenderer(RestTemplate restTemplate,
+                                       @Value("${quickchart.api.url:https://quickchart.io/wordcloud}") String quickChartApiUrl,
+                                       Downstreams downstreams) {
+        this.restTemplate = restTemplate;
+        this.quickChartApiUrl = quickChartApiUrl;
+        this.quickChart = downstreams.get(Downstreams.QUICKCHART);
+    }
+
+    @Override
+    public byte[] render(Map<String, Integer> frequencies, int width, int height) {
+        if (frequencies.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("format", "png");
+        requestBody.put("width", width);
+        requestBody.put("height", height);
+        requestBody.put("fontScale", 15);
+        requestBody.put("scale", "linear");
+        requestBody.put("removeStopwords", false);
+        requestBody.put("text", toWeightedText(frequencies));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        logger.info("Sending request to QuickChart API");
+        HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
+        return quickChart.call(() -> restTemplate.postForObject(quickChartApiUrl, request, byte[].class));
+    }
+
+    private static String toWeightedText(Map<String, Integer> frequencies) {
+        int maxFrequency = frequencies.values().stream().mapToInt(Integer::intValue).max().orElse(1);
+        StringBuilder text = new StringBuilder();
+        frequencies.forEach((word, frequency) -> {
+            int repetitions = Math.max(1, (int) Math.round((double) frequency * MAX_REPETITIONS / maxFrequency));
+            for (int i = 0; i < repetitions; i++) {
+                text.append(word).append(' ');
+            }
+        });
+        return text.toString();
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.wordcloud;
+
+import java.io.IOException;
+import java.util.Map;
+
+public interface WordCloudRenderer {
+
+    /**
+     * Renders a PNG word cloud.
+     *
+     * @param frequencies words and their weights, most frequent first
+     * @return PNG image bytes, or {@code null} if nothing could be rendered
+     */
+    byte[] render(Map<String, Integer> frequencies, int width, int height) throws IOException;
+}
@@ -0,0 +1,235 @@
+package org.example.wordcloud;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Word cloud images on disk, named by the SHA-256 of what they are rendered from: the weighted
+ * terms of the document and the image size. Identical documents therefore share one image, and
+ * since an image never changes under its name it can be cached by clients for good.
+ * <p>
+ * Images are written to a temporary file and moved into place atomically, so readers never see
+ * a partial image. Once the directory grows beyond {@code wordcloud.storage.max-size}, the least
+ * recently used images are deleted. An evicted image that an analysis still links to is rendered
+ * again under the same name when it is next requested, since the name is derived from the content.
+ */
+@Component
+public class WordCloudStore {
+    private static final Logger logger = LoggerFactory.getLogger(WordCloudStore.class);
+    private static final String EXTENSION = ".png";
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+    /** Content keys, and the millisecond timestamps images were named by before */
+    private static final Pattern FILE_NAME = Pattern.compile("[0-9a-f]{1,64}\\.png");
+    /** Serving an image refreshes its last use at most this often, to avoid a write per request */
+    private static final Duration TOUCH_INTERVAL = Duration.ofHours(1);
+    /** Temporary files older than this were left behind by a crash */
+    private static final Duration ABANDONED_AFTER = Duration.ofHours(1);
+    /** Eviction goes below the limit by this fraction, so it does not run on every new image */
+    private static final double EVICTION_HEADROOM = 0.1;
+
+    private final Path directory;
+    private final long maxSize;
+    private final Counter reusedImages;
+    private final Counter storedImages;
+    private final Counter evictedImages;
+
+    @Autowired
+    public WordCloudStore(@Value("${wordcloud.storage.path:wordclouds}") String directory,
+                          @Value("${wordcloud.storage.max-size:1GB}") DataSize maxSize,
+                          MeterRegistry meterRegistry) {
+        this(Paths.get(directory), maxSize, meterRegistry);
+    }
+
+    public WordCloudStore(Path directory, DataSize maxSize, MeterRegistry meterRegistry) {
+        this.directory = directory.toAbsolutePath().normalize();
+        this.maxSize = maxSize.toBytes();
+        this.reusedImages = imageCounter(meterRegistry, "reused");
+        this.storedImages = imageCounter(meterRegistry, "stored");
+        this.evictedImages = imageCounter(meterRegistry, "evicted");
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create word cloud directory " + this.directory, e);
+        }
+        logger.info("Word cloud directory created/verified at: {}", this.directory);
+    }
+
+    private static Counter imageCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("wordcloud.images")
+            .description("Word cloud images reused for identical content, stored after rendering, or evicted")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    /**
+     * @param frequencies terms and their weights, in the order they are rendered
+     */
+    public static String key(Map<String, Integer> frequencies, int width, int height) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update((width + "x" + height + "\n").getBytes(StandardCharsets.UTF_8));
+        frequencies.forEach((term, weight) ->
+            digest.update((term + "\t" + weight + "\n").getBytes(StandardCharsets.UTF_8)));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * @return the name the image stored under the key is served by
+     */
+    public static String fileName(String key) {
+        return key + EXTENSION;
+    }
+
+    /**
+     * @return the file name of the image stored under the key, if there is one
+     */
+    public Optional<String> find(String key) {
+        String fileName = fileName(key);
+        Path image = directory.resolve(fileName);
+        if (!Files.isRegularFile(image)) {
+            return Optional.empty();
+        }
+        touch(image);
+        reusedImages.increment();
+        return Optional.of(fileName);
+    }
+
+    /**
+     * @return the file name the image is served by
+     */
+    public String store(String key, byte[] png) throws IOException {
+        String fileName = fileName(key);
+        Path temporary = Files.createTempFile(directory, key, TEMPORARY_EXTENSION);
+        try {
+            Files.write(temporary, png);
+            try {
+                Files.move(temporary, directory.resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, directory.resolve(fileName), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        storedImages.increment();
+        logger.info("Word cloud image saved to: {}", directory.resolve(fileName));
+        return fileName;
+    }
+
+    /**
+     * Looks an image up by the name a client asked for; anything but a plain image name in this
+     * directory is not found.
+     */
+    public Optional<Path> resolve(String fileName) {
+        if (fileName == null || !FILE_NAME.matcher(fileName).matches()) {
+            return Optional.empty();
+        }
+        Path image = directory.resolve(fileName);
+        if (!Files.isRegularFile(image)) {
+            return Optional.empty();
+        }
+        touch(image);
+        return Optional.of(image);
+    }
+
+    /**
+     * Deletes abandoned temporary files, then the least recently used images until the directory
+     * is back under its size limit.
+     */
+    @Scheduled(fixedDelayString = "${wordcloud.storage.gc-interval:PT10M}")
+    public void collectGarbage() {
+        Instant abandoned = Instant.now().minus(ABANDONED_AFTER);
+        List<StoredImage> images = new ArrayList<>();
+        long totalSize = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMPORARY_EXTENSION) && attributes.lastModifiedTime().toInstant().isBefore(abandoned)) {
+                    Files.deleteIfExists(file);
+                } else if (attributes.isRegularFile() && FILE_NAME.matcher(name).matches()) {
+                    images.add(new StoredImage(file, attributes.size(), attributes.lastModifiedTime()));
+                    totalSize += attributes.size();
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to scan word cloud directory {}", directory, e);
+            return;
+        }
+        if (totalSize <= maxSize) {
+            return;
+        }
+
+        long target = (long) (maxSize * (1 - EVICTION_HEADROOM));
+        images.sort(Comparator.comparing(StoredImage::lastUsed));
+        int evicted = 0;
+        for (StoredImage image : images) {
+            if (totalSize <= target) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(image.path());
+                totalSize -= image.size();
+                evicted++;
+            } catch (IOException e) {
+                logger.warn("Failed to evict word cloud image {}", image.path(), e);
+            }
+        }
+        evictedImages.increment(evicted);
+        logger.info("Evicted {} word cloud images, {} bytes remain", evicted, totalSize);
+    }
+
+    private static void touch(Path image) {
+        try {
+            FileTime now = FileTime.from(Instant.now());
+            if (Files.getLastModifiedTime(image).toInstant().isBefore(now.toInstant().minus(TOUCH_INTERVAL))) {
+                Files.setLastModifiedTime(image, now);
+            }
+        } catch (IOException e) {
+            // Evicted meanwhile, or a read-only volume: the image just ages as if unused
+            logger.debug("Failed to refresh last use of {}", image, e);
+        }
+    }
+
+    private record StoredImage(Path path, long size, FileTime lastUsed) {
+    }
+}
@@ -0,0 +1,18 @@
+-- Ids used to come from an identity column. Moves the id sequence past the rows inserted that way,
+-- so ids allocated from it never collide with them; a no-op once the sequence is ahead.
+-- Runs on every startup while other instances may be allocating ids, so the sequence is only
+-- ever advanced with nextval, never set back, and concurrent startups take turns on the lock.
+DO $$
+DECLARE
+    max_id bigint;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('align-id-sequences'));
+
+    SELECT COALESCE(MAX(id), 0) INTO max_id FROM analysis_metadata;
+    IF (SELECT last_value FROM analysis_metadata_seq) < max_id THEN
+        WHILE nextval('analysis_metadata_seq') < max_id LOOP
+        END LOOP;
+    END IF;
+END
+$$
+@@
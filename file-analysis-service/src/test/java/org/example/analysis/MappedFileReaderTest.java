@@ -0,0 +1,96 @@
+package org.example.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedFileReaderTest {
+
+    private static final String TEXT = "Съешь же ещё этих мягких французских булок, да выпей чаю.\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void open_WhenFileIsUtf8_ShouldDecodeIt() throws IOException {
+        Path file = write(TEXT.getBytes(StandardCharsets.UTF_8));
+
+        try (MappedFileReader reader = MappedFileReader.open(file)) {
+            assertEquals(StandardCharsets.UTF_8, reader.getCharset());
+            assertEquals(TEXT, readAll(reader));
+        }
+    }
+
+    @Test
+    void open_WhenFileIsWindows1251_ShouldDecodeIt() throws IOException {
+        Path file = write(TEXT.getBytes(CharsetDetector.WINDOWS_1251));
+
+        try (MappedFileReader reader = MappedFileReader.open(file)) {
+            assertEquals(CharsetDetector.WINDOWS_1251, reader.getCharset());
+            assertEquals(TEXT, readAll(reader));
+        }
+    }
+
+    @Test
+    void open_WhenFileStartsWithByteOrderMark_ShouldSkipIt() throws IOException {
+        byte[] text = TEXT.getBytes(StandardCharsets.UTF_16LE);
+        byte[] content = new byte[text.length + 2];
+        content[0] = (byte) 0xFF;
+        content[1] = (byte) 0xFE;
+        System.arraycopy(text, 0, content, 2, text.length);
+        Path file = write(content);
+
+        try (MappedFileReader reader = MappedFileReader.open(file)) {
+            assertEquals(StandardCharsets.UTF_16LE, reader.getCharset());
+            assertEquals(TEXT, readAll(reader));
+        }
+    }
+
+    @Test
+    void read_WhenCharactersAreSplitBetweenWindows_ShouldDecodeThemWhole() throws IOException {
+        String text = TEXT.repeat(50);
+        Path file = write(text.getBytes(StandardCharsets.UTF_8));
+
+        // An odd window size puts window ends inside two-byte Cyrillic letters
+        try (MappedFileReader reader = MappedFileReader.open(file, 101)) {
+            assertEquals(text, readAll(reader));
+        }
+    }
+
+    @Test
+    void open_WhenFileIsEmpty_ShouldReadNothing() throws IOException {
+        Path file = write(new byte[0]);
+
+        try (MappedFileReader reader = MappedFileReader.open(file)) {
+            assertEquals(-1, reader.read(new char[16]));
+        }
+    }
+
+    @Test
+    void newReader_ShouldDecodeStreamInDetectedCharset() throws IOException {
+        byte[] content = TEXT.getBytes(CharsetDetector.WINDOWS_1251);
+
+        try (Reader reader = CharsetDetector.newReader(new ByteArrayInputStream(content))) {
+            assertEquals(TEXT, readAll(reader));
+        }
+    }
+
+    private Path write(byte[] content) throws IOException {
+        return Files.write(directory.resolve("content.txt"), content);
+    }
+
+    private static String readAll(Reader reader) throws IOException {
+        StringWriter writer = new StringWriter();
+        reader.transferTo(writer);
+        return writer.toString();
+    }
+}
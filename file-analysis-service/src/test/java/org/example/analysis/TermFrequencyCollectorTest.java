@@ -0,0 +1,63 @@
+package org.example.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.CharBuffer;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TermFrequencyCollectorTest {
+
+    @Test
+    void topTerms_ShouldSkipEnglishAndRussianStopWords() {
+        Map<String, Integer> top = collect("the cat and the dog и кот и собака").topTerms(10, 1);
+
+        assertEquals(Map.of("cat", 1, "dog", 1, "кот", 1, "собака", 1), top);
+    }
+
+    @Test
+    void topTerms_ShouldFoldCase() {
+        Map<String, Integer> top = collect("Plagiarism PLAGIARISM plagiarism Плагиат ПЛАГИАТ").topTerms(10, 1);
+
+        assertEquals(Map.of("plagiarism", 3, "плагиат", 2), top);
+    }
+
+    @Test
+    void topTerms_ShouldOrderByCountThenAlphabetically() {
+        Map<String, Integer> top = collect("pear apple zebra apple pear mango").topTerms(10, 1);
+
+        assertEquals(List.of("apple", "pear", "mango", "zebra"), List.copyOf(top.keySet()));
+        assertEquals(List.of(2, 2, 1, 1), List.copyOf(top.values()));
+    }
+
+    @Test
+    void topTerms_ShouldReturnAtMostLimitTerms() {
+        Map<String, Integer> top = collect("alpha alpha alpha beta beta gamma delta").topTerms(2, 1);
+
+        assertEquals(List.of("alpha", "beta"), List.copyOf(top.keySet()));
+    }
+
+    @Test
+    void topTerms_ShouldSkipNumbersAndShortTerms() {
+        Map<String, Integer> top = collect("2024 2024 ab ab ab x9 report 42nd").topTerms(10, 3);
+
+        assertEquals(Map.of("report", 1, "42nd", 1), top);
+    }
+
+    @Test
+    void accept_WhenTermIsSplitAcrossChunks_ShouldCountItOnce() {
+        TermFrequencyCollector collector = new TermFrequencyCollector();
+        collector.accept(CharBuffer.wrap("word wo"));
+        collector.accept(CharBuffer.wrap("rd"));
+
+        assertEquals(Map.of("word", 2), collector.topTerms(10, 1));
+    }
+
+    private static TermFrequencyCollector collect(String text) {
+        TermFrequencyCollector collector = new TermFrequencyCollector();
+        collector.accept(CharBuffer.wrap(text));
+        return collector;
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.CharBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextStatisticsCollectorTest {
+
+    private static final String TEXT = "The cat sat. The cat ran!\n"
+        + "\n"
+        + "\n"
+        + "A new paragraph — without end\n"
+        + "continues here?\n"
+        + "\n"
+        + "Heading\n";
+
+    @Test
+    void collect_ShouldCountParagraphsWordsSentencesAndCharacters() throws IOException {
+        TextStatistics statistics = TextStatisticsCollector.collect(new StringReader(TEXT));
+
+        assertEquals(3, statistics.getParagraphCount());
+        assertEquals(14, statistics.getWordCount());
+        assertEquals(TEXT.replace("\n", "").length(), statistics.getCharacterCount());
+        assertEquals(4, statistics.getSentenceCount());
+        assertEquals(12, statistics.getUniqueWordCount());
+        assertEquals(61.0 / 14, statistics.getAverageWordLength(), 1e-9);
+    }
+
+    @Test
+    void collect_WhenTextIsBlank_ShouldReturnZeroes() throws IOException {
+        TextStatistics statistics = TextStatisticsCollector.collect(new StringReader("\n  \n\t\n"));
+
+        assertEquals(0, statistics.getParagraphCount());
+        assertEquals(0, statistics.getWordCount());
+        assertEquals(0, statistics.getSentenceCount());
+        assertEquals(0, statistics.getUniqueWordCount());
+        assertEquals(0.0, statistics.getAverageWordLength());
+    }
+
+    @Test
+    void accept_WhenChunksSplitTokens_ShouldMatchSinglePass() throws IOException {
+        TextStatistics expected = TextStatisticsCollector.collect(new StringReader(TEXT));
+
+        TextStatisticsCollector collector = new TextStatisticsCollector();
+        for (int i = 0; i < TEXT.length(); i += 3) {
+            collector.accept(CharBuffer.wrap(TEXT, i, Math.min(i + 3, TEXT.length())));
+        }
+        TextStatistics actual = collector.finish();
+
+        assertEquals(expected.getParagraphCount(), actual.getParagraphCount());
+        assertEquals(expected.getWordCount(), actual.getWordCount());
+        assertEquals(expected.getCharacterCount(), actual.getCharacterCount());
+        assertEquals(expected.getSentenceCount(), actual.getSentenceCount());
+        assertEquals(expected.getUniqueWordCount(), actual.getUniqueWordCount());
+    }
+
+    @Test
+    void accept_WhenSurrogatePairsAreSplitBetweenChunks_ShouldCountCodePoints() {
+        String text = "\uD835\uDD38\uD835\uDD39 \uD83D\uDE00\n";
+        TextStatisticsCollector collector = new TextStatisticsCollector();
+        for (int i = 0; i < text.length(); i++) {
+            collector.accept(CharBuffer.wrap(text, i, i + 1));
+        }
+        TextStatistics statistics = collector.finish();
+
+        assertEquals(4, statistics.getCharacterCount());
+        assertEquals(1, statistics.getWordCount());
+        assertEquals(2.0, statistics.getAverageWordLength());
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedTaskExecutorTest {
+
+    @Test
+    void execute_ShouldLimitConcurrencyAndRejectBeyondQueueCapacity() throws Exception {
+        assertBounded(new SimpleAsyncTaskExecutor("test-"));
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void execute_OnVirtualThreads_ShouldLimitConcurrencyAndRejectBeyondQueueCapacity() throws Exception {
+        assertBounded(new VirtualThreadTaskExecutor("test-"));
+    }
+
+    private void assertBounded(TaskExecutor delegate) throws Exception {
+        BoundedTaskExecutor executor = new BoundedTaskExecutor(delegate, 2, 3);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(5);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        for (int i = 0; i < 5; i++) {
+            executor.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                    finished.countDown();
+                }
+            });
+        }
+        assertThrows(TaskRejectedException.class, () -> executor.execute(() -> { }));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(2, running.get());
+
+        release.countDown();
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        assertEquals(2, maxRunning.get());
+
+        CountDownLatch accepted = new CountDownLatch(1);
+        executor.execute(accepted::countDown);
+        assertTrue(accepted.await(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.controller;
+
+import org.example.dto.AnalysisResponseDTO;
+import org.example.dto.BatchAnalysisResultDTO;
+import org.example.service.AnalysisJobService;
+import org.example.service.BatchAnalysisService;
+import org.example.service.FileAnalysisService;
+import org.example.wordcloud.WordCloudStore;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(FileAnalysisController.class)
+@TestPropertySource(properties = "analysis.batch.max-streams=1")
+class FileAnalysisControllerTest {
+    private static final String BATCH = "{\"fileIds\":[1]}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private FileAnalysisService fileAnalysisService;
+
+    @MockBean
+    private AnalysisJobService analysisJobService;
+
+    @MockBean
+    private BatchAnalysisService batchAnalysisService;
+
+    @MockBean
+    private WordCloudStore wordCloudStore;
+
+    @Test
+    void getAnalysis_WhenStored_ShouldBeCacheable() throws Exception {
+        AnalysisResponseDTO stored = new AnalysisResponseDTO();
+        stored.setWordCloudPath("cloud.png");
+        stored.setWordCloudPending(false);
+        when(fileAnalysisService.findAnalysis(1L)).thenReturn(Optional.of(stored));
+
+        mockMvc.perform(get("/analysis/1"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Cache-Control", containsString("immutable")))
+            .andExpect(header().exists("ETag"));
+        verifyNoInteractions(analysisJobService);
+    }
+
+    @Test
+    void getAnalysis_WhenWordCloudPending_ShouldNotBeStoredAndRetryInBackground() throws Exception {
+        AnalysisResponseDTO pending = new AnalysisResponseDTO();
+        pending.setWordCount(2L);
+        pending.setWordCloudPending(true);
+        when(fileAnalysisService.findAnalysis(1L)).thenReturn(Optional.of(pending));
+        when(analysisJobService.submit(1L)).thenThrow(new RejectedExecutionException("queue full"));
+
+        mockMvc.perform(get("/analysis/1"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Cache-Control", "no-store"))
+            .andExpect(header().doesNotExist("ETag"))
+            .andExpect(content().string(containsString("\"wordCloudPending\":true")));
+        verify(analysisJobService).submit(1L);
+    }
+
+    @Test
+    void analyzeBatch_ShouldStreamOnBoundedAsyncPool() throws Exception {
+        AtomicReference<String> streamThread = new AtomicReference<>();
+        doAnswer(invocation -> {
+            streamThread.set(Thread.currentThread().getName());
+            Consumer<BatchAnalysisResultDTO> results = invocation.getArgument(1);
+            BatchAnalysisResultDTO result = new BatchAnalysisResultDTO();
+            result.setFileId(1L);
+            results.accept(result);
+            return null;
+        }).when(batchAnalysisService).analyze(any(), any());
+
+        MvcResult started = mockMvc.perform(post("/analysis/batch")
+                .contentType(MediaType.APPLICATION_JSON).content(BATCH))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("\"fileId\":1")));
+        assertTrue(streamThread.get().startsWith("mvc-async-"), streamThread.get());
+    }
+
+    @Test
+    void analyzeBatch_WhenAllStreamsBusy_ShouldRejectWithRetryAfter() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch streaming = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            streaming.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(batchAnalysisService).analyze(any(), any());
+
+        MvcResult first = mockMvc.perform(post("/analysis/batch")
+                .contentType(MediaType.APPLICATION_JSON).content(BATCH))
+            .andReturn();
+        assertTrue(streaming.await(10, TimeUnit.SECONDS));
+        try {
+            MvcResult second = mockMvc.perform(post("/analysis/batch")
+                    .contentType(MediaType.APPLICATION_JSON).content(BATCH))
+                .andReturn();
+            assertInstanceOf(RejectedExecutionException.class,
+                WebAsyncUtils.getAsyncManager(second.getRequest()).getConcurrentResult());
+
+            // A rejected task never reaches MockMvc's result interceptors, so dispatch by hand
+            MockHttpServletRequest dispatch = second.getRequest();
+            dispatch.setDispatcherType(DispatcherType.ASYNC);
+            dispatch.setAsyncStarted(false);
+            mockMvc.perform(servletContext -> dispatch)
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists("Retry-After"));
+        } finally {
+            release.countDown();
+        }
+        mockMvc.perform(asyncDispatch(first)).andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.repository;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.model.AnalysisMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AnalysisMetadataRepositoryCacheTest {
+
+    private AnnotationConfigApplicationContext context;
+    private AnalysisMetadataRepository target;
+    private AnalysisMetadataRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        context = new AnnotationConfigApplicationContext(CacheTestConfig.class);
+        target = context.getBean(CacheTestConfig.class).target;
+        repository = context.getBean(AnalysisMetadataRepository.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void findByFileId_ShouldServeRepeatedLookupsFromCache() {
+        when(target.findByFileId(1L)).thenReturn(Optional.of(analysis(1L)));
+
+        assertTrue(repository.findByFileId(1L).isPresent());
+        assertTrue(repository.findByFileId(1L).isPresent());
+
+        verify(target, times(1)).findByFileId(1L);
+        CaffeineCache cache = (CaffeineCache) context.getBean(CacheManager.class)
+            .getCache(AnalysisMetadataRepository.ANALYSES_CACHE);
+        assertEquals(1, cache.getNativeCache().stats().hitCount());
+        assertEquals(1, cache.getNativeCache().stats().missCount());
+    }
+
+    @Test
+    void findByFileId_WhenAnalysisMissing_ShouldNotCacheAbsence() {
+        when(target.findByFileId(1L)).thenReturn(Optional.empty());
+
+        assertTrue(repository.findByFileId(1L).isEmpty());
+        assertTrue(repository.findByFileId(1L).isEmpty());
+
+        verify(target, times(2)).findByFileId(1L);
+    }
+
+    @Test
+    void save_ShouldPopulateCacheForLaterLookups() {
+        when(target.save(any(AnalysisMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        repository.save(analysis(2L));
+        Optional<AnalysisMetadata> found = repository.findByFileId(2L);
+
+        assertTrue(found.isPresent());
+        assertEquals(2L, found.get().getFileId());
+        verify(target, never()).findByFileId(any());
+    }
+
+    private static AnalysisMetadata analysis(Long fileId) {
+        AnalysisMetadata metadata = new AnalysisMetadata();
+        metadata.setId(fileId);
+        metadata.setFileId(fileId);
+        metadata.setWordCount(10L);
+        return metadata;
+    }
+
+    @Configuration
+    @EnableCaching
+    static class CacheTestConfig {
+        final AnalysisMetadataRepository target = mock(AnalysisMetadataRepository.class);
+
+        @Bean
+        AnalysisMetadataRepository analysisMetadataRepository() {
+            return target;
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            CaffeineCacheManager cacheManager = new CaffeineCacheManager(AnalysisMetadataRepository.ANALYSES_CACHE);
+            cacheManager.setCaffeine(Caffeine.newBuilder().maximumSize(100).recordStats());
+            return cacheManager;
+        }
+    }
+}
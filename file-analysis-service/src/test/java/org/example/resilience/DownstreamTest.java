@@ -0,0 +1,102 @@
+package org.example.resilience;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.RetryConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DownstreamTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CircuitBreaker circuitBreaker;
+    private RetryConfig retryConfig;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        circuitBreaker = CircuitBreaker.ofDefaults("storage");
+        retryConfig = RetryConfig.custom()
+            .maxAttempts(3)
+            .waitDuration(Duration.ofMillis(1))
+            .retryExceptions(ResourceAccessException.class, HttpServerErrorException.class)
+            .build();
+    }
+
+    @Test
+    void call_WhenFailureIsTransient_ShouldRetryUntilItSucceeds() {
+        Downstream downstream = downstream(new RetryBudget(0.1, 10));
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = downstream.call(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ResourceAccessException("connection reset");
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2, retries("retried"));
+    }
+
+    @Test
+    void call_WhenFailureIsClientError_ShouldNotRetry() {
+        Downstream downstream = downstream(new RetryBudget(0.1, 10));
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(HttpClientErrorException.class, () -> downstream.call(() -> {
+            attempts.incrementAndGet();
+            throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+        }));
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void call_WhenRetryBudgetIsSpent_ShouldFailWithoutRetrying() {
+        Downstream downstream = downstream(new RetryBudget(0.1, 1));
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(HttpServerErrorException.class, () -> downstream.call(() -> {
+            attempts.incrementAndGet();
+            throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+        }));
+
+        assertEquals(2, attempts.get());
+        assertEquals(1, retries("retried"));
+        assertEquals(1, retries("over_budget"));
+    }
+
+    @Test
+    void call_WhenCircuitIsOpen_ShouldFailFastWithoutCalling() {
+        Downstream downstream = downstream(new RetryBudget(0.1, 10));
+        circuitBreaker.transitionToOpenState();
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(CallNotPermittedException.class, () -> downstream.call(attempts::incrementAndGet));
+
+        assertEquals(0, attempts.get());
+        assertEquals(0, retries("retried"));
+    }
+
+    private Downstream downstream(RetryBudget retryBudget) {
+        return new Downstream("storage", Bulkhead.ofDefaults("storage"), circuitBreaker, retryConfig, retryBudget,
+            meterRegistry);
+    }
+
+    private double retries(String outcome) {
+        return meterRegistry.get("downstream.retries").tag("outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,152 @@
+package org.example.service;
+
+import org.example.dto.AnalysisJobDTO;
+import org.example.dto.AnalysisJobStatus;
+import org.example.dto.AnalysisResponseDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnalysisJobServiceTest {
+
+    @Mock
+    private FileAnalysisService fileAnalysisService;
+
+    private final List<Runnable> queued = new ArrayList<>();
+    private AnalysisJobService analysisJobService;
+
+    @BeforeEach
+    void setUp() {
+        analysisJobService = new AnalysisJobService(fileAnalysisService, queued::add, Duration.ofMinutes(15));
+    }
+
+    @Test
+    void submit_ShouldQueueJobAndReportProgressAndResult() {
+        AnalysisResponseDTO result = new AnalysisResponseDTO();
+        result.setWordCount(42L);
+        when(fileAnalysisService.findAnalysis(1L)).thenReturn(Optional.empty());
+        AnalysisJobDTO job = analysisJobService.submit(1L);
+        when(fileAnalysisService.analyzeFile(eq(1L), any())).thenAnswer(invocation -> {
+            Consumer<AnalysisJobStatus> progress = invocation.getArgument(1);
+            progress.accept(AnalysisJobStatus.RENDERING_WORD_CLOUD);
+            assertEquals(AnalysisJobStatus.RENDERING_WORD_CLOUD,
+                    analysisJobService.getJob(job.getJobId()).orElseThrow().getStatus());
+            return result;
+        });
+
+        assertEquals(AnalysisJobStatus.QUEUED, job.getStatus());
+        assertEquals(1, queued.size());
+
+        queued.get(0).run();
+
+        AnalysisJobDTO completed = analysisJobService.getJob(job.getJobId()).orElseThrow();
+        assertEquals(AnalysisJobStatus.COMPLETED, completed.getStatus());
+        assertEquals(42L, completed.getResult().getWordCount());
+    }
+
+    @Test
+    void submit_WhenJobInFlight_ShouldJoinExistingJob() {
+        when(fileAnalysisService.findAnalysis(1L)).thenReturn(Optional.empty());
+
+        AnalysisJobDTO first = analysisJobService.submit(1L);
+        AnalysisJobDTO second = analysisJobService.submit(1L);
+
+        assertEquals(first.getJobId(), second.getJobId());
+        assertEquals(1, queued.size());
+    }
+
+    @Test
+    void submit_WhenAnalysisStored_ShouldReturnCompletedJobWithoutQueueing() {
+        AnalysisResponseDTO stored = new AnalysisResponseDTO();
+        when(fileAnalysisService.findAnalysis(1L)).thenReturn(Optional.of(stored));
+
+        AnalysisJobDTO job = analysisJobService.submit(1L);
+
+        assertEquals(AnalysisJobStatus.COMPLETED, job.getStatus());
+        assertSame(stored, job.getResult());
+        assertTrue(queued.isEmpty());
+    }
+
+    @Test
+    void submit_WhenAnalysisStored_ShouldReuseOneCompletedJobPerFile() {
+        when(fileAnalysisService.findAnalysis(1L)).thenReturn(Optional.of(new AnalysisResponseDTO()));
+
+        AnalysisJobDTO first = analysisJobService.submit(1L);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(first.getJobId(), analysisJobService.submit(1L).getJobId());
+        }
+
+        assertEquals(1, analysisJobService.jobCount());
+        assertTrue(analysisJobService.getJob(first.getJobId()).isPresent());
+    }
+
+    @Test
+    void submit_WhenStoredWordCloudIsPending_ShouldQueueJobToComplete() {
+        AnalysisResponseDTO pending = new AnalysisResponseDTO();
+        pending.setWordCloudPending(true);
+        when(fileAnalysisService.findAnalysis(1L)).thenReturn(Optional.of(pending));
+
+        AnalysisJobDTO job = analysisJobService.submit(1L);
+
+        assertEquals(AnalysisJobStatus.QUEUED, job.getStatus());
+        assertEquals(1, queued.size());
+    }
+
+    @Test
+    void purgeExpiredJobs_ShouldDropFinishedJobsAfterRetention() throws InterruptedException {
+        AnalysisJobService shortLived = new AnalysisJobService(fileAnalysisService, queued::add, Duration.ZERO);
+        when(fileAnalysisService.findAnalysis(anyLong())).thenReturn(Optional.empty());
+        when(fileAnalysisService.findAnalysis(1L)).thenReturn(Optional.of(new AnalysisResponseDTO()));
+        AnalysisJobDTO finished = shortLived.submit(1L);
+        AnalysisJobDTO running = shortLived.submit(2L);
+        Thread.sleep(5);
+
+        shortLived.purgeExpiredJobs();
+
+        assertTrue(shortLived.getJob(finished.getJobId()).isEmpty());
+        assertTrue(shortLived.getJob(running.getJobId()).isPresent());
+        assertNotEquals(finished.getJobId(), shortLived.submit(1L).getJobId());
+    }
+
+    @Test
+    void submit_WhenExecutorFull_ShouldRejectAndAllowRetry() {
+        when(fileAnalysisService.findAnalysis(1L)).thenReturn(Optional.empty());
+        AnalysisJobService saturated = new AnalysisJobService(fileAnalysisService, task -> {
+            throw new RejectedExecutionException("queue full");
+        }, Duration.ofMinutes(15));
+
+        assertThrows(RejectedExecutionException.class, () -> saturated.submit(1L));
+        assertThrows(RejectedExecutionException.class, () -> saturated.submit(1L));
+        verify(fileAnalysisService, never()).analyzeFile(any(), any());
+    }
+
+    @Test
+    void run_WhenAnalysisFails_ShouldMarkJobFailedAndReleaseFile() {
+        when(fileAnalysisService.findAnalysis(1L)).thenReturn(Optional.empty());
+        when(fileAnalysisService.analyzeFile(eq(1L), any())).thenThrow(new RuntimeException("storage unavailable"));
+
+        AnalysisJobDTO job = analysisJobService.submit(1L);
+        queued.get(0).run();
+
+        AnalysisJobDTO failed = analysisJobService.getJob(job.getJobId()).orElseThrow();
+        assertEquals(AnalysisJobStatus.FAILED, failed.getStatus());
+        assertEquals("storage unavailable", failed.getError());
+        assertNotEquals(job.getJobId(), analysisJobService.submit(1L).getJobId());
+    }
+}
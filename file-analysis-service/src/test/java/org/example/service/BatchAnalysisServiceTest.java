@@ -0,0 +1,121 @@
+package org.example.service;
+
+import org.example.dto.AnalysisResponseDTO;
+import org.example.dto.BatchAnalysisResultDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchAnalysisServiceTest {
+
+    @Mock
+    private FileAnalysisService fileAnalysisService;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void analyze_ShouldReportStoredAnalysesFirstAndAnalyseOnlyTheRest() throws Exception {
+        when(fileAnalysisService.findAnalyses(Set.of(1L, 2L, 3L))).thenReturn(Map.of(2L, analysis(20L)));
+        when(fileAnalysisService.analyzeFile(anyLong())).thenAnswer(invocation -> analysis(invocation.getArgument(0, Long.class) * 10));
+        BatchAnalysisService service = new BatchAnalysisService(fileAnalysisService, executor::execute, 2);
+
+        List<BatchAnalysisResultDTO> results = new ArrayList<>();
+        service.analyze(List.of(1L, 2L, 3L, 1L), results::add);
+
+        assertEquals(3, results.size());
+        assertEquals(2L, results.get(0).getFileId());
+        assertEquals(Set.of(1L, 3L), Set.of(results.get(1).getFileId(), results.get(2).getFileId()));
+        results.forEach(result -> assertEquals(result.getFileId() * 10, result.getAnalysis().getWordCount()));
+        verify(fileAnalysisService).findAnalyses(any());
+        verify(fileAnalysisService, never()).analyzeFile(2L);
+        verify(fileAnalysisService, times(1)).analyzeFile(1L);
+    }
+
+    @Test
+    void analyze_ShouldBoundConcurrentAnalyses() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(fileAnalysisService.findAnalyses(any())).thenReturn(Map.of());
+        when(fileAnalysisService.analyzeFile(anyLong())).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            return analysis(1L);
+        });
+        BatchAnalysisService service = new BatchAnalysisService(fileAnalysisService, executor::execute, 3);
+
+        List<Long> fileIds = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            fileIds.add(id);
+        }
+        List<BatchAnalysisResultDTO> results = new ArrayList<>();
+        service.analyze(fileIds, results::add);
+
+        assertEquals(20, results.size());
+        assertTrue(maxRunning.get() <= 3, "at most 3 analyses at a time, saw " + maxRunning.get());
+    }
+
+    @Test
+    void analyze_ShouldReportFailuresWithoutStoppingTheBatch() throws Exception {
+        when(fileAnalysisService.findAnalyses(any())).thenReturn(Map.of());
+        when(fileAnalysisService.analyzeFile(1L)).thenThrow(new RuntimeException("File not found"));
+        when(fileAnalysisService.analyzeFile(2L)).thenReturn(analysis(5L));
+        BatchAnalysisService service = new BatchAnalysisService(fileAnalysisService, executor::execute, 1);
+
+        List<BatchAnalysisResultDTO> results = new ArrayList<>();
+        service.analyze(List.of(1L, 2L), results::add);
+
+        assertEquals("File not found", results.get(0).getError());
+        assertNull(results.get(0).getAnalysis());
+        assertEquals(5L, results.get(1).getAnalysis().getWordCount());
+    }
+
+    @Test
+    void analyze_WhenExecutorIsFull_ShouldReportFileAsFailed() throws Exception {
+        when(fileAnalysisService.findAnalyses(any())).thenReturn(Map.of());
+        BatchAnalysisService service = new BatchAnalysisService(fileAnalysisService, task -> {
+            throw new RejectedExecutionException("full");
+        }, 2);
+
+        List<BatchAnalysisResultDTO> results = new ArrayList<>();
+        service.analyze(List.of(1L), results::add);
+
+        assertEquals(1, results.size());
+        assertEquals("Analysis queue is full", results.get(0).getError());
+        verify(fileAnalysisService, never()).analyzeFile(anyLong());
+    }
+
+    private static AnalysisResponseDTO analysis(Long wordCount) {
+        AnalysisResponseDTO analysis = new AnalysisResponseDTO();
+        analysis.setWordCount(wordCount);
+        return analysis;
+    }
+}
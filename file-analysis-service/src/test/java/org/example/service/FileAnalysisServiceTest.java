@@ -1,26 +1,51 @@
 package org.example.service;
 
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.example.dto.AnalysisResponseDTO;
+import org.example.dto.FileMetadataDTO;
 import org.example.dto.FilePlagiarismResponseDTO;
 import org.example.model.AnalysisMetadata;
 import org.example.repository.AnalysisMetadataRepository;
+import org.example.resilience.Downstreams;
+import org.example.wordcloud.WordCloudRenderer;
+import org.example.wordcloud.WordCloudStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.client.RestTemplate;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -33,17 +58,25 @@ class FileAnalysisServiceTest {
     @Mock
     private RestTemplate restTemplate;
 
+    @Mock
+    private WordCloudRenderer wordCloudRenderer;
+
+    @TempDir
+    Path wordClouds;
+
     private FileAnalysisService fileAnalysisService;
+    private SimpleMeterRegistry meterRegistry;
 
     private AnalysisMetadata testAnalysisMetadata;
     private FilePlagiarismResponseDTO testPlagiarismResponse;
 
     @BeforeEach
     void setUp() {
-        fileAnalysisService = spy(new FileAnalysisService(analysisMetadataRepository, restTemplate, "test-wordclouds"));
+        meterRegistry = new SimpleMeterRegistry();
+        fileAnalysisService = spy(new FileAnalysisService(analysisMetadataRepository, restTemplate, wordCloudRenderer,
+            new WordCloudStore(wordClouds, DataSize.ofMegabytes(1), meterRegistry),
+            meterRegistry, Downstreams.ofDefaults(meterRegistry)));
         ReflectionTestUtils.setField(fileAnalysisService, "fileStorageServiceUrl", "http://localhost:8080");
-        ReflectionTestUtils.setField(fileAnalysisService, "quickChartApiUrl", "https://quickchart.io/wordcloud");
-        ReflectionTestUtils.setField(fileAnalysisService, "wordCloudStoragePath", "test-wordclouds");
 
         testAnalysisMetadata = new AnalysisMetadata();
         testAnalysisMetadata.setId(1L);
@@ -80,8 +113,9 @@ class FileAnalysisServiceTest {
         when(analysisMetadataRepository.findByFileId(1L)).thenReturn(Optional.empty());
         when(analysisMetadataRepository.save(any(AnalysisMetadata.class))).thenReturn(testAnalysisMetadata);
         when(restTemplate.getForObject(
-            eq("http://localhost:8080/files/plagiarism/1"),
-            eq(FilePlagiarismResponseDTO.class)
+            eq("http://localhost:8080/files/plagiarism/{id}"),
+            eq(FilePlagiarismResponseDTO.class),
+            eq(1L)
         )).thenReturn(testPlagiarismResponse);
 
         // Мокаем вызов new URL(...).openStream() через spy
@@ -101,8 +135,264 @@ class FileAnalysisServiceTest {
         verify(analysisMetadataRepository).findByFileId(1L);
         verify(analysisMetadataRepository).save(any(AnalysisMetadata.class));
         verify(restTemplate).getForObject(
-            eq("http://localhost:8080/files/plagiarism/1"),
-            eq(FilePlagiarismResponseDTO.class)
+            eq("http://localhost:8080/files/plagiarism/{id}"),
+            eq(FilePlagiarismResponseDTO.class),
+            eq(1L)
         );
     }
-} 
\ No newline at end of file
+
+    @Test
+    void analyzeFile_ShouldTimeEachStage() throws Exception {
+        when(analysisMetadataRepository.findByFileId(1L)).thenReturn(Optional.empty());
+        when(analysisMetadataRepository.save(any(AnalysisMetadata.class))).thenReturn(testAnalysisMetadata);
+        doReturn(new ByteArrayInputStream("test text".getBytes()))
+            .when(fileAnalysisService)
+            .getFileInputStreamFromUrl(any());
+
+        fileAnalysisService.analyzeFile(1L);
+
+        for (String stage : List.of("fetch", "statistics", "word_cloud", "plagiarism_check", "save")) {
+            assertEquals(1, meterRegistry.get("analysis.stage").tag("stage", stage).timer().count(), stage);
+        }
+        assertEquals(1, meterRegistry.get("analysis.results").tag("source", "computed").counter().count());
+        assertEquals(0, meterRegistry.get("analysis.results").tag("source", "stored").counter().count());
+    }
+
+    @Test
+    void analyzeFile_WhenDocumentsAreIdentical_ShouldRenderOneSharedWordCloud() throws Exception {
+        when(analysisMetadataRepository.findByFileId(any())).thenReturn(Optional.empty());
+        when(analysisMetadataRepository.save(any(AnalysisMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(wordCloudRenderer.render(any(), anyInt(), anyInt())).thenReturn(new byte[] {1, 2, 3});
+        doAnswer(invocation -> new ByteArrayInputStream("identical essay text".getBytes()))
+            .when(fileAnalysisService)
+            .getFileInputStreamFromUrl(any());
+
+        AnalysisResponseDTO first = fileAnalysisService.analyzeFile(1L);
+        AnalysisResponseDTO second = fileAnalysisService.analyzeFile(2L);
+
+        assertNotNull(first.getWordCloudPath());
+        assertEquals(first.getWordCloudPath(), second.getWordCloudPath());
+        assertTrue(first.getWordCloudPath().matches("[0-9a-f]{64}\\.png"));
+        assertArrayEquals(new byte[] {1, 2, 3}, Files.readAllBytes(wordClouds.resolve(first.getWordCloudPath())));
+        verify(wordCloudRenderer, times(1)).render(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void restoreWordCloud_WhenEvictedImageIsLinked_ShouldRenderItAgainUnderSameName() throws Exception {
+        when(analysisMetadataRepository.findByFileId(1L)).thenReturn(Optional.empty());
+        when(analysisMetadataRepository.save(any(AnalysisMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(wordCloudRenderer.render(any(), anyInt(), anyInt())).thenReturn(new byte[] {1, 2, 3});
+        doAnswer(invocation -> new ByteArrayInputStream("essay about plagiarism detection".getBytes()))
+            .when(fileAnalysisService)
+            .getFileInputStreamFromUrl(any());
+        String fileName = fileAnalysisService.analyzeFile(1L).getWordCloudPath();
+        Files.delete(wordClouds.resolve(fileName));
+        AnalysisMetadata linked = new AnalysisMetadata();
+        linked.setFileId(1L);
+        linked.setWordCloudPath(fileName);
+        when(analysisMetadataRepository.findFirstByWordCloudPath(fileName)).thenReturn(Optional.of(linked));
+
+        Optional<Path> restored = fileAnalysisService.restoreWordCloud(fileName);
+
+        assertTrue(restored.isPresent());
+        assertEquals(fileName, restored.get().getFileName().toString());
+        assertArrayEquals(new byte[] {1, 2, 3}, Files.readAllBytes(restored.get()));
+        verify(wordCloudRenderer, times(2)).render(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void restoreWordCloud_WhenContentNoLongerMatchesName_ShouldNotStoreImage() throws Exception {
+        String fileName = "0".repeat(64) + ".png";
+        AnalysisMetadata linked = new AnalysisMetadata();
+        linked.setFileId(1L);
+        linked.setWordCloudPath(fileName);
+        when(analysisMetadataRepository.findFirstByWordCloudPath(fileName)).thenReturn(Optional.of(linked));
+        doReturn(new ByteArrayInputStream("essay about plagiarism detection".getBytes()))
+            .when(fileAnalysisService)
+            .getFileInputStreamFromUrl(any());
+
+        assertTrue(fileAnalysisService.restoreWordCloud(fileName).isEmpty());
+        verify(wordCloudRenderer, never()).render(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void restoreWordCloud_WhenNoAnalysisLinksToImage_ShouldNotFindIt() throws Exception {
+        when(analysisMetadataRepository.findFirstByWordCloudPath("missing.png")).thenReturn(Optional.empty());
+
+        assertTrue(fileAnalysisService.restoreWordCloud("missing.png").isEmpty());
+        verify(wordCloudRenderer, never()).render(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void analyzeFile_WhenWordCloudRendererIsUnavailable_ShouldSaveAnalysisWithoutWordCloud() throws Exception {
+        CircuitBreaker quickChart = CircuitBreaker.ofDefaults("quickchart");
+        quickChart.transitionToOpenState();
+        when(analysisMetadataRepository.findByFileId(1L)).thenReturn(Optional.empty());
+        when(analysisMetadataRepository.save(any(AnalysisMetadata.class))).thenReturn(testAnalysisMetadata);
+        when(wordCloudRenderer.render(any(), anyInt(), anyInt()))
+            .thenThrow(CallNotPermittedException.createCallNotPermittedException(quickChart));
+        doReturn(new ByteArrayInputStream("test text".getBytes()))
+            .when(fileAnalysisService)
+            .getFileInputStreamFromUrl(any());
+
+        fileAnalysisService.analyzeFile(1L);
+
+        ArgumentCaptor<AnalysisMetadata> saved = ArgumentCaptor.forClass(AnalysisMetadata.class);
+        verify(analysisMetadataRepository).save(saved.capture());
+        assertNull(saved.getValue().getWordCloudPath());
+        assertTrue(saved.getValue().getWordCloudPending());
+        assertEquals(2, saved.getValue().getWordCount());
+    }
+
+    @Test
+    void analyzeFile_WhenWordCloudIsPending_ShouldRenderItAndClearFlag() throws Exception {
+        testAnalysisMetadata.setWordCloudPath(null);
+        testAnalysisMetadata.setWordCloudPending(true);
+        when(analysisMetadataRepository.findByFileId(1L)).thenReturn(Optional.of(testAnalysisMetadata));
+        when(analysisMetadataRepository.save(any(AnalysisMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(wordCloudRenderer.render(any(), anyInt(), anyInt())).thenReturn(new byte[] {1, 2, 3});
+        doReturn(new ByteArrayInputStream("essay about plagiarism detection".getBytes()))
+            .when(fileAnalysisService)
+            .getFileInputStreamFromUrl(any());
+
+        AnalysisResponseDTO response = fileAnalysisService.analyzeFile(1L);
+
+        assertNotNull(response.getWordCloudPath());
+        assertFalse(response.getWordCloudPending());
+        assertEquals(testAnalysisMetadata.getWordCount(), response.getWordCount());
+        verify(analysisMetadataRepository).save(testAnalysisMetadata);
+    }
+
+    @Test
+    void analyzeFile_WhenPendingWordCloudFailsAgain_ShouldKeepItPending() throws Exception {
+        CircuitBreaker quickChart = CircuitBreaker.ofDefaults("quickchart");
+        quickChart.transitionToOpenState();
+        testAnalysisMetadata.setWordCloudPath(null);
+        testAnalysisMetadata.setWordCloudPending(true);
+        when(analysisMetadataRepository.findByFileId(1L)).thenReturn(Optional.of(testAnalysisMetadata));
+        when(wordCloudRenderer.render(any(), anyInt(), anyInt()))
+            .thenThrow(CallNotPermittedException.createCallNotPermittedException(quickChart));
+        doReturn(new ByteArrayInputStream("test text".getBytes()))
+            .when(fileAnalysisService)
+            .getFileInputStreamFromUrl(any());
+
+        AnalysisResponseDTO response = fileAnalysisService.analyzeFile(1L);
+
+        assertNull(response.getWordCloudPath());
+        assertTrue(response.getWordCloudPending());
+        verify(analysisMetadataRepository, never()).save(any());
+    }
+
+    @Test
+    void analyzeFile_WhenFileIsOnUploadsVolume_ShouldMapItInsteadOfStreaming(@TempDir Path uploads) throws Exception {
+        String text = "Привет, мир";
+        byte[] content = text.getBytes(Charset.forName("windows-1251"));
+        Files.createDirectories(uploads.resolve("blobs/ab"));
+        Files.write(uploads.resolve("blobs/ab/abcd"), content);
+        FileMetadataDTO fileMetadata = new FileMetadataDTO();
+        fileMetadata.setId(1L);
+        fileMetadata.setSize((long) content.length);
+        fileMetadata.setLocation("blobs/ab/abcd");
+        ReflectionTestUtils.setField(fileAnalysisService, "uploadsLocation", uploads.toString());
+        when(analysisMetadataRepository.findByFileId(1L)).thenReturn(Optional.empty());
+        when(analysisMetadataRepository.save(any(AnalysisMetadata.class))).thenReturn(testAnalysisMetadata);
+        when(restTemplate.getForObject(
+            eq("http://localhost:8080/files/{id}/metadata"),
+            eq(FileMetadataDTO.class),
+            eq(1L)
+        )).thenReturn(fileMetadata);
+
+        fileAnalysisService.analyzeFile(1L);
+
+        ArgumentCaptor<AnalysisMetadata> saved = ArgumentCaptor.forClass(AnalysisMetadata.class);
+        verify(analysisMetadataRepository).save(saved.capture());
+        assertEquals(text.length(), saved.getValue().getCharacterCount());
+        assertEquals(2, saved.getValue().getWordCount());
+        verify(fileAnalysisService, never()).getFileInputStreamFromUrl(any());
+        assertEquals(1, meterRegistry.get("analysis.reads").tag("source", "mapped").counter().count());
+    }
+
+    @Test
+    void analyzeFile_WhenLocationEscapesUploadsVolume_ShouldStreamFile(@TempDir Path uploads) throws Exception {
+        FileMetadataDTO fileMetadata = new FileMetadataDTO();
+        fileMetadata.setId(1L);
+        fileMetadata.setSize(9L);
+        fileMetadata.setLocation("../outside.txt");
+        Files.writeString(uploads.resolveSibling("outside.txt"), "test text");
+        ReflectionTestUtils.setField(fileAnalysisService, "uploadsLocation", uploads.toString());
+        when(analysisMetadataRepository.findByFileId(1L)).thenReturn(Optional.empty());
+        when(analysisMetadataRepository.save(any(AnalysisMetadata.class))).thenReturn(testAnalysisMetadata);
+        when(restTemplate.getForObject(
+            eq("http://localhost:8080/files/{id}/metadata"),
+            eq(FileMetadataDTO.class),
+            eq(1L)
+        )).thenReturn(fileMetadata);
+        doReturn(new ByteArrayInputStream("test text".getBytes()))
+            .when(fileAnalysisService)
+            .getFileInputStreamFromUrl(any());
+
+        fileAnalysisService.analyzeFile(1L);
+
+        verify(fileAnalysisService).getFileInputStreamFromUrl("http://localhost:8080/files/1");
+        assertEquals(1, meterRegistry.get("analysis.reads").tag("source", "http").counter().count());
+    }
+
+    @Test
+    void analyzeFile_WhenCalledConcurrently_ShouldFetchFileOnce() throws Exception {
+        int requests = 200;
+        AtomicReference<AnalysisMetadata> stored = new AtomicReference<>();
+        AtomicInteger fetches = new AtomicInteger();
+        when(analysisMetadataRepository.findByFileId(1L)).thenAnswer(invocation -> Optional.ofNullable(stored.get()));
+        when(analysisMetadataRepository.save(any(AnalysisMetadata.class))).thenAnswer(invocation -> {
+            AnalysisMetadata metadata = invocation.getArgument(0);
+            metadata.setId(1L);
+            stored.set(metadata);
+            return metadata;
+        });
+        when(restTemplate.getForObject(anyString(), eq(FilePlagiarismResponseDTO.class), eq(1L))).thenReturn(testPlagiarismResponse);
+        doAnswer(invocation -> {
+            fetches.incrementAndGet();
+            Thread.sleep(100);
+            return new ByteArrayInputStream("one two three. four five".getBytes());
+        }).when(fileAnalysisService).getFileInputStreamFromUrl(any());
+
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<AnalysisResponseDTO>> results = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return fileAnalysisService.analyzeFile(1L);
+                }));
+            }
+            start.countDown();
+
+            for (Future<AnalysisResponseDTO> result : results) {
+                assertEquals(5L, result.get(10, TimeUnit.SECONDS).getWordCount());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, fetches.get());
+        verify(analysisMetadataRepository, times(1)).save(any(AnalysisMetadata.class));
+    }
+
+    @Test
+    void analyzeFile_WhenSavedConcurrentlyElsewhere_ShouldReturnStoredAnalysis() throws Exception {
+        when(analysisMetadataRepository.findByFileId(1L))
+            .thenReturn(Optional.empty())
+            .thenReturn(Optional.of(testAnalysisMetadata));
+        when(analysisMetadataRepository.save(any(AnalysisMetadata.class)))
+            .thenThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint"));
+        doReturn(new ByteArrayInputStream("test text".getBytes()))
+            .when(fileAnalysisService)
+            .getFileInputStreamFromUrl(any());
+
+        AnalysisResponseDTO response = fileAnalysisService.analyzeFile(1L);
+
+        assertEquals(testAnalysisMetadata.getWordCount(), response.getWordCount());
+        assertEquals(testAnalysisMetadata.getWordCloudPath(), response.getWordCloudPath());
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.repository.UploadEventRepository;
+import org.example.repository.UploadEventRepository.UploadEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UploadEventConsumerTest {
+    private static final Duration LEASE = Duration.ofMinutes(5);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+
+    @Mock
+    private UploadEventRepository uploadEventRepository;
+
+    @Mock
+    private FileAnalysisService fileAnalysisService;
+
+    private final List<Runnable> submitted = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void poll_ShouldAnalyseClaimedFilesAndDeleteTheirEventsInOneBatch() {
+        when(uploadEventRepository.claim(2, LEASE, 5))
+                .thenReturn(List.of(new UploadEvent(10L, 1L, 1), new UploadEvent(11L, 2L, 1)));
+        UploadEventConsumer consumer = consumer(4, 2);
+
+        consumer.poll();
+        submitted.forEach(Runnable::run);
+        consumer.poll();
+
+        verify(fileAnalysisService).analyzeFile(1L);
+        verify(fileAnalysisService).analyzeFile(2L);
+        verify(uploadEventRepository).delete(List.of(10L, 11L));
+    }
+
+    @Test
+    void poll_ShouldReleaseFailedEventsWithBackoff() {
+        when(uploadEventRepository.claim(anyInt(), any(), anyInt())).thenReturn(List.of(new UploadEvent(10L, 1L, 3)));
+        when(fileAnalysisService.analyzeFile(1L)).thenThrow(new RuntimeException("storage unavailable"));
+        UploadEventConsumer consumer = consumer(4, 50);
+
+        consumer.poll();
+        submitted.forEach(Runnable::run);
+
+        verify(uploadEventRepository).release(10L, RETRY_DELAY.multipliedBy(3));
+        verify(uploadEventRepository, never()).delete(any());
+    }
+
+    @Test
+    void poll_WhenLastAttemptFails_ShouldDeadLetterEvent() {
+        when(uploadEventRepository.claim(anyInt(), any(), anyInt())).thenReturn(List.of(new UploadEvent(10L, 1L, 5)));
+        when(fileAnalysisService.analyzeFile(1L)).thenThrow(new RuntimeException("unreadable file"));
+        UploadEventConsumer consumer = consumer(4, 50);
+
+        consumer.poll();
+        submitted.forEach(Runnable::run);
+        consumer.poll();
+
+        verify(uploadEventRepository, never()).release(anyLong(), any());
+        verify(uploadEventRepository).delete(List.of(10L));
+        assertEquals(1.0, meterRegistry.counter("analysis.outbox.dead.lettered").count());
+    }
+
+    @Test
+    void sweepExhausted_ShouldCountEventsLeftByDeadConsumers() {
+        when(uploadEventRepository.deleteExhausted(5))
+                .thenReturn(List.of(new UploadEvent(10L, 1L, 5), new UploadEvent(11L, 2L, 5)));
+
+        consumer(4, 50).sweepExhausted();
+
+        assertEquals(2.0, meterRegistry.counter("analysis.outbox.dead.lettered").count());
+    }
+
+    @Test
+    void poll_ShouldClaimNothingWhileAllSlotsAreBusy() {
+        when(uploadEventRepository.claim(anyInt(), any(), anyInt()))
+                .thenReturn(List.of(new UploadEvent(10L, 1L, 1), new UploadEvent(11L, 2L, 1)))
+                .thenReturn(List.of(new UploadEvent(12L, 3L, 1)));
+        UploadEventConsumer consumer = consumer(2, 50);
+
+        consumer.poll();
+        consumer.poll();
+
+        verify(uploadEventRepository, times(1)).claim(anyInt(), any(), anyInt());
+        verify(uploadEventRepository).claim(2, LEASE, 5);
+        assertEquals(2, submitted.size());
+
+        submitted.get(0).run();
+        consumer.poll();
+
+        verify(uploadEventRepository).claim(1, LEASE, 5);
+        assertEquals(3, submitted.size());
+    }
+
+    private UploadEventConsumer consumer(int maxInFlight, int batchSize) {
+        return new UploadEventConsumer(uploadEventRepository, fileAnalysisService, submitted::add,
+                maxInFlight, batchSize, LEASE, 5, RETRY_DELAY, meterRegistry);
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.wordcloud;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalWordCloudRendererTest {
+
+    private final LocalWordCloudRenderer renderer = new LocalWordCloudRenderer("SansSerif");
+
+    @Test
+    void render_ShouldProducePngOfRequestedSize() throws IOException {
+        byte[] png = renderer.render(frequencies(150), 1000, 1000);
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertEquals(1000, image.getWidth());
+        assertEquals(1000, image.getHeight());
+    }
+
+    @Test
+    void render_WhenNoWords_ShouldReturnNull() throws IOException {
+        assertNull(renderer.render(Map.of(), 1000, 1000));
+    }
+
+    private static Map<String, Integer> frequencies(int words) {
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        for (int i = 0; i < words; i++) {
+            frequencies.put((i % 2 == 0 ? "слово" : "word") + i, 1000 / (i + 1));
+        }
+        return frequencies;
+    }
+}
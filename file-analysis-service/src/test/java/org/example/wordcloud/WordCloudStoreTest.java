@@ -0,0 +1,100 @@
+package org.example.wordcloud;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WordCloudStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private WordCloudStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new WordCloudStore(directory, DataSize.ofBytes(2000), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void key_ShouldDependOnTermsWeightsAndSize() {
+        Map<String, Integer> terms = new LinkedHashMap<>();
+        terms.put("плагиат", 3);
+        terms.put("текст", 2);
+
+        String key = WordCloudStore.key(terms, 1000, 1000);
+
+        assertEquals(key, WordCloudStore.key(new LinkedHashMap<>(terms), 1000, 1000));
+        assertNotEquals(key, WordCloudStore.key(terms, 800, 1000));
+        terms.put("текст", 1);
+        assertNotEquals(key, WordCloudStore.key(terms, 1000, 1000));
+    }
+
+    @Test
+    void store_ShouldMakeImageFindableByKeyWithoutLeavingTemporaryFiles() throws IOException {
+        String key = "ab".repeat(32);
+
+        assertTrue(store.find(key).isEmpty());
+        String fileName = store.store(key, new byte[] {1, 2, 3});
+
+        assertEquals(key + ".png", fileName);
+        assertEquals(fileName, store.find(key).orElseThrow());
+        assertArrayEquals(new byte[] {1, 2, 3}, Files.readAllBytes(store.resolve(fileName).orElseThrow()));
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void resolve_WhenNameIsNotAnImageOfTheStore_ShouldNotFindIt() throws IOException {
+        Files.writeString(directory.resolveSibling("secret.png"), "secret");
+        Files.writeString(directory.resolve("notes.txt"), "notes");
+
+        assertTrue(store.resolve("../secret.png").isEmpty());
+        assertTrue(store.resolve("notes.txt").isEmpty());
+        assertTrue(store.resolve("cafe.png").isEmpty());
+    }
+
+    @Test
+    void resolve_ShouldFindImagesNamedByTimestamp() throws IOException {
+        Files.write(directory.resolve("1712345678901.png"), new byte[] {1});
+
+        assertTrue(store.resolve("1712345678901.png").isPresent());
+    }
+
+    @Test
+    void collectGarbage_WhenOverLimit_ShouldEvictLeastRecentlyUsedImagesAndAbandonedTemporaryFiles() throws IOException {
+        Instant now = Instant.now();
+        Path oldest = image("a1", 1000, now.minus(Duration.ofDays(3)));
+        Path older = image("a2", 1000, now.minus(Duration.ofDays(2)));
+        Path recent = image("a3", 1000, now.minus(Duration.ofDays(1)));
+        Path abandoned = Files.write(directory.resolve("a4.png123.tmp"), new byte[10]);
+        Files.setLastModifiedTime(abandoned, FileTime.from(now.minus(Duration.ofDays(1))));
+
+        store.collectGarbage();
+
+        assertFalse(Files.exists(oldest));
+        assertFalse(Files.exists(older));
+        assertTrue(Files.exists(recent));
+        assertFalse(Files.exists(abandoned));
+    }
+
+    private Path image(String key, int size, Instant lastUsed) throws IOException {
+        Path image = Files.write(directory.resolve(key + ".png"), new byte[size]);
+        Files.setLastModifiedTime(image, FileTime.from(lastUsed));
+        return image;
+    }
+}
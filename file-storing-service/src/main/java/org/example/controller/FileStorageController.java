@@ -1,20 +1,41 @@
 package org.example.controller;
 
+import org.example.dto.BulkUploadResponseDTO;
+import org.example.dto.FileMetadataDTO;
 import org.example.dto.FilePlagiarismResponseDTO;
+import org.example.dto.FileSimilarityResponseDTO;
+import org.example.dto.FragmentSearchResponseDTO;
+import org.example.dto.SimilarityReportDTO;
+import org.example.dto.SimilarityReportRequestDTO;
 import org.example.exception.FileMetadataNotFoundException;
 import org.example.exception.FileNotFoundException;
+import org.example.exception.TooManyFilesException;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.example.dto.FileUploadResponseDTO;
+import org.example.service.BulkUploadService;
 import org.example.service.FileStorageService;
+import org.example.service.FragmentIndexService;
+import org.example.service.SimilarityReportService;
 import org.example.dto.FileResource;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
 import java.util.Objects;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -30,11 +51,31 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "File Storage", description = "API for storing and retrieving files")
 public class FileStorageController {
 
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+    private static final Duration PLAGIARISM_MAX_AGE = Duration.ofSeconds(60);
+
+    private static final double DEFAULT_REPORT_THRESHOLD = 0.8;
+    private static final int MAX_FRAGMENT_QUERY_LENGTH = 1_000_000;
+
     private final FileStorageService fileStorageService;
+    private final SimilarityReportService similarityReportService;
+    private final FragmentIndexService fragmentIndexService;
+    private final BulkUploadService bulkUploadService;
+
+    @Value("${similarity.report.max-files:10000}")
+    private int reportMaxFiles = 10000;
 
     @Autowired
-    public FileStorageController(FileStorageService fileStorageService) {
+    public FileStorageController(FileStorageService fileStorageService, SimilarityReportService similarityReportService,
+                                 FragmentIndexService fragmentIndexService, BulkUploadService bulkUploadService) {
         this.fileStorageService = fileStorageService;
+        this.similarityReportService = similarityReportService;
+        this.fragmentIndexService = fragmentIndexService;
+        this.bulkUploadService = bulkUploadService;
     }
 
     @Operation(summary = "Upload a text file", description = "Uploads a new text file and returns its ID")
@@ -64,29 +105,84 @@ public class FileStorageController {
         }
     }
 
-    @Operation(summary = "Get file content by ID", description = "Retrieves the content of a file by its ID")
+    @Operation(summary = "Upload many text files at once",
+               description = "Uploads .txt files and .zip archives of them in one request. Accepted files are stored together; every file gets its own result")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Files processed, at least one of them stored",
+                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                        schema = @Schema(implementation = BulkUploadResponseDTO.class))),
+        @ApiResponse(responseCode = "400", description = "No files, too many files, or none of the files could be stored"),
+        @ApiResponse(responseCode = "500", description = "Internal server error during file processing")
+    })
+    @PostMapping(value = "/upload/bulk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+                 produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkUploadResponseDTO> uploadFiles(
+            @Parameter(description = "The .txt files and .zip archives to upload")
+            @RequestParam("files") List<MultipartFile> files) {
+        if (files.isEmpty()) {
+            return ResponseEntity.badRequest().body(null);
+        }
+
+        try {
+            BulkUploadResponseDTO response = bulkUploadService.upload(files);
+            boolean stored = response.getFiles().stream().anyMatch(entry -> entry.getId() != null);
+            return ResponseEntity.status(stored ? HttpStatus.CREATED : HttpStatus.BAD_REQUEST).body(response);
+        } catch (TooManyFilesException e) {
+            return ResponseEntity.badRequest().body(null);
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    @Operation(summary = "Get file content by ID",
+               description = "Retrieves the content of a file by its ID. Supports conditional requests by ETag and byte ranges")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "File retrieved successfully",
                      content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE,
                                         schema = @Schema(type = "string", format = "binary"))),
+        @ApiResponse(responseCode = "206", description = "Requested byte range of the file"),
+        @ApiResponse(responseCode = "304", description = "File has not changed since the given ETag"),
         @ApiResponse(responseCode = "404", description = "File not found"),
+        @ApiResponse(responseCode = "416", description = "Requested range not satisfiable"),
         @ApiResponse(responseCode = "500", description = "Internal server error during file retrieval")
     })
     @GetMapping(value = "/{id}", produces = MediaType.TEXT_PLAIN_VALUE)
-    public ResponseEntity<byte[]> getFile(
+    public ResponseEntity<Resource> getFile(
             @Parameter(description = "ID of the file to retrieve", required = true)
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            HttpServletRequest request,
+            WebRequest webRequest) {
         try {
             FileResource fileResource = fileStorageService.loadFileAsResource(id);
-            byte[] fileContent = fileResource.getInputStream().readAllBytes();
-            String filename = fileResource.getFilename();
+            String eTag = "\"" + fileResource.getHash() + "\"";
+            if (webRequest.checkNotModified(eTag)) {
+                return null;
+            }
 
             HttpHeaders headers = new HttpHeaders();
-            headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+            // Quotes and control characters are escaped and non-ASCII names sent as RFC 5987 filename*
+            headers.setContentDisposition(ContentDisposition.attachment()
+                    .filename(fileResource.getFilename(), StandardCharsets.UTF_8)
+                    .build());
+            headers.setETag(eTag);
+
+            if (canUseSendfile(request, fileResource)) {
+                // Tomcat writes the file straight from the page cache to the socket after the handler returns
+                request.setAttribute(SENDFILE_FILENAME_ATTR, fileResource.getPath().toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START_ATTR, 0L);
+                request.setAttribute(SENDFILE_END_ATTR, fileResource.getSize());
+                headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+                return ResponseEntity.ok()
+                        .headers(headers)
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .contentLength(fileResource.getSize())
+                        .build();
+            }
 
+            // Spring streams resources with a fixed-size buffer and answers Range requests with 206
             return ResponseEntity.ok()
                     .headers(headers)
-                    .body(fileContent);
+                    .body(new FileSystemResource(fileResource.getPath()));
 
         } catch (FileMetadataNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
@@ -95,6 +191,52 @@ public class FileStorageController {
         }
     }
 
+    private boolean canUseSendfile(HttpServletRequest request, FileResource fileResource) {
+        return HttpMethod.GET.matches(request.getMethod())
+                && request.getHeader(HttpHeaders.RANGE) == null
+                && fileResource.getSize() >= SENDFILE_MIN_SIZE
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR));
+    }
+
+    @Operation(summary = "Get file metadata by ID",
+               description = "Retrieves the name, hash, size and storage location of a file without its content")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "File metadata retrieved successfully",
+                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                        schema = @Schema(implementation = FileMetadataDTO.class))),
+        @ApiResponse(responseCode = "404", description = "File not found")
+    })
+    @GetMapping(value = "/{id}/metadata", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<FileMetadataDTO> getFileMetadata(
+            @Parameter(description = "ID of the file", required = true)
+            @PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(fileStorageService.getFileMetadata(id));
+        } catch (FileMetadataNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        }
+    }
+
+    @Operation(summary = "Delete file by ID", description = "Deletes a file; its content is removed once no other file shares it")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "File deleted successfully"),
+        @ApiResponse(responseCode = "404", description = "File not found"),
+        @ApiResponse(responseCode = "500", description = "Internal server error during file deletion")
+    })
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteFile(
+            @Parameter(description = "ID of the file to delete", required = true)
+            @PathVariable Long id) {
+        try {
+            fileStorageService.deleteFile(id);
+            return ResponseEntity.noContent().build();
+        } catch (FileMetadataNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @Operation(summary = "Get file plagiarism by ID", description = "Retrieves the plagiarism of a file by its ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "File plagiarism retrieved successfully",
@@ -106,14 +248,91 @@ public class FileStorageController {
     @GetMapping(value = "/plagiarism/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<FilePlagiarismResponseDTO> getPlagiarism(
             @Parameter(description = "ID of the file to retrieve", required = true)
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            WebRequest webRequest) {
         try {
             FilePlagiarismResponseDTO response = fileStorageService.checkPlagiarism(id);
-            return ResponseEntity.ok().body(response);
+            // The earlier copy may be deleted later, so the result is only cached briefly
+            String eTag = "\"" + id + "-" + response.getPlagiarismFileId() + "\"";
+            if (webRequest.checkNotModified(eTag)) {
+                return null;
+            }
+            return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.maxAge(PLAGIARISM_MAX_AGE).cachePublic())
+                .body(response);
         } catch (FileMetadataNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
         } catch (FileNotFoundException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
     }
-} 
\ No newline at end of file
+
+    @Operation(summary = "Get near-duplicate files by ID",
+               description = "Finds files whose word shingles are similar to the file with the given ID, scored by estimated Jaccard similarity")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Similar files retrieved successfully",
+                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                        schema = @Schema(implementation = FileSimilarityResponseDTO.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid threshold or limit"),
+        @ApiResponse(responseCode = "404", description = "File not found")
+    })
+    @GetMapping(value = "/plagiarism/{id}/similar", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<FileSimilarityResponseDTO> getSimilarFiles(
+            @Parameter(description = "ID of the file to check", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Minimum estimated similarity, from 0 to 1")
+            @RequestParam(defaultValue = "0.8") double threshold,
+            @Parameter(description = "Maximum number of returned files")
+            @RequestParam(defaultValue = "10") int limit) {
+        if (threshold < 0 || threshold > 1 || limit <= 0) {
+            return ResponseEntity.badRequest().body(null);
+        }
+        try {
+            FileSimilarityResponseDTO response = fileStorageService.findSimilarFiles(id, threshold, limit);
+            return ResponseEntity.ok().body(response);
+        } catch (FileMetadataNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        }
+    }
+
+    @Operation(summary = "Build a similarity report",
+               description = "Compares the given files with each other and groups those whose word shingles are similar above the threshold")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Similarity report built successfully",
+                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                        schema = @Schema(implementation = SimilarityReportDTO.class))),
+        @ApiResponse(responseCode = "400", description = "No file IDs, a null ID, too many IDs or an invalid threshold")
+    })
+    @PostMapping(value = "/similarity-report", consumes = MediaType.APPLICATION_JSON_VALUE,
+                 produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<SimilarityReportDTO> buildSimilarityReport(@RequestBody SimilarityReportRequestDTO request) {
+        double threshold = request.getThreshold() != null ? request.getThreshold() : DEFAULT_REPORT_THRESHOLD;
+        if (request.getFileIds() == null || request.getFileIds().isEmpty() || request.getFileIds().contains(null)
+                || request.getFileIds().size() > reportMaxFiles || threshold < 0 || threshold > 1) {
+            return ResponseEntity.badRequest().body(null);
+        }
+        return ResponseEntity.ok().body(similarityReportService.buildReport(request.getFileIds(), threshold));
+    }
+
+    @Operation(summary = "Find stored files sharing passages with a text",
+               description = "Looks up the word shingles of the text in the fragment index and returns the matching passages of every stored file that contains them")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Search completed successfully",
+                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                        schema = @Schema(implementation = FragmentSearchResponseDTO.class))),
+        @ApiResponse(responseCode = "400", description = "Empty or too long text, or invalid limit")
+    })
+    @PostMapping(value = "/fragments/search", consumes = MediaType.TEXT_PLAIN_VALUE,
+                 produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<FragmentSearchResponseDTO> searchFragments(
+            @Parameter(description = "Text to look for")
+            @RequestBody String text,
+            @Parameter(description = "Maximum number of returned files")
+            @RequestParam(defaultValue = "10") int limit) {
+        if (text.isBlank() || text.length() > MAX_FRAGMENT_QUERY_LENGTH || limit <= 0) {
+            return ResponseEntity.badRequest().body(null);
+        }
+        return ResponseEntity.ok().body(fragmentIndexService.search(text, limit));
+    }
+}
@@ -2,16 +2,20 @@ package org.example.dto;
 
 import lombok.Getter;
 
-import java.io.InputStream;
+import java.nio.file.Path;
 
 @Getter
 public class FileResource {
-    private final InputStream inputStream;
+    private final Path path;
     private final String filename;
+    private final String hash;
+    private final long size;
 
-    public FileResource(InputStream inputStream, String filename) {
-        this.inputStream = inputStream;
+    public FileResource(Path path, String filename, String hash, long size) {
+        this.path = path;
         this.filename = filename;
+        this.hash = hash;
+        this.size = size;
     }
 
-}
\ No newline at end of file
+}
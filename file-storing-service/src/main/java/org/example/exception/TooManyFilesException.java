@@ -0,0 +1,7 @@
+package org.example.exception;
+
+public class TooManyFilesException extends FileStorageException {
+    public TooManyFilesException(String message) {
+        super(message);
+    }
+}
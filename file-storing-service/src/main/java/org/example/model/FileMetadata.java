@@ -4,14 +4,21 @@ import jakarta.persistence.*;
 import lombok.Data;
 
 @Entity
-@Table(name = "file_metadata")
+@Table(name = "file_metadata", indexes = {
+    @Index(name = "idx_file_metadata_hash", columnList = "hash")
+})
 @Data
 public class FileMetadata {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "file_metadata_seq")
+    @SequenceGenerator(name = "file_metadata_seq", sequenceName = "file_metadata_seq", allocationSize = 50)
     private Long id;
 
     private String name;
     private String hash;
+    private Long size;
     private String location;
+
+    @Column(name = "min_hash_signature")
+    private byte[] minHashSignature;
 }
@@ -0,0 +1,53 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.Instant;
+
+/**
+ * Event written in the same transaction as the change it describes; consumers poll the table,
+ * so an event is published if and only if the change is committed.
+ */
+@Entity
+@Table(name = "outbox_event", indexes = {
+    @Index(name = "idx_outbox_event_available_at", columnList = "event_type, available_at")
+})
+@Data
+public class OutboxEvent {
+    public static final String FILE_UPLOADED = "FILE_UPLOADED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    @SequenceGenerator(name = "outbox_event_seq", sequenceName = "outbox_event_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    @Column(name = "file_id", nullable = false)
+    private Long fileId;
+
+    /** Set by the database on insert: consumers compare it with the database clock, not this JVM's */
+    @ColumnDefault("now()")
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false)
+    private Instant createdAt;
+
+    @ColumnDefault("now()")
+    @Column(name = "available_at", nullable = false, insertable = false, updatable = false)
+    private Instant availableAt;
+
+    @Column(name = "claimed_until")
+    private Instant claimedUntil;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    public static OutboxEvent fileUploaded(Long fileId) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(FILE_UPLOADED);
+        event.setFileId(fileId);
+        return event;
+    }
+}
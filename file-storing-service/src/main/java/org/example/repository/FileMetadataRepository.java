@@ -1,12 +1,26 @@
 package org.example.repository;
 
 import org.example.model.FileMetadata;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface FileMetadataRepository extends JpaRepository<FileMetadata, Long> {
     List<FileMetadata> findByHash(String hash);
-}
\ No newline at end of file
+
+    long countByHash(String hash);
+
+    @Query("select f.id as id, f.minHashSignature as minHashSignature from FileMetadata f "
+            + "where f.minHashSignature is not null and f.id > :afterId order by f.id")
+    List<FileSignatureView> findSignaturesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select f.id as id, f.minHashSignature as minHashSignature from FileMetadata f "
+            + "where f.minHashSignature is not null and f.id in :ids")
+    List<FileSignatureView> findSignaturesByIdIn(@Param("ids") Collection<Long> ids);
+}
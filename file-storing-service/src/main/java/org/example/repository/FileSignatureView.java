@@ -0,0 +1,7 @@
+package org.example.repository;
+
+public interface FileSignatureView {
+    Long getId();
+
+    byte[] getMinHashSignature();
+}
@@ -0,0 +1,273 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import org.example.dto.BulkUploadEntryDTO;
+import org.example.dto.BulkUploadResponseDTO;
+import org.example.dto.FileUploadResponseDTO;
+import org.example.exception.TooManyFilesException;
+import org.example.storage.StagedUpload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Stores many text files in one request, given as separate parts or packed in ZIP archives.
+ * <p>
+ * Every file is streamed to disk and fingerprinted on its own thread; ZIP entries are read
+ * straight from the archive, so they are never unpacked twice. All accepted files are then stored
+ * together, with their metadata saved in a single transaction.
+ */
+@Service
+public class BulkUploadService {
+    private static final Logger logger = LoggerFactory.getLogger(BulkUploadService.class);
+
+    private final FileStorageService fileStorageService;
+    private final ExecutorService executor;
+    private final int maxFiles;
+    private final long maxFileSize;
+
+    @Autowired
+    public BulkUploadService(FileStorageService fileStorageService,
+                             @Value("${upload.bulk.parallelism:0}") int parallelism,
+                             @Value("${upload.bulk.max-files:1000}") int maxFiles,
+                             @Value("${upload.bulk.max-file-size:100MB}") DataSize maxFileSize) {
+        this.fileStorageService = fileStorageService;
+        this.executor = Executors.newFixedThreadPool(
+                parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.maxFiles = maxFiles;
+        this.maxFileSize = maxFileSize.toBytes();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @throws TooManyFilesException if the parts and archives hold more than {@code upload.bulk.max-files} files
+     */
+    public BulkUploadResponseDTO upload(List<MultipartFile> files) throws IOException {
+        long started = System.nanoTime();
+        List<Entry> entries = new ArrayList<>();
+        List<Closeable> resources = new ArrayList<>();
+        try {
+            for (MultipartFile file : files) {
+                String name = file.getOriginalFilename();
+                if (hasExtension(name, ".zip")) {
+                    addArchiveEntries(file, entries, resources);
+                } else if (hasExtension(name, ".txt")) {
+                    entries.add(new Entry(name, name, file::getInputStream));
+                } else {
+                    entries.add(Entry.rejected(name, "Not a .txt or .zip file"));
+                }
+                if (entries.size() > maxFiles) {
+                    throw new TooManyFilesException("More than " + maxFiles + " files in one upload");
+                }
+            }
+            storeEntries(entries);
+        } finally {
+            closeAll(resources);
+        }
+
+        BulkUploadResponseDTO response = new BulkUploadResponseDTO();
+        response.setFiles(entries.stream().map(Entry::getResult).toList());
+        logger.info("Bulk upload of {} files took {} ms", entries.size(), (System.nanoTime() - started) / 1_000_000);
+        return response;
+    }
+
+    private void storeEntries(List<Entry> entries) throws IOException {
+        List<Future<StagedUpload>> futures = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            futures.add(entry.source != null ? executor.submit(() -> stage(entry)) : null);
+        }
+
+        List<Entry> stagedEntries = new ArrayList<>();
+        List<StagedUpload> staged = new ArrayList<>();
+        try {
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                if (futures.get(i) == null) {
+                    continue;
+                }
+                try {
+                    StagedUpload upload = futures.get(i).get();
+                    if (upload.getSize() == 0) {
+                        fileStorageService.discard(List.of(upload));
+                        entry.reject("Empty file");
+                    } else {
+                        stagedEntries.add(entry);
+                        staged.add(upload);
+                    }
+                } catch (ExecutionException e) {
+                    entry.reject("Could not read file: " + e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            futures.stream().filter(future -> future != null).forEach(future -> future.cancel(true));
+            fileStorageService.discard(staged);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while staging uploaded files", e);
+        }
+
+        if (staged.isEmpty()) {
+            return;
+        }
+        List<FileUploadResponseDTO> stored = fileStorageService.storeStaged(staged);
+        for (int i = 0; i < stagedEntries.size(); i++) {
+            stagedEntries.get(i).accept(stored.get(i));
+        }
+    }
+
+    private StagedUpload stage(Entry entry) throws IOException {
+        try (InputStream content = new SizeLimitedInputStream(entry.source.open(), maxFileSize)) {
+            return fileStorageService.stage(entry.fileName, content);
+        }
+    }
+
+    /**
+     * Entries are read from the archive in place, each through its own stream, so they can be
+     * staged concurrently.
+     */
+    private void addArchiveEntries(MultipartFile archive, List<Entry> entries, List<Closeable> resources) throws IOException {
+        Path archiveFile = Files.createTempFile("bulk-upload-", ".zip");
+        resources.add(() -> Files.deleteIfExists(archiveFile));
+        archive.transferTo(archiveFile);
+        ZipFile zipFile;
+        try {
+            zipFile = new ZipFile(archiveFile.toFile());
+        } catch (ZipException e) {
+            entries.add(Entry.rejected(archive.getOriginalFilename(), "Not a valid ZIP archive"));
+            return;
+        }
+        resources.add(zipFile);
+
+        Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+        while (zipEntries.hasMoreElements() && entries.size() <= maxFiles) {
+            ZipEntry zipEntry = zipEntries.nextElement();
+            String path = zipEntry.getName();
+            String fileName = path.substring(path.lastIndexOf('/') + 1);
+            if (zipEntry.isDirectory() || fileName.startsWith(".") || path.startsWith("__MACOSX/")) {
+                // Directories and file system metadata added by archivers
+                continue;
+            }
+            if (hasExtension(fileName, ".txt")) {
+                entries.add(new Entry(path, fileName, () -> zipFile.getInputStream(zipEntry)));
+            } else {
+                entries.add(Entry.rejected(path, "Not a .txt file"));
+            }
+        }
+    }
+
+    private static boolean hasExtension(String name, String extension) {
+        return name != null && name.toLowerCase(Locale.ROOT).endsWith(extension);
+    }
+
+    /**
+     * Closes in reverse order, so archives are closed before their temp files are deleted.
+     */
+    private static void closeAll(List<Closeable> resources) {
+        for (int i = resources.size() - 1; i >= 0; i--) {
+            try {
+                resources.get(i).close();
+            } catch (IOException e) {
+                logger.warn("Failed to clean up after bulk upload: {}", e.getMessage());
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ContentSource {
+        InputStream open() throws IOException;
+    }
+
+    private static final class Entry {
+        private final ContentSource source;
+        private final String fileName;
+        private final BulkUploadEntryDTO result = new BulkUploadEntryDTO();
+
+        Entry(String name, String fileName, ContentSource source) {
+            this.source = source;
+            this.fileName = fileName;
+            result.setName(name);
+        }
+
+        static Entry rejected(String name, String error) {
+            Entry entry = new Entry(name, name, null);
+            entry.reject(error);
+            return entry;
+        }
+
+        void reject(String error) {
+            result.setError(error);
+        }
+
+        void accept(FileUploadResponseDTO stored) {
+            result.setId(stored.getId());
+            result.setDuplicate(stored.isDuplicate());
+        }
+
+        BulkUploadEntryDTO getResult() {
+            return result;
+        }
+    }
+
+    /**
+     * Fails once more than {@code limit} bytes were read, so a compressed entry cannot expand without bound.
+     */
+    private static final class SizeLimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private long count;
+
+        SizeLimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value != -1) {
+                count(1);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        private void count(int read) throws IOException {
+            count += read;
+            if (count > limit) {
+                throw new IOException("File is larger than " + limit + " bytes");
+            }
+        }
+    }
+}
@@ -1,118 +1,387 @@
 package org.example.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.Nullable;
 import org.example.dto.FilePlagiarismResponseDTO;
+import org.example.dto.FileSimilarityResponseDTO;
+import org.example.dto.SimilarFileDTO;
 import org.example.exception.FileMetadataNotFoundException;
 import org.example.exception.FileNotFoundException;
 import org.example.repository.FileMetadataRepository;
+import org.example.similarity.LshIndex;
+import org.example.similarity.MinHasher;
+import org.example.storage.BlobStore;
+import org.example.storage.ContentVerifier;
+import org.example.storage.StagedUpload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import org.example.model.FileMetadata;
 import org.example.dto.FileUploadResponseDTO;
+import org.example.dto.FileMetadataDTO;
 import org.example.dto.FileResource;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 
 @Service
 public class FileStorageService {
+    private static final Logger logger = LoggerFactory.getLogger(FileStorageService.class);
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
 
     private final FileMetadataRepository fileMetadataRepository;
+    private final SimilarityIndexService similarityIndexService;
+    private final FragmentIndexService fragmentIndexService;
+    private final OutboxService outboxService;
     private final Path fileStorageLocation;
+    private final BlobStore blobStore;
+    private final ContentVerifier contentVerifier = new ContentVerifier();
+    private final Timer receiveTimer;
+    private final Timer hashTimer;
+    private final Timer fingerprintTimer;
+    private final Timer writeTimer;
+    private final Timer saveTimer;
+    private final Timer indexTimer;
+    private final Timer plagiarismFoundTimer;
+    private final Timer plagiarismNotFoundTimer;
+    private final Counter plagiarismComparisons;
 
     @Autowired
-    public FileStorageService(FileMetadataRepository fileMetadataRepository) {
-        this(fileMetadataRepository, Paths.get("/app/uploads").toAbsolutePath().normalize());
+    public FileStorageService(FileMetadataRepository fileMetadataRepository,
+                              SimilarityIndexService similarityIndexService,
+                              FragmentIndexService fragmentIndexService,
+                              OutboxService outboxService,
+                              MeterRegistry meterRegistry,
+                              @Value("${file.storage.location:/app/uploads}") String fileStorageLocation) {
+        this(fileMetadataRepository, similarityIndexService, fragmentIndexService, outboxService, meterRegistry,
+                Paths.get(fileStorageLocation).toAbsolutePath().normalize());
     }
 
-    public FileStorageService(FileMetadataRepository fileMetadataRepository, Path fileStorageLocation) {
+    public FileStorageService(FileMetadataRepository fileMetadataRepository,
+                              SimilarityIndexService similarityIndexService,
+                              FragmentIndexService fragmentIndexService,
+                              OutboxService outboxService,
+                              MeterRegistry meterRegistry,
+                              Path fileStorageLocation) {
         this.fileMetadataRepository = fileMetadataRepository;
+        this.similarityIndexService = similarityIndexService;
+        this.fragmentIndexService = fragmentIndexService;
+        this.outboxService = outboxService;
         this.fileStorageLocation = fileStorageLocation;
+        this.receiveTimer = stageTimer(meterRegistry, "receive");
+        this.hashTimer = stageTimer(meterRegistry, "hash");
+        this.fingerprintTimer = stageTimer(meterRegistry, "fingerprint");
+        this.writeTimer = stageTimer(meterRegistry, "write");
+        this.saveTimer = stageTimer(meterRegistry, "save");
+        this.indexTimer = stageTimer(meterRegistry, "index");
+        this.plagiarismFoundTimer = plagiarismTimer(meterRegistry, "found");
+        this.plagiarismNotFoundTimer = plagiarismTimer(meterRegistry, "not_found");
+        this.plagiarismComparisons = Counter.builder("plagiarism.comparisons")
+                .description("Stored files whose content was compared during plagiarism checks")
+                .register(meterRegistry);
         try {
             Files.createDirectories(this.fileStorageLocation);
         } catch (Exception ex) {
             throw new RuntimeException("Could not create the directory where the uploaded files will be stored.", ex);
         }
+        this.blobStore = new BlobStore(this.fileStorageLocation);
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("upload.stage")
+                .description("Time spent in one stage of storing an upload")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static Timer plagiarismTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("plagiarism.check")
+                .description("Time to look for an identical stored file")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     public FileUploadResponseDTO storeFile(MultipartFile file) throws IOException {
-        String originalFilename = file.getOriginalFilename();
-        String fileHash = calculateHash(file);
+        StagedUpload upload;
+        try (InputStream inputStream = file.getInputStream()) {
+            upload = stage(file.getOriginalFilename(), inputStream);
+        }
+        FileMetadata fileMetadata = toMetadata(upload);
+
+        boolean duplicate;
+        FileMetadata savedMetadata;
+        Timer.Sample saveSample = Timer.start();
+        Lock lock = blobStore.lockFor(upload.getHash());
+        lock.lock();
+        try {
+            boolean committed = false;
+            duplicate = false;
+            try {
+                duplicate = !blobStore.commit(upload.getTempFile(), upload.getHash());
+                committed = true;
+                // Announces the upload, so the analysis service can analyse it before anyone asks
+                savedMetadata = outboxService.saveUploadedFile(fileMetadata);
+            } catch (IOException | RuntimeException e) {
+                // A blob stored by this call is not referenced yet: its lock is still held
+                discard(committed ? List.of() : List.of(upload),
+                        committed && !duplicate ? List.of(upload.getHash()) : List.of());
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+            saveSample.stop(saveTimer);
+        }
+        index(savedMetadata, upload);
+
+        FileUploadResponseDTO response = convertToUploadResponseDTO(savedMetadata);
+        response.setDuplicate(duplicate);
+        return response;
+    }
+
+    /**
+     * Writes the content to a temp file, hashing and fingerprinting it on the way. Independent
+     * uploads may be staged concurrently.
+     */
+    public StagedUpload stage(String name, InputStream content) throws IOException {
+        MessageDigest digest = newDigest();
+        MinHasher.Accumulator shingles = similarityIndexService.newAccumulator();
+
+        Path tempFile = blobStore.createTempFile();
+        long size = 0;
+        // Each stage runs on every chunk in turn, so the time of each is summed over the chunks
+        long[] stageNanos = new long[4];
+        try {
+            try (InputStream inputStream = content;
+                 OutputStream outputStream = Files.newOutputStream(tempFile)) {
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                long started = System.nanoTime();
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    long received = System.nanoTime();
+                    digest.update(buffer, 0, read);
+                    long hashed = System.nanoTime();
+                    shingles.update(buffer, 0, read);
+                    long fingerprinted = System.nanoTime();
+                    outputStream.write(buffer, 0, read);
+                    long written = System.nanoTime();
+                    stageNanos[0] += received - started;
+                    stageNanos[1] += hashed - received;
+                    stageNanos[2] += fingerprinted - hashed;
+                    stageNanos[3] += written - fingerprinted;
+                    size += read;
+                    started = written;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        receiveTimer.record(stageNanos[0], TimeUnit.NANOSECONDS);
+        hashTimer.record(stageNanos[1], TimeUnit.NANOSECONDS);
+        fingerprintTimer.record(stageNanos[2], TimeUnit.NANOSECONDS);
+        writeTimer.record(stageNanos[3], TimeUnit.NANOSECONDS);
+        return new StagedUpload(name, tempFile, HexFormat.of().formatHex(digest.digest()), size, shingles.finish());
+    }
+
+    /**
+     * Stores staged uploads together: their metadata and upload events are saved in one
+     * transaction. If anything fails, none of them is stored and all temp files are removed.
+     *
+     * @return one response per upload, in the order given
+     */
+    public List<FileUploadResponseDTO> storeStaged(List<StagedUpload> uploads) throws IOException {
+        List<FileMetadata> metadata = uploads.stream().map(this::toMetadata).toList();
+        boolean[] duplicates = new boolean[uploads.size()];
+        List<String> newHashes = new ArrayList<>();
+        List<FileMetadata> savedMetadata;
+
+        Timer.Sample saveSample = Timer.start();
+        List<Lock> locks = blobStore.locksFor(uploads.stream().map(StagedUpload::getHash).toList());
+        locks.forEach(Lock::lock);
+        try {
+            int committed = 0;
+            try {
+                for (; committed < uploads.size(); committed++) {
+                    StagedUpload upload = uploads.get(committed);
+                    duplicates[committed] = !blobStore.commit(upload.getTempFile(), upload.getHash());
+                    if (!duplicates[committed]) {
+                        newHashes.add(upload.getHash());
+                    }
+                }
+                savedMetadata = outboxService.saveUploadedFiles(metadata);
+            } catch (IOException | RuntimeException e) {
+                // Blobs stored by this call are not referenced yet: their locks are still held
+                discard(uploads.subList(committed, uploads.size()), newHashes);
+                throw e;
+            }
+        } finally {
+            locks.forEach(Lock::unlock);
+            saveSample.stop(saveTimer);
+        }
 
-        String filename = System.currentTimeMillis() + "_" + originalFilename;
-        Path targetLocation = this.fileStorageLocation.resolve(filename);
-        Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+        List<FileUploadResponseDTO> responses = new ArrayList<>(uploads.size());
+        for (int i = 0; i < uploads.size(); i++) {
+            index(savedMetadata.get(i), uploads.get(i));
+            FileUploadResponseDTO response = convertToUploadResponseDTO(savedMetadata.get(i));
+            response.setDuplicate(duplicates[i]);
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    /**
+     * Removes the temp files of staged uploads that will not be stored.
+     */
+    public void discard(List<StagedUpload> uploads) {
+        discard(uploads, List.of());
+    }
 
+    private void discard(List<StagedUpload> uploads, List<String> storedHashes) {
+        try {
+            for (StagedUpload upload : uploads) {
+                Files.deleteIfExists(upload.getTempFile());
+            }
+            for (String hash : storedHashes) {
+                blobStore.delete(hash);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to clean up after a failed upload: {}", e.getMessage());
+        }
+    }
+
+    private FileMetadata toMetadata(StagedUpload upload) {
         FileMetadata fileMetadata = new FileMetadata();
-        fileMetadata.setName(originalFilename);
-        fileMetadata.setHash(fileHash);
-        fileMetadata.setLocation(targetLocation.toString());
-        FileMetadata savedMetadata = fileMetadataRepository.save(fileMetadata);
+        fileMetadata.setName(upload.getName());
+        fileMetadata.setHash(upload.getHash());
+        fileMetadata.setSize(upload.getSize());
+        fileMetadata.setLocation(fileStorageLocation.relativize(blobStore.pathFor(upload.getHash())).toString());
+        fileMetadata.setMinHashSignature(MinHasher.toBytes(upload.getSignature()));
+        return fileMetadata;
+    }
+
+    private void index(FileMetadata savedMetadata, StagedUpload upload) {
+        indexTimer.record(() -> {
+            similarityIndexService.index(savedMetadata.getId(), upload.getSignature());
+            // Read back from the page cache, so fragment fingerprints never have to be held for the whole file
+            fragmentIndexService.index(savedMetadata.getId(), blobStore.pathFor(upload.getHash()));
+        });
+    }
+
+    /**
+     * Removes the file metadata and releases its blob once no other file references the same content.
+     */
+    public void deleteFile(Long fileId) throws IOException {
+        FileMetadata fileMetadata = fileMetadataRepository.findById(fileId)
+                .orElseThrow(() -> new FileMetadataNotFoundException("File metadata not found with id " + fileId));
+        similarityIndexService.remove(fileId);
+        fragmentIndexService.remove(fileId);
 
-        return convertToUploadResponseDTO(savedMetadata);
+        String fileHash = fileMetadata.getHash();
+        Lock lock = blobStore.lockFor(fileHash);
+        lock.lock();
+        try {
+            fileMetadataRepository.delete(fileMetadata);
+            Path location = resolveLocation(fileMetadata.getLocation());
+            if (!blobStore.pathFor(fileHash).equals(location)) {
+                // Uploaded before content addressing, the file is not shared
+                Files.deleteIfExists(location);
+            } else if (fileMetadataRepository.countByHash(fileHash) == 0) {
+                blobStore.delete(fileHash);
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
+    /**
+     * @return the first other file with exactly the same content, if any
+     */
     public FilePlagiarismResponseDTO checkPlagiarism(Long fileId) {
         Optional<FileMetadata> metadata = fileMetadataRepository.findById(fileId);
         if (metadata.isPresent()) {
+            Timer.Sample sample = Timer.start();
             FileMetadata fileMetadata = metadata.get();
             String fileHash = fileMetadata.getHash();
             List<FileMetadata> existingFiles = fileMetadataRepository.findByHash(fileHash);
+            Path filePath = resolveLocation(fileMetadata.getLocation());
             for (FileMetadata existingFile : existingFiles) {
-                Path filePath = this.fileStorageLocation.resolve(fileMetadata.getLocation());
-                Path existingFilePath = this.fileStorageLocation.resolve(existingFile.getLocation());
-                if (!fileId.equals(existingFile.getId()) && areFilesContentEqual(filePath, existingFilePath)) {
+                if (fileId.equals(existingFile.getId())) {
+                    continue;
+                }
+                plagiarismComparisons.increment();
+                if (areFilesContentEqual(fileMetadata, filePath, existingFile)) {
+                    sample.stop(plagiarismFoundTimer);
                     return convertToPlagiarismResponseDTO(existingFile);
                 }
             }
+            sample.stop(plagiarismNotFoundTimer);
             return convertToPlagiarismResponseDTO(null);
         } else {
             throw new FileMetadataNotFoundException("File metadata not found with id " + fileId);
         }
     }
 
-    private String calculateHash(MultipartFile file) {
+    public FileSimilarityResponseDTO findSimilarFiles(Long fileId, double threshold, int limit) {
+        FileMetadata fileMetadata = fileMetadataRepository.findById(fileId)
+                .orElseThrow(() -> new FileMetadataNotFoundException("File metadata not found with id " + fileId));
+        int[] signature = MinHasher.fromBytes(fileMetadata.getMinHashSignature());
+        List<LshIndex.Match> matches = similarityIndexService.findSimilar(fileId, signature, threshold, limit);
+        return convertToSimilarityResponseDTO(fileId, matches);
+    }
+
+    private MessageDigest newDigest() {
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] bytes = digest.digest(file.getBytes());
-            StringBuilder sb = new StringBuilder();
-            for (byte b : bytes) {
-                sb.append(String.format("%02x", b));
-            }
-            return sb.toString();
-        } catch (NoSuchAlgorithmException | IOException e) {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException("Could not calculate file hash", e);
         }
     }
 
-    private boolean areFilesContentEqual(Path currentFilePath, Path otherFilePath) {
+    private boolean areFilesContentEqual(FileMetadata current, Path currentFilePath, FileMetadata other) {
         try {
-            byte[] currentBytes = Files.readAllBytes(currentFilePath);
-            byte[] otherBytes = Files.readAllBytes(otherFilePath);
-            return MessageDigest.isEqual(currentBytes, otherBytes);
+            return contentVerifier.sameContent(current.getId(), currentFilePath, current.getSize(),
+                    other.getId(), resolveLocation(other.getLocation()), other.getSize());
         } catch (IOException e) {
-            System.err.println("Error comparing file contents: " + e.getMessage());
+            logger.warn("Error comparing contents of files {} and {}: {}", current.getId(), other.getId(), e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Locations are stored relative to the storage root; files uploaded before that have absolute
+     * locations, which are used as they are.
+     */
+    private Path resolveLocation(String location) {
+        return fileStorageLocation.resolve(location).normalize();
+    }
+
     public FileResource loadFileAsResource(Long fileId) throws IOException {
         Optional<FileMetadata> metadata = fileMetadataRepository.findById(fileId);
         if (metadata.isPresent()) {
             FileMetadata fileMetadata = metadata.get();
-            Path filePath = Paths.get(fileMetadata.getLocation()).normalize();
+            Path filePath = resolveLocation(fileMetadata.getLocation());
             if (Files.exists(filePath)) {
-                InputStream inputStream = Files.newInputStream(filePath);
-                return new FileResource(inputStream, fileMetadata.getName());
+                long size = fileMetadata.getSize() != null ? fileMetadata.getSize() : Files.size(filePath);
+                return new FileResource(filePath, fileMetadata.getName(), fileMetadata.getHash(), size);
             } else {
                 throw new FileNotFoundException("File not found on disk for id " + fileId, 
                     new IOException("File does not exist at path: " + filePath));
@@ -122,6 +391,21 @@ public class FileStorageService {
         }
     }
 
+    public FileMetadataDTO getFileMetadata(Long fileId) {
+        FileMetadata fileMetadata = fileMetadataRepository.findById(fileId)
+                .orElseThrow(() -> new FileMetadataNotFoundException("File metadata not found with id " + fileId));
+        FileMetadataDTO dto = new FileMetadataDTO();
+        dto.setId(fileMetadata.getId());
+        dto.setName(fileMetadata.getName());
+        dto.setHash(fileMetadata.getHash());
+        dto.setSize(fileMetadata.getSize());
+        Path filePath = resolveLocation(fileMetadata.getLocation());
+        if (filePath.startsWith(fileStorageLocation)) {
+            dto.setLocation(fileStorageLocation.relativize(filePath).toString());
+        }
+        return dto;
+    }
+
     private FileUploadResponseDTO convertToUploadResponseDTO(FileMetadata metadata) {
         FileUploadResponseDTO dto = new FileUploadResponseDTO();
         dto.setId(metadata.getId());
@@ -133,4 +417,16 @@ public class FileStorageService {
         dto.setPlagiarismFileId(plagiarizedFile != null ? plagiarizedFile.getId() : null);
         return dto;
     }
+
+    private FileSimilarityResponseDTO convertToSimilarityResponseDTO(Long fileId, List<LshIndex.Match> matches) {
+        FileSimilarityResponseDTO dto = new FileSimilarityResponseDTO();
+        dto.setFileId(fileId);
+        dto.setMatches(matches.stream().map(match -> {
+            SimilarFileDTO similarFile = new SimilarFileDTO();
+            similarFile.setFileId(match.getId());
+            similarFile.setSimilarity(match.getSimilarity());
+            return similarFile;
+        }).toList());
+        return dto;
+    }
 }
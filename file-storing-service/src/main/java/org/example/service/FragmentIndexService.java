@@ -0,0 +1,128 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import org.example.dto.FragmentMatchDTO;
+import org.example.dto.FragmentSearchResponseDTO;
+import org.example.dto.FragmentSpanDTO;
+import org.example.exception.FileStorageException;
+import org.example.similarity.FragmentFingerprinter;
+import org.example.similarity.FragmentIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+@Service
+public class FragmentIndexService {
+    private static final Logger logger = LoggerFactory.getLogger(FragmentIndexService.class);
+    private static final int DEFAULT_FLUSH_THRESHOLD = 200_000;
+    private static final int DEFAULT_MAX_SEGMENTS = 8;
+    private static final int MAX_SPANS_PER_FILE = 100;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final FragmentFingerprinter fingerprinter = new FragmentFingerprinter();
+    private final FragmentIndex fragmentIndex;
+
+    @Autowired
+    public FragmentIndexService(@Value("${fragments.index.location:/app/uploads/fragment-index}") String location,
+                                @Value("${fragments.index.flush-threshold:200000}") int flushThreshold,
+                                @Value("${fragments.index.max-segments:8}") int maxSegments) {
+        this(Paths.get(location).toAbsolutePath().normalize(), flushThreshold, maxSegments);
+    }
+
+    public FragmentIndexService(Path location) {
+        this(location, DEFAULT_FLUSH_THRESHOLD, DEFAULT_MAX_SEGMENTS);
+    }
+
+    public FragmentIndexService(Path location, int flushThreshold, int maxSegments) {
+        try {
+            this.fragmentIndex = new FragmentIndex(location, flushThreshold, maxSegments);
+        } catch (IOException e) {
+            throw new FileStorageException("Could not open the fragment index", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        fragmentIndex.close();
+    }
+
+    /**
+     * Indexes a stored file chunk by chunk, so memory use does not depend on the file size. A
+     * failure to index does not fail the upload; the file is then just not found by fragment search.
+     */
+    public void index(Long fileId, Path content) {
+        FragmentFingerprinter.Accumulator accumulator = fingerprinter.newAccumulator(true);
+        try (InputStream input = Files.newInputStream(content)) {
+            byte[] buffer = new byte[READ_BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                accumulator.update(buffer, 0, read);
+                fragmentIndex.add(fileId, accumulator.drain());
+            }
+            fragmentIndex.add(fileId, accumulator.finish());
+        } catch (IOException e) {
+            logger.error("Failed to add file {} to the fragment index", fileId, e);
+        }
+    }
+
+    public void remove(Long fileId) {
+        try {
+            fragmentIndex.remove(fileId);
+        } catch (IOException e) {
+            logger.error("Failed to remove file {} from the fragment index", fileId, e);
+        }
+    }
+
+    public FragmentSearchResponseDTO search(String text, int limit) {
+        byte[] content = text.getBytes(StandardCharsets.UTF_8);
+        List<FragmentIndex.Match> matches = fragmentIndex.search(fingerprinter.fingerprints(content, false), limit);
+        int[] characterAt = characterOffsets(text, content.length);
+
+        FragmentSearchResponseDTO response = new FragmentSearchResponseDTO();
+        response.setMatches(matches.stream().map(match -> {
+            FragmentMatchDTO matchDTO = new FragmentMatchDTO();
+            matchDTO.setFileId(match.getFileId());
+            matchDTO.setSpans(match.getSpans().stream().limit(MAX_SPANS_PER_FILE).map(span -> {
+                FragmentSpanDTO spanDTO = new FragmentSpanDTO();
+                spanDTO.setQueryStart(characterAt[span.getQueryStart()]);
+                spanDTO.setQueryEnd(characterAt[span.getQueryEnd()]);
+                spanDTO.setSourceStart(span.getSourceStart());
+                spanDTO.setSourceEnd(span.getSourceEnd());
+                return spanDTO;
+            }).toList());
+            return matchDTO;
+        }).toList());
+        return response;
+    }
+
+    /**
+     * Maps UTF-8 byte offsets of the text to {@link String} indices.
+     */
+    private static int[] characterOffsets(String text, int byteLength) {
+        int[] characterAt = new int[byteLength + 1];
+        int bytePosition = 0;
+        for (int index = 0; index < text.length(); ) {
+            int codePoint = text.codePointAt(index);
+            // An unpaired surrogate is encoded as a single '?'
+            int encodedLength = codePoint < 0x80 || Character.isSurrogate((char) codePoint) ? 1
+                    : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+            for (int i = 0; i < encodedLength; i++) {
+                characterAt[bytePosition + i] = index;
+            }
+            bytePosition += encodedLength;
+            index += Character.charCount(codePoint);
+        }
+        characterAt[byteLength] = text.length();
+        return characterAt;
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.service;
+
+import org.example.model.FileMetadata;
+import org.example.model.OutboxEvent;
+import org.example.repository.FileMetadataRepository;
+import org.example.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Saves file metadata together with the events announcing it, in one short transaction.
+ */
+@Service
+public class OutboxService {
+    private final FileMetadataRepository fileMetadataRepository;
+    private final OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    public OutboxService(FileMetadataRepository fileMetadataRepository, OutboxEventRepository outboxEventRepository) {
+        this.fileMetadataRepository = fileMetadataRepository;
+        this.outboxEventRepository = outboxEventRepository;
+    }
+
+    @Transactional
+    public FileMetadata saveUploadedFile(FileMetadata fileMetadata) {
+        FileMetadata savedMetadata = fileMetadataRepository.save(fileMetadata);
+        outboxEventRepository.save(OutboxEvent.fileUploaded(savedMetadata.getId()));
+        return savedMetadata;
+    }
+
+    /**
+     * @return the saved metadata, in the order given
+     */
+    @Transactional
+    public List<FileMetadata> saveUploadedFiles(List<FileMetadata> files) {
+        List<FileMetadata> savedMetadata = fileMetadataRepository.saveAll(files);
+        outboxEventRepository.saveAll(savedMetadata.stream()
+                .map(metadata -> OutboxEvent.fileUploaded(metadata.getId()))
+                .toList());
+        return savedMetadata;
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.service;
+
+import org.example.repository.FileMetadataRepository;
+import org.example.repository.FileSignatureView;
+import org.example.similarity.LshIndex;
+import org.example.similarity.MinHasher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class SimilarityIndexService {
+    private static final Logger logger = LoggerFactory.getLogger(SimilarityIndexService.class);
+    private static final int REBUILD_PAGE_SIZE = 5000;
+
+    private final FileMetadataRepository fileMetadataRepository;
+    private final MinHasher minHasher;
+    private final LshIndex lshIndex;
+
+    @Autowired
+    public SimilarityIndexService(FileMetadataRepository fileMetadataRepository) {
+        this(fileMetadataRepository, new MinHasher(), LshIndex.DEFAULT_BANDS);
+    }
+
+    public SimilarityIndexService(FileMetadataRepository fileMetadataRepository, MinHasher minHasher, int bands) {
+        this.fileMetadataRepository = fileMetadataRepository;
+        this.minHasher = minHasher;
+        this.lshIndex = new LshIndex(minHasher.getNumHashes(), bands);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndex() {
+        long afterId = 0;
+        List<FileSignatureView> page;
+        do {
+            page = fileMetadataRepository.findSignaturesAfter(afterId, PageRequest.ofSize(REBUILD_PAGE_SIZE));
+            for (FileSignatureView view : page) {
+                lshIndex.add(view.getId(), MinHasher.fromBytes(view.getMinHashSignature()));
+                afterId = view.getId();
+            }
+        } while (page.size() == REBUILD_PAGE_SIZE);
+        logger.info("Similarity index rebuilt with {} documents", lshIndex.size());
+    }
+
+    public MinHasher.Accumulator newAccumulator() {
+        return minHasher.newAccumulator();
+    }
+
+    public void index(Long fileId, int[] signature) {
+        if (signature != null) {
+            lshIndex.add(fileId, signature);
+        }
+    }
+
+    public void remove(Long fileId) {
+        lshIndex.remove(fileId);
+    }
+
+    public List<LshIndex.Match> findSimilar(Long fileId, int[] signature, double threshold, int limit) {
+        if (signature == null) {
+            return List.of();
+        }
+        return lshIndex.query(signature, fileId, threshold, limit);
+    }
+}
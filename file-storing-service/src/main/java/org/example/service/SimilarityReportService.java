@@ -0,0 +1,103 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import org.example.dto.SimilarFilePairDTO;
+import org.example.dto.SimilarityClusterDTO;
+import org.example.dto.SimilarityReportDTO;
+import org.example.repository.FileMetadataRepository;
+import org.example.repository.FileSignatureView;
+import org.example.similarity.LshIndex;
+import org.example.similarity.MinHasher;
+import org.example.similarity.SimilarityClusterer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares a set of stored files with each other and groups the similar ones. Signatures are
+ * computed on upload, so a report only loads them and never reads file content.
+ */
+@Service
+public class SimilarityReportService {
+    private static final Logger logger = LoggerFactory.getLogger(SimilarityReportService.class);
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final int MAX_PAIRS_PER_CLUSTER = 100;
+
+    private final FileMetadataRepository fileMetadataRepository;
+    private final SimilarityClusterer clusterer = new SimilarityClusterer(LshIndex.DEFAULT_BANDS);
+    private final ForkJoinPool pool;
+
+    @Autowired
+    public SimilarityReportService(FileMetadataRepository fileMetadataRepository,
+                                   @Value("${similarity.report.parallelism:0}") int parallelism) {
+        this.fileMetadataRepository = fileMetadataRepository;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public SimilarityReportDTO buildReport(Collection<Long> fileIds, double threshold) {
+        long started = System.nanoTime();
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(fileIds));
+        Map<Long, int[]> signatures = new HashMap<>();
+        for (int from = 0; from < distinctIds.size(); from += LOAD_BATCH_SIZE) {
+            List<Long> batch = distinctIds.subList(from, Math.min(from + LOAD_BATCH_SIZE, distinctIds.size()));
+            for (FileSignatureView view : fileMetadataRepository.findSignaturesByIdIn(batch)) {
+                signatures.put(view.getId(), MinHasher.fromBytes(view.getMinHashSignature()));
+            }
+        }
+
+        List<Long> skippedIds = new ArrayList<>();
+        long[] ids = new long[signatures.size()];
+        int[][] orderedSignatures = new int[signatures.size()][];
+        int count = 0;
+        for (Long fileId : distinctIds) {
+            int[] signature = signatures.get(fileId);
+            if (signature == null) {
+                skippedIds.add(fileId);
+            } else {
+                ids[count] = fileId;
+                orderedSignatures[count++] = signature;
+            }
+        }
+
+        List<SimilarityClusterer.Cluster> clusters = clusterer.cluster(ids, orderedSignatures, threshold, pool);
+        logger.info("Similarity report over {} files found {} clusters in {} ms",
+                count, clusters.size(), (System.nanoTime() - started) / 1_000_000);
+        return convertToReportDTO(threshold, count, skippedIds, clusters);
+    }
+
+    private SimilarityReportDTO convertToReportDTO(double threshold, int fileCount, List<Long> skippedIds,
+                                                   List<SimilarityClusterer.Cluster> clusters) {
+        SimilarityReportDTO dto = new SimilarityReportDTO();
+        dto.setThreshold(threshold);
+        dto.setFileCount(fileCount);
+        dto.setSkippedFileIds(skippedIds);
+        dto.setClusters(clusters.stream().map(cluster -> {
+            SimilarityClusterDTO clusterDTO = new SimilarityClusterDTO();
+            clusterDTO.setFileIds(cluster.getFileIds());
+            clusterDTO.setPairs(cluster.getPairs().stream().limit(MAX_PAIRS_PER_CLUSTER).map(pair -> {
+                SimilarFilePairDTO pairDTO = new SimilarFilePairDTO();
+                pairDTO.setFirstFileId(pair.getFirstId());
+                pairDTO.setSecondFileId(pair.getSecondId());
+                pairDTO.setSimilarity(pair.getSimilarity());
+                return pairDTO;
+            }).toList());
+            return clusterDTO;
+        }).toList());
+        return dto;
+    }
+}
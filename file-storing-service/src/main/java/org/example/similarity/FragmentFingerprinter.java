@@ -0,0 +1,247 @@
+package org.example.similarity;
+
+import java.util.Arrays;
+
+/**
+ * Extracts positioned fingerprints of word shingles from UTF-8 text, for fragment-level matching.
+ * <p>
+ * Text is tokenized the same way as in {@link MinHasher}. Every run of {@code shingleSize} tokens
+ * is hashed together with its byte range in the text. For indexing, only the winnowed shingles are
+ * kept: the minimum hash of every {@code window} consecutive shingles. This keeps about
+ * {@code 2 / (window + 1)} of them and still guarantees that any shared passage of at least
+ * {@code window + shingleSize - 1} words has a fingerprint in common.
+ */
+public class FragmentFingerprinter {
+    public static final int DEFAULT_SHINGLE_SIZE = 5;
+    public static final int DEFAULT_WINDOW = 8;
+    public static final int MAX_FINGERPRINTS = 1 << 20;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int REPLACEMENT_CHARACTER = 0xFFFD;
+
+    private final int shingleSize;
+    private final int window;
+
+    public FragmentFingerprinter() {
+        this(DEFAULT_SHINGLE_SIZE, DEFAULT_WINDOW);
+    }
+
+    public FragmentFingerprinter(int shingleSize, int window) {
+        if (shingleSize <= 0 || window <= 0) {
+            throw new IllegalArgumentException("shingleSize and window must be positive");
+        }
+        this.shingleSize = shingleSize;
+        this.window = window;
+    }
+
+    /**
+     * @param winnow {@code true} to keep only the winnowed shingles, {@code false} to keep all of them
+     */
+    public Accumulator newAccumulator(boolean winnow) {
+        return new Accumulator(winnow ? window : 1);
+    }
+
+    public Fingerprints fingerprints(byte[] content, boolean winnow) {
+        Accumulator accumulator = newAccumulator(winnow);
+        accumulator.update(content, 0, content.length);
+        return accumulator.finish();
+    }
+
+    /**
+     * Fingerprints in text order, as parallel primitive arrays. Offsets are in bytes.
+     */
+    public static final class Fingerprints {
+        private long[] hashes = new long[16];
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private int size;
+
+        public int size() {
+            return size;
+        }
+
+        public long hash(int index) {
+            return hashes[index];
+        }
+
+        public int start(int index) {
+            return starts[index];
+        }
+
+        public int end(int index) {
+            return ends[index];
+        }
+
+        void add(long hash, int start, int end) {
+            if (size == hashes.length) {
+                hashes = Arrays.copyOf(hashes, size * 2);
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            hashes[size] = hash;
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+        }
+    }
+
+    /**
+     * Incremental fingerprint extractor. Content may be fed in arbitrary chunks. Not thread-safe,
+     * single use. Only the first {@value #MAX_FINGERPRINTS} fingerprints are kept, which covers
+     * several million words, and offsets beyond 2 GB are not fingerprinted.
+     */
+    public final class Accumulator {
+        private final int window;
+        private final long[] tokenHashes = new long[shingleSize];
+        private final int[] tokenStarts = new int[shingleSize];
+        private final int[] tokenEnds = new int[shingleSize];
+        private final long[] windowHashes;
+        private final int[] windowStarts;
+        private final int[] windowEnds;
+        private Fingerprints fingerprints = new Fingerprints();
+        private int kept;
+        private long position;
+        private long tokenCount;
+        private long shingleCount;
+        private long lastSelected = -1;
+        private long tokenHash = FNV_OFFSET;
+        private long tokenStart;
+        private boolean inToken;
+        private int codePoint;
+        private long codePointStart;
+        private int pendingBytes;
+
+        private Accumulator(int window) {
+            this.window = window;
+            this.windowHashes = new long[window];
+            this.windowStarts = new int[window];
+            this.windowEnds = new int[window];
+        }
+
+        public void update(byte[] buffer, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                update(buffer[i]);
+                position++;
+            }
+        }
+
+        private void update(byte value) {
+            if (pendingBytes > 0) {
+                if ((value & 0xC0) == 0x80) {
+                    codePoint = (codePoint << 6) | (value & 0x3F);
+                    if (--pendingBytes == 0) {
+                        accept(codePoint, codePointStart);
+                    }
+                    return;
+                }
+                pendingBytes = 0;
+                accept(REPLACEMENT_CHARACTER, codePointStart);
+            }
+            codePointStart = position;
+            if (value >= 0) {
+                accept(value, position);
+            } else if ((value & 0xE0) == 0xC0) {
+                codePoint = value & 0x1F;
+                pendingBytes = 1;
+            } else if ((value & 0xF0) == 0xE0) {
+                codePoint = value & 0x0F;
+                pendingBytes = 2;
+            } else if ((value & 0xF8) == 0xF0) {
+                codePoint = value & 0x07;
+                pendingBytes = 3;
+            } else {
+                accept(REPLACEMENT_CHARACTER, position);
+            }
+        }
+
+        private void accept(int character, long start) {
+            if (Character.isLetterOrDigit(character)) {
+                if (!inToken) {
+                    tokenStart = start;
+                    inToken = true;
+                }
+                tokenHash = (tokenHash ^ Character.toLowerCase(character)) * FNV_PRIME;
+            } else if (inToken) {
+                endToken(start);
+            }
+        }
+
+        private void endToken(long end) {
+            inToken = false;
+            long hash = MinHasher.mix(tokenHash);
+            tokenHash = FNV_OFFSET;
+            if (end > Integer.MAX_VALUE) {
+                return;
+            }
+            int slot = (int) (tokenCount % shingleSize);
+            tokenHashes[slot] = hash;
+            tokenStarts[slot] = (int) tokenStart;
+            tokenEnds[slot] = (int) end;
+            tokenCount++;
+            if (tokenCount >= shingleSize) {
+                addShingle();
+            }
+        }
+
+        private void addShingle() {
+            long shingle = 0;
+            for (long i = tokenCount - shingleSize; i < tokenCount; i++) {
+                shingle = MinHasher.mix(shingle ^ tokenHashes[(int) (i % shingleSize)]);
+            }
+            int slot = (int) (shingleCount % window);
+            windowHashes[slot] = shingle;
+            windowStarts[slot] = tokenStarts[(int) ((tokenCount - shingleSize) % shingleSize)];
+            windowEnds[slot] = tokenEnds[(int) ((tokenCount - 1) % shingleSize)];
+            shingleCount++;
+            if (shingleCount >= window) {
+                select(shingleCount - window, shingleCount);
+            }
+        }
+
+        /**
+         * Picks the rightmost minimum of shingles {@code [from, to)}, unless it was already picked.
+         */
+        private void select(long from, long to) {
+            long selected = from;
+            for (long i = from + 1; i < to; i++) {
+                if (windowHashes[(int) (i % window)] <= windowHashes[(int) (selected % window)]) {
+                    selected = i;
+                }
+            }
+            if (selected != lastSelected && kept < MAX_FINGERPRINTS) {
+                kept++;
+                int slot = (int) (selected % window);
+                fingerprints.add(windowHashes[slot], windowStarts[slot], windowEnds[slot]);
+                lastSelected = selected;
+            }
+        }
+
+        /**
+         * @return the fingerprints found since the last call; later ones go to a new buffer
+         */
+        public Fingerprints drain() {
+            Fingerprints drained = fingerprints;
+            fingerprints = new Fingerprints();
+            return drained;
+        }
+
+        /**
+         * @return the fingerprints not drained yet, including those of the text's tail
+         */
+        public Fingerprints finish() {
+            if (pendingBytes > 0) {
+                pendingBytes = 0;
+                accept(REPLACEMENT_CHARACTER, codePointStart);
+            }
+            if (inToken) {
+                endToken(position);
+            }
+            if (shingleCount > 0 && shingleCount < window) {
+                // Shorter than one window: keep its minimum so short texts are still indexed
+                select(0, shingleCount);
+            }
+            return fingerprints;
+        }
+    }
+}
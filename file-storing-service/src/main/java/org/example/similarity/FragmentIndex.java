@@ -0,0 +1,620 @@
+package org.example.similarity;
+
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Persistent inverted index from shingle fingerprints to the files and byte ranges they occur in.
+ * <p>
+ * New postings go to an in-memory table and are appended to a write-ahead log, which is replayed
+ * on startup. Once the table holds {@code flushThreshold} postings it is written out as an
+ * immutable, memory-mapped {@link FragmentSegment}; when there are more than {@code maxSegments}
+ * segments the smallest of them are streamed into one, up to {@code MAX_MERGED_SIZE} at a time.
+ * Removed files are remembered in a deletion log, filtered out of search results, and dropped for
+ * good by the merges; the log is cleared once a merge has rewritten every segment.
+ * <p>
+ * A manifest names the live segments and how much of the write-ahead and deletion logs they
+ * already cover. It is replaced atomically after a segment is written and before the logs are
+ * truncated or old segments deleted, so a crash at any point neither loses nor duplicates postings:
+ * on startup, files the manifest does not name are leftovers and are deleted.
+ */
+public class FragmentIndex implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(FragmentIndex.class);
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String WAL_FILE = "memtable.wal";
+    private static final String DELETED_FILE = "deleted.log";
+    private static final String MANIFEST_FILE = "manifest";
+    private static final String MANIFEST_VERSION = "fragment-index 1";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int WAL_HEADER_SIZE = Long.BYTES + Integer.BYTES;
+    private static final int WAL_ENTRY_SIZE = Long.BYTES + 2 * Integer.BYTES;
+    private static final int WAL_BUFFER_SIZE = 64 * 1024;
+    private static final long MAX_MERGED_SIZE = FragmentSegment.MAX_SIZE / 2;
+    private static final int MAX_SPAN_GAP = 128;
+
+    private final Path directory;
+    private final int flushThreshold;
+    private final int maxSegments;
+    private final long maxMergedSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<FragmentSegment> segments = new ArrayList<>();
+    private final Map<Long, MemoryPostings> memtable = new HashMap<>();
+    private final Set<Long> deleted = new HashSet<>();
+    private final FileChannel wal;
+    private final FileChannel deletedLog;
+    private int memtablePostings;
+    private long nextSegment;
+    /** Bytes at the start of the write-ahead log whose postings are already in segments */
+    private long walCheckpoint;
+    /** Bytes at the start of the deletion log whose files are already dropped from every segment */
+    private long deletedCheckpoint;
+
+    public FragmentIndex(Path directory, int flushThreshold, int maxSegments) throws IOException {
+        this(directory, flushThreshold, maxSegments, MAX_MERGED_SIZE);
+    }
+
+    FragmentIndex(Path directory, int flushThreshold, int maxSegments, long maxMergedSize) throws IOException {
+        this.directory = directory;
+        this.flushThreshold = flushThreshold;
+        this.maxSegments = maxSegments;
+        this.maxMergedSize = maxMergedSize;
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            stream.forEach(files::add);
+        }
+        List<String> live = readManifest();
+        for (Path path : files) {
+            String name = path.getFileName().toString();
+            if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                nextSegment = Math.max(nextSegment, segmentNumber(path) + 1);
+                if (live == null || live.contains(name)) {
+                    continue;
+                }
+            } else if (!name.endsWith(TEMP_SUFFIX)) {
+                continue;
+            }
+            // Written by a flush or merge that did not get to update the manifest, or replaced by one that did
+            logger.warn("Deleting fragment index file {} left over from an interrupted flush or merge", name);
+            Files.delete(path);
+        }
+        if (live == null) {
+            // Written before the index had a manifest: every segment in the directory is live
+            live = files.stream().map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .sorted().toList();
+        }
+        for (String name : live) {
+            segments.add(FragmentSegment.open(directory.resolve(name)));
+        }
+        this.deletedLog = FileChannel.open(directory.resolve(DELETED_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        replayDeletedLog();
+        this.wal = FileChannel.open(directory.resolve(WAL_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        replayWal();
+        writeManifestLocked();
+        logger.info("Fragment index opened with {} segments, {} postings in memory and {} deleted files",
+                segments.size(), memtablePostings, deleted.size());
+    }
+
+    /**
+     * Indexes the fingerprints of a file. Not idempotent: adding the same file twice duplicates its postings.
+     */
+    public void add(long fileId, FragmentFingerprinter.Fingerprints fingerprints) throws IOException {
+        if (fingerprints.size() == 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            appendToWal(fileId, fingerprints);
+            for (int i = 0; i < fingerprints.size(); i++) {
+                memtable.computeIfAbsent(fingerprints.hash(i), hash -> new MemoryPostings())
+                        .add(fileId, fingerprints.start(i), fingerprints.end(i));
+            }
+            memtablePostings += fingerprints.size();
+            if (memtablePostings >= flushThreshold) {
+                flushLocked();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long fileId) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (deleted.add(fileId)) {
+                ByteBuffer record = ByteBuffer.allocate(Long.BYTES).putLong(fileId).flip();
+                while (record.hasRemaining()) {
+                    deletedLog.write(record);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Looks up every fingerprint of the query and joins hits that follow each other in both the
+     * query and a source file into spans.
+     *
+     * @return matching files, the ones sharing the most text first
+     */
+    public List<Match> search(FragmentFingerprinter.Fingerprints query, int limit) {
+        Map<Long, List<Span>> hitsByFile = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < query.size(); i++) {
+                int queryStart = query.start(i);
+                int queryEnd = query.end(i);
+                lookupLocked(query.hash(i), (fileId, start, end) -> {
+                    if (!deleted.contains(fileId)) {
+                        hitsByFile.computeIfAbsent(fileId, id -> new ArrayList<>())
+                                .add(new Span(queryStart, queryEnd, start, end, 1));
+                    }
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (Map.Entry<Long, List<Span>> hits : hitsByFile.entrySet()) {
+            matches.add(new Match(hits.getKey(), mergeSpans(hits.getValue())));
+        }
+        matches.sort(Comparator.comparingLong(Match::getMatchedLength).reversed().thenComparingLong(Match::getFileId));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    private static List<Span> mergeSpans(List<Span> hits) {
+        hits.sort(Comparator.comparingInt(Span::getSourceStart).thenComparingInt(Span::getQueryStart));
+        List<Span> spans = new ArrayList<>();
+        Span current = null;
+        for (Span hit : hits) {
+            if (current != null
+                    && hit.sourceStart <= current.sourceEnd + MAX_SPAN_GAP
+                    && hit.queryStart >= current.queryStart
+                    && hit.queryStart <= current.queryEnd + MAX_SPAN_GAP) {
+                current = new Span(current.queryStart, Math.max(current.queryEnd, hit.queryEnd),
+                        current.sourceStart, Math.max(current.sourceEnd, hit.sourceEnd), current.fingerprints + 1);
+                spans.set(spans.size() - 1, current);
+            } else {
+                current = hit;
+                spans.add(current);
+            }
+        }
+        return spans;
+    }
+
+    private void lookupLocked(long hash, PostingConsumer consumer) {
+        for (FragmentSegment segment : segments) {
+            int term = segment.find(hash);
+            if (term >= 0) {
+                segment.postings(term, consumer);
+            }
+        }
+        MemoryPostings postings = memtable.get(hash);
+        if (postings != null) {
+            for (int i = 0; i < postings.size; i++) {
+                consumer.accept(postings.fileIds[i], postings.starts[i], postings.ends[i]);
+            }
+        }
+    }
+
+    public void flush() throws IOException {
+        lock.writeLock().lock();
+        try {
+            flushLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int segmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void flushLocked() throws IOException {
+        if (memtable.isEmpty()) {
+            return;
+        }
+        long[] hashes = new long[memtable.size()];
+        int count = 0;
+        for (Long hash : memtable.keySet()) {
+            hashes[count++] = hash;
+        }
+        Arrays.sort(hashes);
+        Path path = directory.resolve(segmentName(nextSegment++));
+        boolean written;
+        try (FragmentSegment.Writer writer = new FragmentSegment.Writer(path)) {
+            PostingBuffer buffer = new PostingBuffer();
+            for (long hash : hashes) {
+                MemoryPostings postings = memtable.get(hash);
+                buffer.clear();
+                for (int i = 0; i < postings.size; i++) {
+                    if (!deleted.contains(postings.fileIds[i])) {
+                        buffer.add(postings.fileIds[i], postings.starts[i], postings.ends[i]);
+                    }
+                }
+                buffer.addTo(writer, hash);
+            }
+            written = !writer.isEmpty();
+            if (written) {
+                writer.finish();
+            }
+        }
+        if (written) {
+            segments.add(FragmentSegment.open(path));
+        }
+        // The new segment and the log checkpoint take effect together
+        walCheckpoint = wal.size();
+        writeManifestLocked();
+        logger.info("Flushed {} fragment postings into segment {}", memtablePostings, segments.size());
+        memtable.clear();
+        memtablePostings = 0;
+        wal.truncate(0);
+        walCheckpoint = 0;
+        writeManifestLocked();
+        if (segments.size() > maxSegments) {
+            mergeSegmentsLocked();
+        }
+    }
+
+    /**
+     * Streams the smallest segments, up to {@code maxMergedSize} together, into one, dropping
+     * removed files. Called right after a flush, so the memtable is empty and, once every segment
+     * has been rewritten, the deletion log can be cleared.
+     */
+    private void mergeSegmentsLocked() throws IOException {
+        List<FragmentSegment> bySize = new ArrayList<>(segments);
+        Map<FragmentSegment, Long> sizes = new HashMap<>();
+        for (FragmentSegment segment : bySize) {
+            sizes.put(segment, Files.size(segment.getPath()));
+        }
+        bySize.sort(Comparator.comparingLong(sizes::get));
+        List<FragmentSegment> merged = new ArrayList<>();
+        long totalSize = 0;
+        for (FragmentSegment segment : bySize) {
+            if (totalSize + sizes.get(segment) > maxMergedSize) {
+                break;
+            }
+            merged.add(segment);
+            totalSize += sizes.get(segment);
+        }
+        if (merged.size() < 2) {
+            // Only segments that are already as large as a merge may get are left; they stay as they are
+            logger.debug("No fragment index segments small enough to merge among {}", segments.size());
+            return;
+        }
+
+        Path path = directory.resolve(segmentName(nextSegment++));
+        boolean written;
+        try (FragmentSegment.Writer writer = new FragmentSegment.Writer(path)) {
+            PostingBuffer buffer = new PostingBuffer();
+            int[] cursors = new int[merged.size()];
+            while (true) {
+                long hash = Long.MAX_VALUE;
+                boolean found = false;
+                for (int i = 0; i < cursors.length; i++) {
+                    FragmentSegment segment = merged.get(i);
+                    if (cursors[i] < segment.termCount() && (!found || segment.hash(cursors[i]) < hash)) {
+                        hash = segment.hash(cursors[i]);
+                        found = true;
+                    }
+                }
+                if (!found) {
+                    break;
+                }
+                buffer.clear();
+                for (int i = 0; i < cursors.length; i++) {
+                    FragmentSegment segment = merged.get(i);
+                    if (cursors[i] < segment.termCount() && segment.hash(cursors[i]) == hash) {
+                        segment.postings(cursors[i]++, (fileId, start, end) -> {
+                            if (!deleted.contains(fileId)) {
+                                buffer.add(fileId, start, end);
+                            }
+                        });
+                    }
+                }
+                buffer.addTo(writer, hash);
+            }
+            written = !writer.isEmpty();
+            if (written) {
+                writer.finish();
+            }
+        }
+
+        int before = segments.size();
+        boolean everySegment = merged.size() == before;
+        List<FragmentSegment> kept = new ArrayList<>(segments);
+        kept.removeAll(merged);
+        if (written) {
+            kept.add(FragmentSegment.open(path));
+        }
+        segments.clear();
+        segments.addAll(kept);
+        if (everySegment) {
+            deletedCheckpoint = deletedLog.size();
+        }
+        writeManifestLocked();
+        for (FragmentSegment segment : merged) {
+            segment.close();
+            Files.deleteIfExists(segment.getPath());
+        }
+        if (everySegment) {
+            deleted.clear();
+            deletedLog.truncate(0);
+            deletedCheckpoint = 0;
+            writeManifestLocked();
+        }
+        logger.info("Merged {} of {} fragment index segments", merged.size(), before);
+    }
+
+    /**
+     * @return the live segment names, or {@code null} if the index has no manifest yet
+     */
+    private List<String> readManifest() throws IOException {
+        Path manifest = directory.resolve(MANIFEST_FILE);
+        if (!Files.exists(manifest)) {
+            return null;
+        }
+        List<String> lines = Files.readAllLines(manifest, StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !lines.get(0).equals(MANIFEST_VERSION)) {
+            throw new IOException("Unsupported fragment index manifest: " + manifest);
+        }
+        List<String> live = new ArrayList<>();
+        for (String line : lines.subList(1, lines.size())) {
+            String[] entry = line.split(" ", 2);
+            switch (entry[0]) {
+                case "wal-checkpoint" -> walCheckpoint = Long.parseLong(entry[1]);
+                case "deleted-checkpoint" -> deletedCheckpoint = Long.parseLong(entry[1]);
+                case "segment" -> live.add(entry[1]);
+                default -> throw new IOException("Unexpected line in fragment index manifest: " + line);
+            }
+        }
+        return live;
+    }
+
+    /**
+     * Replaces the manifest with the current segments and checkpoints, durably and atomically.
+     */
+    private void writeManifestLocked() throws IOException {
+        StringBuilder manifest = new StringBuilder(MANIFEST_VERSION).append('\n')
+                .append("wal-checkpoint ").append(walCheckpoint).append('\n')
+                .append("deleted-checkpoint ").append(deletedCheckpoint).append('\n');
+        for (FragmentSegment segment : segments) {
+            manifest.append("segment ").append(segment.getPath().getFileName()).append('\n');
+        }
+        Path temp = directory.resolve(MANIFEST_FILE + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, ByteBuffer.wrap(manifest.toString().getBytes(StandardCharsets.UTF_8)));
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(MANIFEST_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void appendToWal(long fileId, FragmentFingerprinter.Fingerprints fingerprints) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(WAL_BUFFER_SIZE);
+        buffer.putLong(fileId).putInt(fingerprints.size());
+        for (int i = 0; i < fingerprints.size(); i++) {
+            if (buffer.remaining() < WAL_ENTRY_SIZE) {
+                writeFully(wal, buffer.flip());
+                buffer.clear();
+            }
+            buffer.putLong(fingerprints.hash(i)).putInt(fingerprints.start(i)).putInt(fingerprints.end(i));
+        }
+        writeFully(wal, buffer.flip());
+    }
+
+    /**
+     * Reloads postings that were not flushed yet. A record cut short by a crash is dropped.
+     */
+    private void replayWal() throws IOException {
+        long size = wal.size();
+        if (size < walCheckpoint) {
+            // The log was truncated after the checkpoint, before the manifest recorded that
+            walCheckpoint = 0;
+        }
+        if (size == walCheckpoint) {
+            wal.position(size);
+            return;
+        }
+        ByteBuffer log = wal.map(FileChannel.MapMode.READ_ONLY, walCheckpoint, size - walCheckpoint);
+        long valid = 0;
+        while (log.remaining() >= WAL_HEADER_SIZE) {
+            long fileId = log.getLong();
+            int count = log.getInt();
+            if (count < 0 || log.remaining() < (long) count * WAL_ENTRY_SIZE) {
+                break;
+            }
+            for (int i = 0; i < count; i++) {
+                long hash = log.getLong();
+                int start = log.getInt();
+                int end = log.getInt();
+                memtable.computeIfAbsent(hash, key -> new MemoryPostings()).add(fileId, start, end);
+            }
+            memtablePostings += count;
+            valid = log.position();
+        }
+        valid += walCheckpoint;
+        if (valid < size) {
+            logger.warn("Dropping {} bytes of an incomplete fragment index log record", size - valid);
+            wal.truncate(valid);
+        }
+        wal.position(valid);
+    }
+
+    private void replayDeletedLog() throws IOException {
+        long size = deletedLog.size();
+        if (size < deletedCheckpoint) {
+            deletedCheckpoint = 0;
+        }
+        if (size == deletedCheckpoint) {
+            deletedLog.position(size);
+            return;
+        }
+        ByteBuffer log = deletedLog.map(FileChannel.MapMode.READ_ONLY, deletedCheckpoint, size - deletedCheckpoint);
+        while (log.remaining() >= Long.BYTES) {
+            deleted.add(log.getLong());
+        }
+        deletedLog.position(deletedCheckpoint + log.position());
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static String segmentName(long number) {
+        return String.format("%s%016d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX);
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            flushLocked();
+            for (FragmentSegment segment : segments) {
+                segment.close();
+            }
+            segments.clear();
+            wal.close();
+            deletedLog.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @FunctionalInterface
+    interface PostingConsumer {
+        void accept(long fileId, int start, int end);
+    }
+
+    private static final class MemoryPostings {
+        private long[] fileIds = new long[2];
+        private int[] starts = new int[2];
+        private int[] ends = new int[2];
+        private int size;
+
+        void add(long fileId, int start, int end) {
+            if (size == fileIds.length) {
+                fileIds = Arrays.copyOf(fileIds, size * 2);
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            fileIds[size] = fileId;
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+        }
+    }
+
+    /**
+     * Collects the postings of one term and hands them to a segment writer in file and offset order.
+     */
+    private static final class PostingBuffer {
+        private final MemoryPostings postings = new MemoryPostings();
+        private Integer[] order = new Integer[0];
+
+        void clear() {
+            postings.size = 0;
+        }
+
+        void add(long fileId, int start, int end) {
+            postings.add(fileId, start, end);
+        }
+
+        void addTo(FragmentSegment.Writer writer, long hash) throws IOException {
+            int size = postings.size;
+            if (size == 0) {
+                return;
+            }
+            if (order.length < size) {
+                order = new Integer[postings.fileIds.length];
+            }
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, 0, size, Comparator.<Integer>comparingLong(i -> postings.fileIds[i])
+                    .thenComparingInt(i -> postings.starts[i]));
+            long[] fileIds = new long[size];
+            int[] starts = new int[size];
+            int[] ends = new int[size];
+            for (int i = 0; i < size; i++) {
+                fileIds[i] = postings.fileIds[order[i]];
+                starts[i] = postings.starts[order[i]];
+                ends[i] = postings.ends[order[i]];
+            }
+            writer.addTerm(hash, fileIds, starts, ends, size);
+        }
+    }
+
+    @Getter
+    public static class Match {
+        private final long fileId;
+        private final List<Span> spans;
+        private final long matchedLength;
+
+        public Match(long fileId, List<Span> spans) {
+            this.fileId = fileId;
+            this.spans = spans;
+            this.matchedLength = spans.stream().mapToLong(span -> span.getQueryEnd() - span.getQueryStart()).sum();
+        }
+    }
+
+    /**
+     * A passage found in both the query and a source file, as byte ranges of each.
+     */
+    @Getter
+    public static class Span {
+        private final int queryStart;
+        private final int queryEnd;
+        private final int sourceStart;
+        private final int sourceEnd;
+        private final int fingerprints;
+
+        public Span(int queryStart, int queryEnd, int sourceStart, int sourceEnd, int fingerprints) {
+            this.queryStart = queryStart;
+            this.queryEnd = queryEnd;
+            this.sourceStart = sourceStart;
+            this.sourceEnd = sourceEnd;
+            this.fingerprints = fingerprints;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package org.example.similarity;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Immutable, memory-mapped part of the {@link FragmentIndex}.
+ * <p>
+ * Layout: a header ({@code magic}, term count, start of the term directory), the postings, then
+ * the term directory: the sorted shingle hashes as {@code long}s and the start of every term's
+ * postings as {@code int}s (plus the end of the last one). Segments written before the directory
+ * moved to the end keep it right after a shorter header and are still read. A term's postings are a varint count followed by its postings ordered by file and offset, each as
+ * varints: file ID delta, start offset (a delta within the same file), and length in bytes.
+ */
+final class FragmentSegment implements Closeable {
+    static final int MAX_SIZE = Integer.MAX_VALUE;
+
+    private static final int MAGIC_V1 = 0x46524731;
+    private static final int MAGIC_V2 = 0x46524732;
+    private static final int HEADER_SIZE_V1 = 2 * Integer.BYTES;
+    private static final int HEADER_SIZE_V2 = 3 * Integer.BYTES;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int termCount;
+    private final int hashesStart;
+    private final int offsetsStart;
+    private final int postingsStart;
+
+    private FragmentSegment(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        long size = channel.size();
+        if (size > MAX_SIZE || size < HEADER_SIZE_V1) {
+            channel.close();
+            throw new IOException("Not a fragment index segment: " + path);
+        }
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        int magic = buffer.getInt(0);
+        this.termCount = buffer.getInt(Integer.BYTES);
+        if (magic == MAGIC_V2 && size >= HEADER_SIZE_V2) {
+            this.hashesStart = buffer.getInt(2 * Integer.BYTES);
+            this.offsetsStart = hashesStart + termCount * Long.BYTES;
+            this.postingsStart = HEADER_SIZE_V2;
+        } else if (magic == MAGIC_V1) {
+            this.hashesStart = HEADER_SIZE_V1;
+            this.offsetsStart = hashesStart + termCount * Long.BYTES;
+            this.postingsStart = offsetsStart + (termCount + 1) * Integer.BYTES;
+        } else {
+            channel.close();
+            throw new IOException("Not a fragment index segment: " + path);
+        }
+    }
+
+    static FragmentSegment open(Path path) throws IOException {
+        return new FragmentSegment(path);
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    int termCount() {
+        return termCount;
+    }
+
+    long hash(int term) {
+        return buffer.getLong(hashesStart + term * Long.BYTES);
+    }
+
+    /**
+     * @return the term index of {@code hash}, or {@code -1} if the segment does not contain it
+     */
+    int find(long hash) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long value = hash(middle);
+            if (value < hash) {
+                low = middle + 1;
+            } else if (value > hash) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    void postings(int term, FragmentIndex.PostingConsumer consumer) {
+        int[] position = {postingsStart + buffer.getInt(offsetsStart + term * Integer.BYTES)};
+        int count = (int) readVarint(position);
+        long fileId = 0;
+        long start = 0;
+        for (int i = 0; i < count; i++) {
+            long fileDelta = readVarint(position);
+            long startValue = readVarint(position);
+            long length = readVarint(position);
+            fileId += fileDelta;
+            start = fileDelta == 0 && i > 0 ? start + startValue : startValue;
+            consumer.accept(fileId, (int) start, (int) (start + length));
+        }
+    }
+
+    private long readVarint(int[] position) {
+        long value = 0;
+        int shift = 0;
+        byte current;
+        do {
+            current = buffer.get(position[0]++);
+            value |= (long) (current & 0x7F) << shift;
+            shift += 7;
+        } while (current < 0);
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Streams sorted terms into a segment file. Postings are written out as terms are added and
+     * the term directory goes to side files, so memory use does not grow with the segment.
+     */
+    static final class Writer implements Closeable {
+        private final Path target;
+        private final Path temp;
+        private final Path hashesTemp;
+        private final Path offsetsTemp;
+        private final DataOutputStream postings;
+        private final DataOutputStream hashes;
+        private final DataOutputStream offsets;
+        private long lastHash;
+        private int termCount;
+        private boolean finished;
+
+        Writer(Path target) throws IOException {
+            this.target = target;
+            this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+            this.hashesTemp = target.resolveSibling(target.getFileName() + ".hashes.tmp");
+            this.offsetsTemp = target.resolveSibling(target.getFileName() + ".offsets.tmp");
+            this.postings = open(temp);
+            this.hashes = open(hashesTemp);
+            this.offsets = open(offsetsTemp);
+            // Rewritten by finish(), once the term count and directory position are known
+            postings.write(new byte[HEADER_SIZE_V2]);
+        }
+
+        private static DataOutputStream open(Path path) throws IOException {
+            return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE));
+        }
+
+        /**
+         * Adds the next term; terms must come in ascending hash order and their postings in
+         * ascending file and offset order.
+         */
+        void addTerm(long hash, long[] fileIds, int[] starts, int[] ends, int count) throws IOException {
+            if (termCount > 0 && hash <= lastHash) {
+                throw new IllegalArgumentException("Terms must be added in ascending order");
+            }
+            hashes.writeLong(hash);
+            offsets.writeInt(postings.size() - HEADER_SIZE_V2);
+            writeVarint(postings, count);
+            long previousFile = 0;
+            int previousStart = 0;
+            for (int i = 0; i < count; i++) {
+                long fileDelta = fileIds[i] - previousFile;
+                writeVarint(postings, fileDelta);
+                writeVarint(postings, fileDelta == 0 && i > 0 ? starts[i] - previousStart : starts[i]);
+                writeVarint(postings, ends[i] - starts[i]);
+                previousFile = fileIds[i];
+                previousStart = starts[i];
+            }
+            lastHash = hash;
+            termCount++;
+            if (estimatedSize() > MAX_SIZE) {
+                throw new IOException("Fragment index segment would exceed " + MAX_SIZE + " bytes");
+            }
+        }
+
+        long estimatedSize() {
+            // DataOutputStream.size() saturates at Integer.MAX_VALUE, which is over the limit anyway
+            return (long) postings.size() + (long) termCount * (Long.BYTES + Integer.BYTES) + Integer.BYTES;
+        }
+
+        boolean isEmpty() {
+            return termCount == 0;
+        }
+
+        /**
+         * Appends the term directory, syncs the file and moves it into place, so a segment is
+         * never seen half written.
+         */
+        void finish() throws IOException {
+            int directoryStart = postings.size();
+            offsets.writeInt(directoryStart - HEADER_SIZE_V2);
+            hashes.close();
+            offsets.close();
+            Files.copy(hashesTemp, postings);
+            Files.copy(offsetsTemp, postings);
+            postings.close();
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE_V2)
+                        .putInt(MAGIC_V2).putInt(termCount).putInt(directoryStart).flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            finished = true;
+            close();
+        }
+
+        @Override
+        public void close() throws IOException {
+            hashes.close();
+            offsets.close();
+            postings.close();
+            Files.deleteIfExists(hashesTemp);
+            Files.deleteIfExists(offsetsTemp);
+            if (!finished) {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        private static void writeVarint(DataOutputStream output, long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                output.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            output.write((int) value);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.example.similarity;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Locality-sensitive hashing index over MinHash signatures.
+ * <p>
+ * The signature is split into {@code bands} bands of {@code rows} components; documents sharing
+ * at least one identical band become candidates, which are then scored by signature agreement.
+ * With 16 bands of 8 rows a pair with similarity 0.8 is found with ~95% probability, while pairs
+ * below 0.5 are rarely even looked at.
+ */
+public class LshIndex {
+    public static final int DEFAULT_BANDS = 16;
+
+    private final int bands;
+    private final int rows;
+    private final ConcurrentHashMap<Long, Postings> buckets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, int[]> signatures = new ConcurrentHashMap<>();
+
+    public LshIndex(int numHashes, int bands) {
+        if (bands <= 0 || numHashes % bands != 0) {
+            throw new IllegalArgumentException("Signature length must be divisible by the number of bands");
+        }
+        this.bands = bands;
+        this.rows = numHashes / bands;
+    }
+
+    public int size() {
+        return signatures.size();
+    }
+
+    public void add(long id, int[] signature) {
+        if (signatures.put(id, signature) != null) {
+            return;
+        }
+        for (int band = 0; band < bands; band++) {
+            // Appends inside compute, so a concurrent remove cannot unmap the bucket in between
+            buckets.compute(bucketKey(signature, band), (key, postings) -> {
+                Postings bucket = postings == null ? new Postings() : postings;
+                bucket.add(id);
+                return bucket;
+            });
+        }
+    }
+
+    public void remove(long id) {
+        int[] signature = signatures.remove(id);
+        if (signature == null) {
+            return;
+        }
+        for (int band = 0; band < bands; band++) {
+            buckets.computeIfPresent(bucketKey(signature, band),
+                    (key, postings) -> postings.remove(id) ? null : postings);
+        }
+    }
+
+    /**
+     * @return indexed documents other than {@code excludeId} whose estimated similarity to the
+     * signature is at least {@code threshold}, most similar first
+     */
+    public List<Match> query(int[] signature, long excludeId, double threshold, int limit) {
+        Set<Long> candidates = new HashSet<>();
+        for (int band = 0; band < bands; band++) {
+            Postings postings = buckets.get(bucketKey(signature, band));
+            if (postings != null) {
+                postings.addTo(candidates);
+            }
+        }
+        candidates.remove(excludeId);
+
+        List<Match> matches = new ArrayList<>();
+        for (Long candidate : candidates) {
+            int[] candidateSignature = signatures.get(candidate);
+            if (candidateSignature == null) {
+                continue;
+            }
+            double similarity = MinHasher.estimateSimilarity(signature, candidateSignature);
+            if (similarity >= threshold) {
+                matches.add(new Match(candidate, similarity));
+            }
+        }
+        matches.sort(Comparator.comparingDouble(Match::getSimilarity).reversed()
+                .thenComparingLong(Match::getId));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    private long bucketKey(int[] signature, int band) {
+        return bucketKey(signature, band, rows);
+    }
+
+    static long bucketKey(int[] signature, int band, int rows) {
+        long key = band;
+        for (int i = band * rows; i < (band + 1) * rows; i++) {
+            key = MinHasher.mix(key * 31 + signature[i]);
+        }
+        return key;
+    }
+
+    /**
+     * Ids of one bucket in a growable array; appends double the capacity instead of copying the
+     * whole bucket on every insert.
+     */
+    private static final class Postings {
+        private long[] ids = new long[2];
+        private int size;
+
+        synchronized void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        /**
+         * @return whether the bucket became empty
+         */
+        synchronized boolean remove(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--size];
+                    break;
+                }
+            }
+            return size == 0;
+        }
+
+        synchronized void addTo(Set<Long> candidates) {
+            for (int i = 0; i < size; i++) {
+                candidates.add(ids[i]);
+            }
+        }
+    }
+
+    @Getter
+    public static class Match {
+        private final long id;
+        private final double similarity;
+
+        public Match(long id, double similarity) {
+            this.id = id;
+            this.similarity = similarity;
+        }
+    }
+}
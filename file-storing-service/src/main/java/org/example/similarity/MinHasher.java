@@ -0,0 +1,214 @@
+package org.example.similarity;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Computes MinHash signatures over word shingles of UTF-8 text.
+ * <p>
+ * Text is decoded and tokenized on the fly (letters and digits, case-insensitive), every run of
+ * {@code shingleSize} consecutive tokens forms a shingle, and the signature keeps the minimum of
+ * {@code numHashes} independent hash functions over all shingles. The fraction of equal signature
+ * components of two documents estimates the Jaccard similarity of their shingle sets.
+ */
+public class MinHasher {
+    public static final int DEFAULT_NUM_HASHES = 128;
+    public static final int DEFAULT_SHINGLE_SIZE = 5;
+
+    private static final long SEED = 0x5DEECE66DL;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int REPLACEMENT_CHARACTER = 0xFFFD;
+
+    private final int shingleSize;
+    private final long[] multipliers;
+    private final long[] seeds;
+
+    public MinHasher() {
+        this(DEFAULT_NUM_HASHES, DEFAULT_SHINGLE_SIZE);
+    }
+
+    public MinHasher(int numHashes, int shingleSize) {
+        if (numHashes <= 0 || shingleSize <= 0) {
+            throw new IllegalArgumentException("numHashes and shingleSize must be positive");
+        }
+        this.shingleSize = shingleSize;
+        this.multipliers = new long[numHashes];
+        this.seeds = new long[numHashes];
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < numHashes; i++) {
+            multipliers[i] = random.nextLong() | 1;
+            seeds[i] = random.nextLong();
+        }
+    }
+
+    public int getNumHashes() {
+        return seeds.length;
+    }
+
+    public Accumulator newAccumulator() {
+        return new Accumulator();
+    }
+
+    /**
+     * @return the signature of the given UTF-8 content, or {@code null} if it contains no words
+     */
+    public int[] signature(byte[] content) {
+        Accumulator accumulator = newAccumulator();
+        accumulator.update(content, 0, content.length);
+        return accumulator.finish();
+    }
+
+    public static double estimateSimilarity(int[] first, int[] second) {
+        if (first.length != second.length) {
+            throw new IllegalArgumentException("Signatures have different lengths");
+        }
+        int equal = 0;
+        for (int i = 0; i < first.length; i++) {
+            if (first[i] == second[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / first.length;
+    }
+
+    public static byte[] toBytes(int[] signature) {
+        if (signature == null) {
+            return null;
+        }
+        byte[] bytes = new byte[signature.length * Integer.BYTES];
+        for (int i = 0; i < signature.length; i++) {
+            int value = signature[i];
+            int offset = i * Integer.BYTES;
+            bytes[offset] = (byte) (value >>> 24);
+            bytes[offset + 1] = (byte) (value >>> 16);
+            bytes[offset + 2] = (byte) (value >>> 8);
+            bytes[offset + 3] = (byte) value;
+        }
+        return bytes;
+    }
+
+    public static int[] fromBytes(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        int[] signature = new int[bytes.length / Integer.BYTES];
+        for (int i = 0; i < signature.length; i++) {
+            int offset = i * Integer.BYTES;
+            signature[i] = (bytes[offset] & 0xFF) << 24
+                    | (bytes[offset + 1] & 0xFF) << 16
+                    | (bytes[offset + 2] & 0xFF) << 8
+                    | (bytes[offset + 3] & 0xFF);
+        }
+        return signature;
+    }
+
+    static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    /**
+     * Incremental, allocation-free signature builder. Content may be fed in arbitrary chunks,
+     * multi-byte UTF-8 sequences split between chunks are handled. Not thread-safe, single use.
+     */
+    public final class Accumulator {
+        private final int[] minimums = new int[seeds.length];
+        private final long[] window = new long[shingleSize];
+        private long tokenCount;
+        private long tokenHash = FNV_OFFSET;
+        private boolean inToken;
+        private boolean hasShingles;
+        private int codePoint;
+        private int pendingBytes;
+
+        private Accumulator() {
+            Arrays.fill(minimums, Integer.MAX_VALUE);
+        }
+
+        public void update(byte[] buffer, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                update(buffer[i]);
+            }
+        }
+
+        private void update(byte value) {
+            if (pendingBytes > 0) {
+                if ((value & 0xC0) == 0x80) {
+                    codePoint = (codePoint << 6) | (value & 0x3F);
+                    if (--pendingBytes == 0) {
+                        accept(codePoint);
+                    }
+                    return;
+                }
+                pendingBytes = 0;
+                accept(REPLACEMENT_CHARACTER);
+            }
+            if (value >= 0) {
+                accept(value);
+            } else if ((value & 0xE0) == 0xC0) {
+                codePoint = value & 0x1F;
+                pendingBytes = 1;
+            } else if ((value & 0xF0) == 0xE0) {
+                codePoint = value & 0x0F;
+                pendingBytes = 2;
+            } else if ((value & 0xF8) == 0xF0) {
+                codePoint = value & 0x07;
+                pendingBytes = 3;
+            } else {
+                accept(REPLACEMENT_CHARACTER);
+            }
+        }
+
+        private void accept(int character) {
+            if (Character.isLetterOrDigit(character)) {
+                tokenHash = (tokenHash ^ Character.toLowerCase(character)) * FNV_PRIME;
+                inToken = true;
+            } else if (inToken) {
+                endToken();
+            }
+        }
+
+        private void endToken() {
+            window[(int) (tokenCount % shingleSize)] = mix(tokenHash);
+            tokenCount++;
+            tokenHash = FNV_OFFSET;
+            inToken = false;
+            if (tokenCount >= shingleSize) {
+                addShingle(shingleSize);
+            }
+        }
+
+        private void addShingle(int tokens) {
+            long shingle = 0;
+            for (long i = tokenCount - tokens; i < tokenCount; i++) {
+                shingle = mix(shingle ^ window[(int) (i % shingleSize)]);
+            }
+            for (int i = 0; i < seeds.length; i++) {
+                int hash = (int) ((shingle * multipliers[i] + seeds[i]) >>> 32);
+                if (hash < minimums[i]) {
+                    minimums[i] = hash;
+                }
+            }
+            hasShingles = true;
+        }
+
+        /**
+         * @return the signature, or {@code null} if no words were seen
+         */
+        public int[] finish() {
+            if (pendingBytes > 0) {
+                pendingBytes = 0;
+                accept(REPLACEMENT_CHARACTER);
+            }
+            if (inToken) {
+                endToken();
+            }
+            if (!hasShingles && tokenCount > 0) {
+                addShingle((int) tokenCount);
+            }
+            return hasShingles ? minimums : null;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package org.example.similarity;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds all pairs of documents in a set whose MinHash signatures agree on at least a threshold
+ * fraction of components, and groups them into clusters of transitively similar documents.
+ * <p>
+ * Instead of comparing every pair, candidates come from the same banding as {@link LshIndex}: in
+ * each band the documents are sorted by band key, and only documents in the same run are
+ * compared. A pair colliding in several bands is verified once, in the first band it collides in.
+ * Band keys, sorting and verification run as fork/join tasks on the given pool.
+ */
+public class SimilarityClusterer {
+    private static final int INDEX_BITS = 24;
+    public static final int MAX_DOCUMENTS = 1 << INDEX_BITS;
+
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+    private static final int DOCUMENTS_PER_TASK = 256;
+    private static final int PAIRS_PER_TASK = 4096;
+
+    private final int bands;
+
+    public SimilarityClusterer(int bands) {
+        if (bands <= 0) {
+            throw new IllegalArgumentException("bands must be positive");
+        }
+        this.bands = bands;
+    }
+
+    /**
+     * @param ids        document IDs
+     * @param signatures signatures of the documents, all of the same length, in the order of {@code ids}
+     * @return clusters of at least two documents, largest first
+     */
+    public List<Cluster> cluster(long[] ids, int[][] signatures, double threshold, ForkJoinPool pool) {
+        int count = ids.length;
+        if (count != signatures.length) {
+            throw new IllegalArgumentException("Every document needs a signature");
+        }
+        if (count > MAX_DOCUMENTS) {
+            throw new IllegalArgumentException("At most " + MAX_DOCUMENTS + " documents are supported");
+        }
+        if (count < 2) {
+            return List.of();
+        }
+        int length = signatures[0].length;
+        for (int[] signature : signatures) {
+            if (signature.length != length) {
+                throw new IllegalArgumentException("Signatures have different lengths");
+            }
+        }
+        if (length % bands != 0) {
+            throw new IllegalArgumentException("Signature length must be divisible by the number of bands");
+        }
+        int rows = length / bands;
+
+        // Upper bits hold the band key, lower bits the document; a truncated key only adds candidates
+        long[][] entries = new long[bands][count];
+        pool.invoke(new BandKeysTask(signatures, entries, rows, 0, count));
+        for (long[] band : entries) {
+            Arrays.parallelSort(band);
+        }
+
+        List<int[]> runs = new ArrayList<>();
+        for (int band = 0; band < bands; band++) {
+            long[] sorted = entries[band];
+            int start = 0;
+            for (int i = 1; i <= count; i++) {
+                if (i == count || (sorted[i] & ~INDEX_MASK) != (sorted[start] & ~INDEX_MASK)) {
+                    if (i - start > 1) {
+                        runs.add(new int[]{band, start, i});
+                    }
+                    start = i;
+                }
+            }
+        }
+
+        long[][] keys = keysByDocument(entries, count);
+        Edges edges = pool.invoke(new VerifyTask(runs, 0, runs.size(), entries, keys, signatures, threshold));
+        return toClusters(ids, edges);
+    }
+
+    private long[][] keysByDocument(long[][] entries, int count) {
+        long[][] keys = new long[count][bands];
+        for (int band = 0; band < bands; band++) {
+            for (long entry : entries[band]) {
+                keys[(int) (entry & INDEX_MASK)][band] = entry & ~INDEX_MASK;
+            }
+        }
+        return keys;
+    }
+
+    private static List<Cluster> toClusters(long[] ids, Edges edges) {
+        int[] parents = new int[ids.length];
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = i;
+        }
+        for (int i = 0; i < edges.size; i++) {
+            int first = find(parents, edges.first[i]);
+            int second = find(parents, edges.second[i]);
+            if (first != second) {
+                parents[Math.max(first, second)] = Math.min(first, second);
+            }
+        }
+
+        Map<Integer, List<Pair>> pairsByRoot = new HashMap<>();
+        for (int i = 0; i < edges.size; i++) {
+            pairsByRoot.computeIfAbsent(find(parents, edges.first[i]), root -> new ArrayList<>())
+                    .add(new Pair(ids[edges.first[i]], ids[edges.second[i]], edges.similarity[i]));
+        }
+        Map<Integer, List<Long>> membersByRoot = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            int root = find(parents, i);
+            if (pairsByRoot.containsKey(root)) {
+                membersByRoot.computeIfAbsent(root, key -> new ArrayList<>()).add(ids[i]);
+            }
+        }
+
+        List<Cluster> clusters = new ArrayList<>();
+        for (Map.Entry<Integer, List<Long>> members : membersByRoot.entrySet()) {
+            List<Long> fileIds = members.getValue();
+            fileIds.sort(Comparator.naturalOrder());
+            List<Pair> pairs = pairsByRoot.get(members.getKey());
+            pairs.sort(Comparator.comparingDouble(Pair::getSimilarity).reversed()
+                    .thenComparingLong(Pair::getFirstId).thenComparingLong(Pair::getSecondId));
+            clusters.add(new Cluster(fileIds, pairs));
+        }
+        clusters.sort(Comparator.comparingInt((Cluster cluster) -> cluster.getFileIds().size()).reversed()
+                .thenComparingLong(cluster -> cluster.getFileIds().get(0)));
+        return clusters;
+    }
+
+    private static int find(int[] parents, int node) {
+        while (parents[node] != node) {
+            parents[node] = parents[parents[node]];
+            node = parents[node];
+        }
+        return node;
+    }
+
+    private final class BandKeysTask extends RecursiveAction {
+        private final int[][] signatures;
+        private final long[][] entries;
+        private final int rows;
+        private final int from;
+        private final int to;
+
+        BandKeysTask(int[][] signatures, long[][] entries, int rows, int from, int to) {
+            this.signatures = signatures;
+            this.entries = entries;
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= DOCUMENTS_PER_TASK) {
+                for (int document = from; document < to; document++) {
+                    for (int band = 0; band < bands; band++) {
+                        long key = LshIndex.bucketKey(signatures[document], band, rows);
+                        entries[band][document] = (key & ~INDEX_MASK) | document;
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BandKeysTask(signatures, entries, rows, from, middle),
+                    new BandKeysTask(signatures, entries, rows, middle, to));
+        }
+    }
+
+    private static final class VerifyTask extends RecursiveTask<Edges> {
+        private final List<int[]> runs;
+        private final int from;
+        private final int to;
+        private final long[][] entries;
+        private final long[][] keys;
+        private final int[][] signatures;
+        private final double threshold;
+
+        VerifyTask(List<int[]> runs, int from, int to, long[][] entries, long[][] keys,
+                   int[][] signatures, double threshold) {
+            this.runs = runs;
+            this.from = from;
+            this.to = to;
+            this.entries = entries;
+            this.keys = keys;
+            this.signatures = signatures;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Edges compute() {
+            long pairs = 0;
+            for (int i = from; i < to && pairs <= PAIRS_PER_TASK; i++) {
+                long size = runs.get(i)[2] - runs.get(i)[1];
+                pairs += size * (size - 1) / 2;
+            }
+            if (to - from <= 1 || pairs <= PAIRS_PER_TASK) {
+                Edges edges = new Edges();
+                for (int i = from; i < to; i++) {
+                    verifyRun(runs.get(i), edges);
+                }
+                return edges;
+            }
+            int middle = (from + to) >>> 1;
+            VerifyTask left = new VerifyTask(runs, from, middle, entries, keys, signatures, threshold);
+            left.fork();
+            Edges right = new VerifyTask(runs, middle, to, entries, keys, signatures, threshold).compute();
+            return left.join().append(right);
+        }
+
+        private void verifyRun(int[] run, Edges edges) {
+            int band = run[0];
+            long[] sorted = entries[band];
+            for (int i = run[1]; i < run[2]; i++) {
+                int first = (int) (sorted[i] & INDEX_MASK);
+                for (int j = i + 1; j < run[2]; j++) {
+                    int second = (int) (sorted[j] & INDEX_MASK);
+                    if (collidedEarlier(first, second, band)) {
+                        continue;
+                    }
+                    double similarity = MinHasher.estimateSimilarity(signatures[first], signatures[second]);
+                    if (similarity >= threshold) {
+                        edges.add(Math.min(first, second), Math.max(first, second), similarity);
+                    }
+                }
+            }
+        }
+
+        private boolean collidedEarlier(int first, int second, int band) {
+            for (int earlier = 0; earlier < band; earlier++) {
+                if (keys[first][earlier] == keys[second][earlier]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Edges {
+        private int[] first = new int[16];
+        private int[] second = new int[16];
+        private double[] similarity = new double[16];
+        private int size;
+
+        void add(int firstDocument, int secondDocument, double value) {
+            if (size == first.length) {
+                first = Arrays.copyOf(first, size * 2);
+                second = Arrays.copyOf(second, size * 2);
+                similarity = Arrays.copyOf(similarity, size * 2);
+            }
+            first[size] = firstDocument;
+            second[size] = secondDocument;
+            similarity[size] = value;
+            size++;
+        }
+
+        Edges append(Edges other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.first[i], other.second[i], other.similarity[i]);
+            }
+            return this;
+        }
+    }
+
+    @Getter
+    public static class Cluster {
+        private final List<Long> fileIds;
+        private final List<Pair> pairs;
+
+        public Cluster(List<Long> fileIds, List<Pair> pairs) {
+            this.fileIds = fileIds;
+            this.pairs = pairs;
+        }
+    }
+
+    @Getter
+    public static class Pair {
+        private final long firstId;
+        private final long secondId;
+        private final double similarity;
+
+        public Pair(long firstId, long secondId, double similarity) {
+            this.firstId = firstId;
+            this.secondId = secondId;
+            this.similarity = similarity;
+        }
+    }
+}
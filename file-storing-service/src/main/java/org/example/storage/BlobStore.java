@@ -0,0 +1,102 @@
+package org.example.storage;
+
+import org.example.exception.FileStorageException;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed store for uploaded files.
+ * <p>
+ * Every distinct content is kept exactly once under {@code blobs/<ab>/<cd>/<sha256>}, where the two
+ * shard directories are the first two bytes of the hash. Blobs are written to a temp file first and
+ * renamed into place, so readers never see partial content.
+ */
+public class BlobStore {
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path blobRoot;
+    private final Path tempRoot;
+    private final Lock[] locks = new Lock[LOCK_STRIPES];
+
+    public BlobStore(Path storageLocation) {
+        this.blobRoot = storageLocation.resolve("blobs");
+        this.tempRoot = storageLocation.resolve("tmp");
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        try {
+            Files.createDirectories(blobRoot);
+            Files.createDirectories(tempRoot);
+        } catch (IOException e) {
+            throw new FileStorageException("Could not create the blob storage directories", e);
+        }
+    }
+
+    public Path createTempFile() throws IOException {
+        return Files.createTempFile(tempRoot, "upload-", ".tmp");
+    }
+
+    public Path pathFor(String hash) {
+        if (!HASH_PATTERN.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Not a SHA-256 hex digest: " + hash);
+        }
+        return blobRoot.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    /**
+     * Moves a fully written temp file into the store under its hash. If the content is already
+     * stored, the temp file is discarded instead.
+     *
+     * @return {@code true} if the blob was newly stored, {@code false} if it already existed
+     */
+    public boolean commit(Path tempFile, String hash) throws IOException {
+        Path target = pathFor(hash);
+        if (Files.exists(target)) {
+            Files.deleteIfExists(tempFile);
+            return false;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            Files.deleteIfExists(tempFile);
+            return false;
+        }
+    }
+
+    public void delete(String hash) throws IOException {
+        Files.deleteIfExists(pathFor(hash));
+    }
+
+    /**
+     * Lock guarding the reference count of a blob: committing a new reference and releasing the
+     * last one must not interleave, otherwise a fresh upload could lose its content.
+     */
+    public Lock lockFor(String hash) {
+        return locks[stripe(hash)];
+    }
+
+    /**
+     * @return the distinct locks of all the hashes, in a fixed order, so callers locking several
+     * blobs at once cannot deadlock with each other
+     */
+    public List<Lock> locksFor(Collection<String> hashes) {
+        return hashes.stream().mapToInt(BlobStore::stripe).distinct().sorted()
+                .mapToObj(stripe -> locks[stripe]).toList();
+    }
+
+    private static int stripe(String hash) {
+        return Math.floorMod(hash.hashCode(), LOCK_STRIPES);
+    }
+}
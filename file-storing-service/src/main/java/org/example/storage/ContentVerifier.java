@@ -0,0 +1,57 @@
+package org.example.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Confirms that two stored files with the same hash really have the same content, cheapest check
+ * first: stored sizes, then whether both point to the same blob, and only then a streaming
+ * byte-by-byte comparison. Confirmed pairs are remembered, so repeated plagiarism checks of a
+ * popular document do not read it again.
+ */
+public class ContentVerifier {
+    private static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    private final Map<PairKey, Boolean> verifiedPairs;
+
+    public ContentVerifier() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    public ContentVerifier(int cacheSize) {
+        this.verifiedPairs = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PairKey, Boolean> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * @param firstSize  stored size of the first file, or {@code null} if unknown
+     * @param secondSize stored size of the second file, or {@code null} if unknown
+     */
+    public boolean sameContent(long firstId, Path firstPath, Long firstSize,
+                               long secondId, Path secondPath, Long secondSize) throws IOException {
+        if (firstSize != null && secondSize != null && !firstSize.equals(secondSize)) {
+            return false;
+        }
+        PairKey key = new PairKey(Math.min(firstId, secondId), Math.max(firstId, secondId));
+        if (verifiedPairs.containsKey(key)) {
+            return true;
+        }
+        // Files.mismatch compares in small chunks and stops at the first differing byte
+        boolean equal = firstPath.equals(secondPath) || Files.mismatch(firstPath, secondPath) == -1L;
+        if (equal) {
+            verifiedPairs.put(key, Boolean.TRUE);
+        }
+        return equal;
+    }
+
+    private record PairKey(long first, long second) {
+    }
+}
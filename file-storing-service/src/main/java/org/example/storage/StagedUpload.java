@@ -0,0 +1,25 @@
+package org.example.storage;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+/**
+ * Uploaded content written to a temp file and fingerprinted, but not yet stored.
+ */
+@Getter
+public class StagedUpload {
+    private final String name;
+    private final Path tempFile;
+    private final String hash;
+    private final long size;
+    private final int[] signature;
+
+    public StagedUpload(String name, Path tempFile, String hash, long size, int[] signature) {
+        this.name = name;
+        this.tempFile = tempFile;
+        this.hash = hash;
+        this.size = size;
+        this.signature = signature;
+    }
+}
@@ -0,0 +1,24 @@
+-- Ids used to come from identity columns. Moves each id sequence past the rows inserted that way,
+-- so ids allocated from it never collide with them; a no-op once the sequence is ahead.
+-- Runs on every startup while other instances may be allocating ids, so the sequences are only
+-- ever advanced with nextval, never set back, and concurrent startups take turns on the lock.
+DO $$
+DECLARE
+    max_id bigint;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('align-id-sequences'));
+
+    SELECT COALESCE(MAX(id), 0) INTO max_id FROM file_metadata;
+    IF (SELECT last_value FROM file_metadata_seq) < max_id THEN
+        WHILE nextval('file_metadata_seq') < max_id LOOP
+        END LOOP;
+    END IF;
+
+    SELECT COALESCE(MAX(id), 0) INTO max_id FROM outbox_event;
+    IF (SELECT last_value FROM outbox_event_seq) < max_id THEN
+        WHILE nextval('outbox_event_seq') < max_id LOOP
+        END LOOP;
+    END IF;
+END
+$$
+@@
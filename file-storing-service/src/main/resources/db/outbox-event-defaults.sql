@@ -0,0 +1,14 @@
+-- Event times are set by the database on insert. Hibernate only adds column defaults when it
+-- creates the table, so tables created before that get them here; a no-op once they are set.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+                WHERE table_schema = current_schema() AND table_name = 'outbox_event'
+                  AND column_name IN ('created_at', 'available_at') AND column_default IS NULL) THEN
+        ALTER TABLE outbox_event
+            ALTER COLUMN created_at SET DEFAULT now(),
+            ALTER COLUMN available_at SET DEFAULT now();
+    END IF;
+END
+$$
+@@
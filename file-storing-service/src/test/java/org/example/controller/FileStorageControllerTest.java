@@ -0,0 +1,82 @@
+package org.example.controller;
+
+import org.example.dto.FileResource;
+import org.example.service.BulkUploadService;
+import org.example.service.FileStorageService;
+import org.example.service.FragmentIndexService;
+import org.example.service.SimilarityReportService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(FileStorageController.class)
+class FileStorageControllerTest {
+    private static final String FILENAME = "отчёт \"final\"\r\nX-Injected: 1.txt";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private FileStorageService fileStorageService;
+
+    @MockBean
+    private SimilarityReportService similarityReportService;
+
+    @MockBean
+    private FragmentIndexService fragmentIndexService;
+
+    @MockBean
+    private BulkUploadService bulkUploadService;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void getFile_WhenSentWithSendfile_ShouldEscapeFilename() throws Exception {
+        Path file = Files.write(tempDir.resolve("large.txt"), new byte[128 * 1024]);
+        when(fileStorageService.loadFileAsResource(1L)).thenReturn(new FileResource(file, FILENAME, "abc", Files.size(file)));
+
+        MvcResult result = mockMvc.perform(get("/files/1").requestAttr("org.apache.tomcat.sendfile.support", true))
+            .andExpect(status().isOk())
+            .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", file.toAbsolutePath().toString()))
+            .andReturn();
+
+        assertFilenameEscaped(result.getResponse().getHeader(HttpHeaders.CONTENT_DISPOSITION));
+    }
+
+    @Test
+    void getFile_WhenStreamed_ShouldEscapeFilename() throws Exception {
+        Path file = Files.write(tempDir.resolve("small.txt"), "Hello, World!".getBytes(StandardCharsets.UTF_8));
+        when(fileStorageService.loadFileAsResource(1L)).thenReturn(new FileResource(file, FILENAME, "abc", Files.size(file)));
+
+        MvcResult result = mockMvc.perform(get("/files/1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+        assertFilenameEscaped(result.getResponse().getHeader(HttpHeaders.CONTENT_DISPOSITION));
+    }
+
+    private static void assertFilenameEscaped(String header) {
+        assertNotNull(header);
+        assertFalse(header.contains("\r") || header.contains("\n"), header);
+        ContentDisposition disposition = ContentDisposition.parse(header);
+        assertEquals("attachment", disposition.getType());
+        assertEquals(FILENAME, disposition.getFilename());
+    }
+}
@@ -0,0 +1,151 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.dto.BulkUploadEntryDTO;
+import org.example.dto.BulkUploadResponseDTO;
+import org.example.exception.TooManyFilesException;
+import org.example.model.FileMetadata;
+import org.example.repository.FileMetadataRepository;
+import org.example.repository.OutboxEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkUploadServiceTest {
+
+    @Mock
+    private FileMetadataRepository fileMetadataRepository;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    private FragmentIndexService fragmentIndexService;
+    private BulkUploadService bulkUploadService;
+    private Path tempDir;
+    private Path fragmentIndexDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("test-uploads");
+        fragmentIndexDir = Files.createTempDirectory("test-fragment-index");
+        fragmentIndexService = new FragmentIndexService(fragmentIndexDir);
+        FileStorageService fileStorageService = new FileStorageService(fileMetadataRepository,
+                new SimilarityIndexService(fileMetadataRepository), fragmentIndexService,
+                new OutboxService(fileMetadataRepository, outboxEventRepository), new SimpleMeterRegistry(), tempDir);
+        bulkUploadService = new BulkUploadService(fileStorageService, 4, 5, DataSize.ofKilobytes(1));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        bulkUploadService.shutdown();
+        fragmentIndexService.close();
+        FileSystemUtils.deleteRecursively(fragmentIndexDir);
+        FileSystemUtils.deleteRecursively(tempDir);
+    }
+
+    @Test
+    void upload_ShouldStorePartsAndArchiveEntriesInOneSave() throws IOException {
+        when(fileMetadataRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<FileMetadata> files = invocation.getArgument(0);
+            for (int i = 0; i < files.size(); i++) {
+                files.get(i).setId(i + 1L);
+            }
+            return files;
+        });
+        byte[] archive = zip("essays/first.txt", "the first essay", "essays/", null,
+                "essays/image.png", "not text", "essays/copy.txt", "plain part");
+
+        BulkUploadResponseDTO response = bulkUploadService.upload(List.of(
+                part("plain.txt", "plain part".getBytes(StandardCharsets.UTF_8)),
+                part("empty.txt", new byte[0]),
+                part("essays.zip", archive)));
+
+        List<BulkUploadEntryDTO> files = response.getFiles();
+        assertEquals(List.of("plain.txt", "empty.txt", "essays/first.txt", "essays/image.png", "essays/copy.txt"),
+                files.stream().map(BulkUploadEntryDTO::getName).toList());
+        assertEquals(1L, files.get(0).getId());
+        assertFalse(files.get(0).isDuplicate());
+        assertEquals("Empty file", files.get(1).getError());
+        assertEquals(2L, files.get(2).getId());
+        assertNotNull(files.get(3).getError());
+        assertNull(files.get(3).getId());
+        assertEquals(3L, files.get(4).getId());
+        assertTrue(files.get(4).isDuplicate());
+        verify(fileMetadataRepository, times(1)).saveAll(argThat(saved -> ((List<?>) saved).size() == 3));
+        verify(fileMetadataRepository, never()).save(any());
+        verify(outboxEventRepository, times(1)).saveAll(anyList());
+        assertEquals(2, countBlobs());
+    }
+
+    @Test
+    void upload_ShouldRejectOversizedEntriesWithoutStoringThem() throws IOException {
+        byte[] archive = zip("large.txt", "a ".repeat(1024));
+
+        BulkUploadResponseDTO response = bulkUploadService.upload(List.of(part("large.zip", archive)));
+
+        assertNull(response.getFiles().get(0).getId());
+        assertTrue(response.getFiles().get(0).getError().contains("larger than"));
+        verify(fileMetadataRepository, never()).saveAll(anyList());
+        assertEquals(0, countBlobs());
+        try (Stream<Path> temp = Files.list(tempDir.resolve("tmp"))) {
+            assertEquals(0, temp.count());
+        }
+    }
+
+    @Test
+    void upload_ShouldFailWhenArchiveHoldsTooManyFiles() throws IOException {
+        byte[] archive = zip("1.txt", "one", "2.txt", "two", "3.txt", "three", "4.txt", "four", "5.txt", "five",
+                "6.txt", "six");
+
+        assertThrows(TooManyFilesException.class, () -> bulkUploadService.upload(List.of(part("many.zip", archive))));
+        verifyNoInteractions(fileMetadataRepository);
+    }
+
+    private long countBlobs() throws IOException {
+        try (Stream<Path> blobs = Files.walk(tempDir.resolve("blobs"))) {
+            return blobs.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private static MockMultipartFile part(String name, byte[] content) {
+        return new MockMultipartFile("files", name, "application/octet-stream", content);
+    }
+
+    /**
+     * @param entries entry names followed by their content; {@code null} content makes a directory
+     */
+    private static byte[] zip(String... entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < entries.length; i += 2) {
+                zip.putNextEntry(new ZipEntry(entries[i]));
+                if (entries[i + 1] != null) {
+                    zip.write(entries[i + 1].getBytes(StandardCharsets.UTF_8));
+                }
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -1,27 +1,50 @@
 package org.example.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.example.dto.FilePlagiarismResponseDTO;
+import org.example.dto.FileSimilarityResponseDTO;
 import org.example.dto.FileUploadResponseDTO;
+import org.example.dto.FragmentSearchResponseDTO;
+import org.example.dto.FragmentSpanDTO;
 import org.example.exception.FileMetadataNotFoundException;
 import org.example.model.FileMetadata;
+import org.example.model.OutboxEvent;
 import org.example.repository.FileMetadataRepository;
+import org.example.repository.OutboxEventRepository;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.FileSystemUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,7 +53,13 @@ class FileStorageServiceTest {
     @Mock
     private FileMetadataRepository fileMetadataRepository;
 
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
     private FileStorageService fileStorageService;
+    private SimpleMeterRegistry meterRegistry;
+    private FragmentIndexService fragmentIndexService;
+    private Path fragmentIndexDir;
     private MockMultipartFile testFile;
     private FileMetadata testFileMetadata;
     private Path tempDir;
@@ -38,7 +67,12 @@ class FileStorageServiceTest {
     @BeforeEach
     void setUp() throws IOException {
         tempDir = Files.createTempDirectory("test-uploads");
-        fileStorageService = new FileStorageService(fileMetadataRepository, tempDir);
+        fragmentIndexDir = Files.createTempDirectory("test-fragment-index");
+        fragmentIndexService = new FragmentIndexService(fragmentIndexDir);
+        meterRegistry = new SimpleMeterRegistry();
+        fileStorageService = new FileStorageService(fileMetadataRepository,
+                new SimilarityIndexService(fileMetadataRepository), fragmentIndexService,
+                new OutboxService(fileMetadataRepository, outboxEventRepository), meterRegistry, tempDir);
 
         testFile = new MockMultipartFile(
             "test.txt",
@@ -54,6 +88,13 @@ class FileStorageServiceTest {
         testFileMetadata.setLocation(tempDir.resolve("test.txt").toString());
     }
 
+    @AfterEach
+    void tearDown() throws IOException {
+        fragmentIndexService.close();
+        FileSystemUtils.deleteRecursively(fragmentIndexDir);
+        FileSystemUtils.deleteRecursively(tempDir);
+    }
+
     @Test
     void storeFile_ShouldSaveFileAndReturnResponse() throws IOException {
         when(fileMetadataRepository.save(any(FileMetadata.class))).thenReturn(testFileMetadata);
@@ -65,6 +106,28 @@ class FileStorageServiceTest {
         verify(fileMetadataRepository).save(any(FileMetadata.class));
     }
 
+    @Test
+    void storeFile_ShouldPublishUploadedEvent() throws IOException {
+        when(fileMetadataRepository.save(any(FileMetadata.class))).thenReturn(testFileMetadata);
+
+        fileStorageService.storeFile(testFile);
+
+        verify(outboxEventRepository).save(argThat(event ->
+            OutboxEvent.FILE_UPLOADED.equals(event.getEventType()) && event.getFileId().equals(1L)
+                && event.getAttempts() == 0 && event.getAvailableAt() == null));
+    }
+
+    @Test
+    void storeFile_ShouldTimeEachStage() throws IOException {
+        when(fileMetadataRepository.save(any(FileMetadata.class))).thenReturn(testFileMetadata);
+
+        fileStorageService.storeFile(testFile);
+
+        for (String stage : List.of("receive", "hash", "fingerprint", "write", "save", "index")) {
+            assertEquals(1, meterRegistry.get("upload.stage").tag("stage", stage).timer().count(), stage);
+        }
+    }
+
     @Test
     void checkPlagiarism_WhenFileExists_ShouldReturnPlagiarismInfo() {
         when(fileMetadataRepository.findById(1L)).thenReturn(Optional.of(testFileMetadata));
@@ -84,6 +147,59 @@ class FileStorageServiceTest {
         assertThrows(FileMetadataNotFoundException.class, () -> fileStorageService.checkPlagiarism(1L));
     }
 
+    @Test
+    void checkPlagiarism_ShouldMatchRelativeAndLegacyAbsoluteLocations() throws IOException {
+        Files.write(tempDir.resolve("test.txt"), "Hello, World!".getBytes());
+        Files.write(tempDir.resolve("copy.txt"), "Hello, World!".getBytes());
+        testFileMetadata.setSize(13L);
+        FileMetadata copy = metadataWithHash(2L, "copy.txt", 13L);
+        when(fileMetadataRepository.findById(1L)).thenReturn(Optional.of(testFileMetadata));
+        when(fileMetadataRepository.findByHash("test-hash")).thenReturn(List.of(testFileMetadata, copy));
+
+        FilePlagiarismResponseDTO response = fileStorageService.checkPlagiarism(1L);
+
+        assertEquals(2L, response.getPlagiarismFileId());
+    }
+
+    @Test
+    void checkPlagiarism_WhenHashCollidesWithDifferentContent_ShouldNotReportPlagiarism() throws IOException {
+        Files.write(tempDir.resolve("test.txt"), "Hello, World!".getBytes());
+        Files.write(tempDir.resolve("longer.txt"), "Hello, World!!".getBytes());
+        Files.write(tempDir.resolve("other.txt"), "Hello, Earth!".getBytes());
+        testFileMetadata.setSize(13L);
+        when(fileMetadataRepository.findById(1L)).thenReturn(Optional.of(testFileMetadata));
+        when(fileMetadataRepository.findByHash("test-hash")).thenReturn(List.of(testFileMetadata,
+                metadataWithHash(2L, "longer.txt", 14L), metadataWithHash(3L, "other.txt", 13L)));
+
+        FilePlagiarismResponseDTO response = fileStorageService.checkPlagiarism(1L);
+
+        assertNull(response.getPlagiarismFileId());
+    }
+
+    @Test
+    void checkPlagiarism_WhenPairAlreadyVerified_ShouldNotReadFilesAgain() throws IOException {
+        Files.write(tempDir.resolve("test.txt"), "Hello, World!".getBytes());
+        Files.write(tempDir.resolve("copy.txt"), "Hello, World!".getBytes());
+        FileMetadata copy = metadataWithHash(2L, "copy.txt", null);
+        when(fileMetadataRepository.findById(1L)).thenReturn(Optional.of(testFileMetadata));
+        when(fileMetadataRepository.findByHash("test-hash")).thenReturn(List.of(testFileMetadata, copy));
+        assertEquals(2L, fileStorageService.checkPlagiarism(1L).getPlagiarismFileId());
+
+        Files.delete(tempDir.resolve("copy.txt"));
+
+        assertEquals(2L, fileStorageService.checkPlagiarism(1L).getPlagiarismFileId());
+    }
+
+    private FileMetadata metadataWithHash(Long id, String location, Long size) {
+        FileMetadata metadata = new FileMetadata();
+        metadata.setId(id);
+        metadata.setName(location);
+        metadata.setHash("test-hash");
+        metadata.setLocation(location);
+        metadata.setSize(size);
+        return metadata;
+    }
+
     @Test
     void loadFileAsResource_WhenFileExists_ShouldReturnFileResource() throws IOException {
         when(fileMetadataRepository.findById(1L)).thenReturn(Optional.of(testFileMetadata));
@@ -93,7 +209,8 @@ class FileStorageServiceTest {
 
         assertNotNull(response);
         assertEquals(testFileMetadata.getName(), response.getFilename());
-        assertNotNull(response.getInputStream());
+        assertTrue(Files.exists(response.getPath()));
+        assertEquals("Hello, World!".length(), response.getSize());
     }
 
     @Test
@@ -102,4 +219,289 @@ class FileStorageServiceTest {
 
         assertThrows(FileMetadataNotFoundException.class, () -> fileStorageService.loadFileAsResource(1L));
     }
-} 
\ No newline at end of file
+
+    @Test
+    void getFileMetadata_ShouldReturnLocationRelativeToStorageRoot() {
+        FileMetadata outside = new FileMetadata();
+        outside.setId(2L);
+        outside.setLocation("/elsewhere/test.txt");
+        when(fileMetadataRepository.findById(1L)).thenReturn(Optional.of(testFileMetadata));
+        when(fileMetadataRepository.findById(2L)).thenReturn(Optional.of(outside));
+
+        var metadata = fileStorageService.getFileMetadata(1L);
+
+        assertEquals("test.txt", metadata.getLocation());
+        assertEquals("test-hash", metadata.getHash());
+        assertNull(fileStorageService.getFileMetadata(2L).getLocation());
+    }
+
+    @Test
+    void findSimilarFiles_ShouldFindNearDuplicateAndIgnoreUnrelatedFile() throws IOException {
+        Map<Long, FileMetadata> stored = new HashMap<>();
+        when(fileMetadataRepository.save(any(FileMetadata.class))).thenAnswer(invocation -> {
+            FileMetadata metadata = invocation.getArgument(0);
+            metadata.setId((long) stored.size() + 1);
+            stored.put(metadata.getId(), metadata);
+            return metadata;
+        });
+        when(fileMetadataRepository.findById(anyLong()))
+            .thenAnswer(invocation -> Optional.ofNullable(stored.get(invocation.<Long>getArgument(0))));
+
+        String original = "The quick brown fox jumps over the lazy dog near the river bank while the sun "
+            + "slowly sets behind the old mill and the farmers walk home through the golden fields of wheat";
+        String edited = original.replace("lazy dog", "lazy dog,");
+        String unrelated = "Совсем другой текст о программировании на языке Java и распределенных системах "
+            + "который не имеет ничего общего с лисой собакой и мельницей";
+
+        fileStorageService.storeFile(new MockMultipartFile("a.txt", "a.txt", "text/plain", original.getBytes()));
+        fileStorageService.storeFile(new MockMultipartFile("b.txt", "b.txt", "text/plain", edited.getBytes()));
+        fileStorageService.storeFile(new MockMultipartFile("c.txt", "c.txt", "text/plain", unrelated.getBytes()));
+
+        FileSimilarityResponseDTO response = fileStorageService.findSimilarFiles(1L, 0.8, 10);
+
+        assertEquals(1L, response.getFileId());
+        assertEquals(1, response.getMatches().size());
+        assertEquals(2L, response.getMatches().get(0).getFileId());
+        assertEquals(1.0, response.getMatches().get(0).getSimilarity());
+    }
+
+    @Test
+    void storeFile_ShouldIndexFragmentsForPassageSearch() throws IOException {
+        AtomicLong ids = new AtomicLong();
+        when(fileMetadataRepository.save(any(FileMetadata.class))).thenAnswer(invocation -> {
+            FileMetadata metadata = invocation.getArgument(0);
+            metadata.setId(ids.incrementAndGet());
+            return metadata;
+        });
+        String paragraph = "Алгоритм просеивания выбирает минимальный хеш в каждом окне из восьми шинглов "
+            + "и поэтому гарантирует нахождение любого общего фрагмента достаточной длины";
+        String source = "Введение к работе о поиске заимствований. " + paragraph + ". Заключение и список литературы.";
+        fileStorageService.storeFile(new MockMultipartFile("a.txt", "a.txt", "text/plain",
+            "Completely unrelated text about cooking pasta with tomatoes and basil for dinner".getBytes()));
+        fileStorageService.storeFile(new MockMultipartFile("b.txt", "b.txt", "text/plain", source.getBytes(StandardCharsets.UTF_8)));
+
+        String query = "My own introduction, then a copied part: " + paragraph + " and my own ending.";
+        FragmentSearchResponseDTO response = fragmentIndexService.search(query, 10);
+
+        assertEquals(1, response.getMatches().size());
+        assertEquals(2L, response.getMatches().get(0).getFileId());
+        FragmentSpanDTO span = response.getMatches().get(0).getSpans().get(0);
+        byte[] sourceBytes = source.getBytes(StandardCharsets.UTF_8);
+        String sourcePassage = new String(sourceBytes, span.getSourceStart(), span.getSourceEnd() - span.getSourceStart(),
+            StandardCharsets.UTF_8);
+        String queryPassage = query.substring(span.getQueryStart(), span.getQueryEnd());
+        assertEquals(sourcePassage, queryPassage);
+        assertTrue(paragraph.contains(queryPassage));
+        assertTrue(queryPassage.length() > paragraph.length() / 2, "matched only: " + queryPassage);
+    }
+
+    @Test
+    void storeFile_WhenLargeFilesUploadedConcurrently_ShouldStreamInBoundedReads() throws Exception {
+        int uploads = 4;
+        long fileSize = 16L * 1024 * 1024;
+        int maxRead = 64 * 1024;
+        AtomicLong ids = new AtomicLong();
+        List<FileMetadata> saved = new CopyOnWriteArrayList<>();
+        when(fileMetadataRepository.save(any(FileMetadata.class))).thenAnswer(invocation -> {
+            FileMetadata metadata = invocation.getArgument(0);
+            metadata.setId(ids.incrementAndGet());
+            saved.add(metadata);
+            return metadata;
+        });
+
+        List<GeneratedMultipartFile> files = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(uploads);
+        try {
+            List<Future<FileUploadResponseDTO>> results = new ArrayList<>();
+            for (int i = 0; i < uploads; i++) {
+                GeneratedMultipartFile file = new GeneratedMultipartFile("large-" + i + ".txt", fileSize);
+                files.add(file);
+                results.add(executor.submit(() -> fileStorageService.storeFile(file)));
+            }
+            int duplicates = 0;
+            for (Future<FileUploadResponseDTO> result : results) {
+                assertNotNull(result.get().getId());
+                duplicates += result.get().isDuplicate() ? 1 : 0;
+            }
+            assertEquals(uploads - 1, duplicates);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        String expectedHash = HexFormat.of().formatHex(
+            MessageDigest.getInstance("SHA-256").digest(readFully(new GeneratedMultipartFile("x.txt", fileSize))));
+        assertEquals(uploads, saved.size());
+        for (FileMetadata metadata : saved) {
+            assertEquals(expectedHash, metadata.getHash());
+            assertEquals(fileSize, metadata.getSize());
+            assertEquals(fileSize, Files.size(tempDir.resolve(metadata.getLocation())));
+        }
+        for (GeneratedMultipartFile file : files) {
+            assertEquals(0, file.bytesRequested.get(), "the whole upload was requested as one array");
+            assertEquals(fileSize, file.bytesRead.get());
+            assertTrue(file.largestRead.get() <= maxRead, "read " + file.largestRead.get() + " bytes at once");
+        }
+    }
+
+    @Test
+    void storeFile_WhenContentAlreadyStored_ShouldShareSingleBlob() throws IOException {
+        AtomicLong ids = new AtomicLong();
+        when(fileMetadataRepository.save(any(FileMetadata.class))).thenAnswer(invocation -> {
+            FileMetadata metadata = invocation.getArgument(0);
+            metadata.setId(ids.incrementAndGet());
+            return metadata;
+        });
+
+        FileUploadResponseDTO first = fileStorageService.storeFile(testFile);
+        FileUploadResponseDTO second = fileStorageService.storeFile(
+            new MockMultipartFile("copy.txt", "copy.txt", "text/plain", "Hello, World!".getBytes()));
+
+        assertFalse(first.isDuplicate());
+        assertTrue(second.isDuplicate());
+        try (var files = Files.walk(tempDir)) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void storeFile_WhenSavingMetadataFails_ShouldDeleteNewBlob() throws IOException {
+        when(fileMetadataRepository.save(any(FileMetadata.class))).thenThrow(new IllegalStateException("db down"));
+
+        assertThrows(IllegalStateException.class, () -> fileStorageService.storeFile(testFile));
+
+        try (var files = Files.walk(tempDir)) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void storeFile_WhenSavingDuplicateFails_ShouldKeepExistingBlob() throws IOException {
+        when(fileMetadataRepository.save(any(FileMetadata.class)))
+            .thenReturn(testFileMetadata)
+            .thenThrow(new IllegalStateException("db down"));
+        fileStorageService.storeFile(testFile);
+
+        assertThrows(IllegalStateException.class, () -> fileStorageService.storeFile(
+            new MockMultipartFile("copy.txt", "copy.txt", "text/plain", "Hello, World!".getBytes())));
+
+        try (var files = Files.walk(tempDir)) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void deleteFile_ShouldKeepBlobUntilLastReferenceIsDeleted() throws IOException {
+        Map<Long, FileMetadata> stored = new HashMap<>();
+        when(fileMetadataRepository.save(any(FileMetadata.class))).thenAnswer(invocation -> {
+            FileMetadata metadata = invocation.getArgument(0);
+            metadata.setId((long) stored.size() + 1);
+            stored.put(metadata.getId(), metadata);
+            return metadata;
+        });
+        when(fileMetadataRepository.findById(anyLong()))
+            .thenAnswer(invocation -> Optional.ofNullable(stored.get(invocation.<Long>getArgument(0))));
+        doAnswer(invocation -> stored.remove(invocation.<FileMetadata>getArgument(0).getId()))
+            .when(fileMetadataRepository).delete(any(FileMetadata.class));
+        when(fileMetadataRepository.countByHash(anyString())).thenAnswer(invocation -> stored.values().stream()
+            .filter(metadata -> metadata.getHash().equals(invocation.getArgument(0)))
+            .count());
+
+        fileStorageService.storeFile(testFile);
+        fileStorageService.storeFile(testFile);
+        Path blob = tempDir.resolve(stored.get(1L).getLocation());
+
+        fileStorageService.deleteFile(1L);
+        assertTrue(Files.exists(blob));
+
+        fileStorageService.deleteFile(2L);
+        assertFalse(Files.exists(blob));
+    }
+
+    private static byte[] readFully(GeneratedMultipartFile file) throws IOException {
+        try (InputStream inputStream = file.getInputStream()) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    /**
+     * Multipart file backed by generated text that refuses to be loaded into memory as a whole and
+     * records how it is read.
+     */
+    private static class GeneratedMultipartFile implements MultipartFile {
+        private static final byte[] LINE = "Съешь же ещё этих мягких французских булок, да выпей чаю.\n"
+            .getBytes(StandardCharsets.UTF_8);
+
+        private final String name;
+        private final long size;
+        private final AtomicInteger bytesRequested = new AtomicInteger();
+        private final AtomicLong bytesRead = new AtomicLong();
+        private final AtomicInteger largestRead = new AtomicInteger();
+
+        GeneratedMultipartFile(String name, long size) {
+            this.name = name;
+            this.size = size;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return name;
+        }
+
+        @Override
+        public String getContentType() {
+            return "text/plain";
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return size;
+        }
+
+        @Override
+        public byte[] getBytes() {
+            bytesRequested.incrementAndGet();
+            throw new UnsupportedOperationException("Upload content must be streamed");
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new InputStream() {
+                private long position;
+
+                @Override
+                public int read() {
+                    return position < size ? LINE[(int) (position++ % LINE.length)] & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    if (position >= size) {
+                        return -1;
+                    }
+                    int count = (int) Math.min(length, size - position);
+                    for (int i = 0; i < count; i++) {
+                        buffer[offset + i] = LINE[(int) (position++ % LINE.length)];
+                    }
+                    bytesRead.addAndGet(count);
+                    largestRead.accumulateAndGet(count, Math::max);
+                    return count;
+                }
+            };
+        }
+
+        @Override
+        public void transferTo(File dest) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package org.example.similarity;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FragmentIndexTest {
+    private final FragmentFingerprinter fingerprinter = new FragmentFingerprinter();
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("fragment-index");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Test
+    void search_ShouldFindSharedPassageAcrossMemtableAndSegments() throws IOException {
+        Random random = new Random(3);
+        String passage = randomText(random, 40);
+        try (FragmentIndex index = new FragmentIndex(directory, 1, 100)) {
+            index.add(1, indexed(randomText(random, 200) + passage + randomText(random, 200)));
+            index.add(2, indexed(randomText(random, 300)));
+            index.add(3, indexed(passage));
+            assertTrue(index.segmentCount() >= 2, "every add is over the flush threshold");
+
+            List<FragmentIndex.Match> matches = index.search(queried("intro words " + passage + " outro words"), 10);
+
+            assertEquals(List.of(1L, 3L), matches.stream().map(FragmentIndex.Match::getFileId).sorted().toList());
+            for (FragmentIndex.Match match : matches) {
+                assertEquals(1, match.getSpans().size());
+            }
+        }
+    }
+
+    @Test
+    void reopen_ShouldReplayUnflushedPostingsAndRemovals() throws IOException {
+        Random random = new Random(4);
+        String first = randomText(random, 100);
+        String second = randomText(random, 100);
+        FragmentIndex index = new FragmentIndex(directory, 1_000_000, 8);
+        index.add(1, indexed(first));
+        index.add(2, indexed(second));
+        index.remove(2);
+        // Simulates a crash: the log is left as it is, nothing is flushed
+        Files.write(directory.resolve("memtable.wal"), new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (FragmentIndex reopened = new FragmentIndex(directory, 1_000_000, 8)) {
+            assertEquals(0, reopened.segmentCount());
+            assertEquals(1L, reopened.search(queried(first), 10).get(0).getFileId());
+            assertTrue(reopened.search(queried(second), 10).isEmpty());
+        }
+    }
+
+    @Test
+    void flush_ShouldMergeSegmentsAndDropRemovedFiles() throws IOException {
+        Random random = new Random(5);
+        String shared = randomText(random, 60);
+        try (FragmentIndex index = new FragmentIndex(directory, 1, 3)) {
+            for (long fileId = 1; fileId <= 3; fileId++) {
+                index.add(fileId, indexed(randomText(random, 50) + shared));
+            }
+            index.remove(2);
+            index.add(4, indexed(shared));
+
+            assertEquals(1, index.segmentCount(), "the fourth segment triggers a merge");
+            assertEquals(List.of(1L, 3L, 4L), index.search(queried(shared), 10).stream()
+                .map(FragmentIndex.Match::getFileId).sorted().toList());
+        }
+        try (FragmentIndex reopened = new FragmentIndex(directory, 1, 3)) {
+            assertEquals(3, reopened.search(queried(shared), 10).size());
+            assertEquals(0, Files.size(directory.resolve("deleted.log")));
+        }
+    }
+
+    @Test
+    void reopen_WhenCrashedBeforeManifestWasUpdated_ShouldNotDuplicateFlushedPostings() throws IOException {
+        Random random = new Random(6);
+        String text = randomText(random, 100);
+        FragmentIndex index = new FragmentIndex(directory, 1_000_000, 8);
+        index.add(1, indexed(text));
+        byte[] manifest = Files.readAllBytes(directory.resolve("manifest"));
+        byte[] wal = Files.readAllBytes(directory.resolve("memtable.wal"));
+        int fingerprints = fingerprintCount(index.search(queried(text), 10));
+        index.close();
+        // Simulates a crash after the segment was written, before the manifest and log moved on
+        Files.write(directory.resolve("manifest"), manifest);
+        Files.write(directory.resolve("memtable.wal"), wal);
+
+        try (FragmentIndex reopened = new FragmentIndex(directory, 1_000_000, 8)) {
+            assertEquals(0, reopened.segmentCount());
+            assertEquals(fingerprints, fingerprintCount(reopened.search(queried(text), 10)));
+            try (var files = Files.list(directory)) {
+                assertTrue(files.noneMatch(file -> file.getFileName().toString().endsWith(".seg")));
+            }
+        }
+    }
+
+    @Test
+    void flush_WhenSegmentsExceedMergeSize_ShouldKeepMergingTheSmallOnes() throws IOException {
+        Random random = new Random(7);
+        String shared = randomText(random, 30);
+        try (FragmentIndex index = new FragmentIndex(directory, 1, 2)) {
+            index.add(1, indexed(randomText(random, 20_000)));
+        }
+        long largeSegment;
+        try (var files = Files.list(directory)) {
+            largeSegment = files.filter(file -> file.getFileName().toString().endsWith(".seg")).findFirst()
+                .orElseThrow().toFile().length();
+        }
+
+        try (FragmentIndex index = new FragmentIndex(directory, 1, 2, largeSegment - 1)) {
+            for (long fileId = 2; fileId <= 20; fileId++) {
+                index.add(fileId, indexed(randomText(random, 30) + shared));
+                assertTrue(index.segmentCount() <= 2, "small segments are merged without the large one");
+            }
+            index.remove(5);
+            for (long fileId = 21; fileId <= 25; fileId++) {
+                index.add(fileId, indexed(shared));
+            }
+
+            assertEquals(2, index.segmentCount());
+            assertEquals(23, index.search(queried(shared), 100).size());
+        }
+        try (FragmentIndex reopened = new FragmentIndex(directory, 1, 2, largeSegment - 1)) {
+            // The large segment was never rewritten, so the removal is still filtered at search time
+            assertEquals(23, reopened.search(queried(shared), 100).size());
+        }
+    }
+
+    private static int fingerprintCount(List<FragmentIndex.Match> matches) {
+        return matches.stream().flatMap(match -> match.getSpans().stream())
+            .mapToInt(FragmentIndex.Span::getFingerprints).sum();
+    }
+
+    private FragmentFingerprinter.Fingerprints indexed(String text) {
+        return fingerprinter.fingerprints(text.getBytes(StandardCharsets.UTF_8), true);
+    }
+
+    private FragmentFingerprinter.Fingerprints queried(String text) {
+        return fingerprinter.fingerprints(text.getBytes(StandardCharsets.UTF_8), false);
+    }
+
+    private static String randomText(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            text.append("w").append(random.nextInt(100_000)).append(' ');
+        }
+        return text.toString();
+    }
+}
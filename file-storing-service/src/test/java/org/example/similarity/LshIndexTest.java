@@ -0,0 +1,93 @@
+package org.example.similarity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LshIndexTest {
+
+    private final LshIndex index = new LshIndex(MinHasher.DEFAULT_NUM_HASHES, LshIndex.DEFAULT_BANDS);
+
+    @Test
+    void query_WhenManyDocumentsShareBuckets_ShouldReturnAllOfThem() {
+        int[] signature = signature(7);
+        for (long id = 1; id <= 1000; id++) {
+            index.add(id, signature);
+        }
+
+        List<LshIndex.Match> matches = index.query(signature, 1, 1.0, 2000);
+
+        assertEquals(999, matches.size());
+        assertEquals(2, matches.get(0).getId());
+        assertEquals(1000, index.size());
+    }
+
+    @Test
+    void remove_ShouldDropDocumentFromItsBuckets() {
+        int[] signature = signature(7);
+        index.add(1, signature);
+        index.add(2, signature);
+        index.add(3, signature);
+
+        index.remove(2);
+        index.remove(3);
+
+        assertTrue(index.query(signature, 1, 0.5, 10).isEmpty());
+        index.add(4, signature);
+        assertEquals(List.of(4L), index.query(signature, 1, 0.5, 10).stream().map(LshIndex.Match::getId).toList());
+    }
+
+    @Test
+    void query_ShouldSkipDocumentsWithoutSharedBands() {
+        index.add(1, signature(7));
+        index.add(2, signature(1000));
+
+        assertTrue(index.query(signature(7), 1, 0.0, 10).isEmpty());
+    }
+
+    @Test
+    void add_WhenBucketIsEmptiedConcurrently_ShouldNotLoseDocuments() throws Exception {
+        LshIndex singleBand = new LshIndex(MinHasher.DEFAULT_NUM_HASHES, 1);
+        int[] signature = signature(7);
+        int rounds = 200_000;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // One thread keeps emptying the shared bucket while the other adds documents to it
+            Future<?> churn = executor.submit(() -> {
+                for (int i = 0; i < rounds; i++) {
+                    singleBand.add(-1, signature);
+                    singleBand.remove(-1);
+                }
+            });
+            Future<Integer> lost = executor.submit(() -> {
+                int missing = 0;
+                for (long id = 1; id <= rounds; id++) {
+                    singleBand.add(id, signature);
+                    if (singleBand.query(signature, -1, 1.0, 10).isEmpty()) {
+                        missing++;
+                    }
+                    singleBand.remove(id);
+                }
+                return missing;
+            });
+            churn.get(60, TimeUnit.SECONDS);
+            assertEquals(0, lost.get(60, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int[] signature(int seed) {
+        int[] signature = new int[MinHasher.DEFAULT_NUM_HASHES];
+        for (int i = 0; i < signature.length; i++) {
+            signature[i] = seed * 31 + i;
+        }
+        return signature;
+    }
+}
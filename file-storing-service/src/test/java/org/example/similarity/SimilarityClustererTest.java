@@ -0,0 +1,110 @@
+package org.example.similarity;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimilarityClustererTest {
+    private static final double THRESHOLD = 0.8;
+
+    private final MinHasher minHasher = new MinHasher();
+    private final SimilarityClusterer clusterer = new SimilarityClusterer(LshIndex.DEFAULT_BANDS);
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void cluster_ShouldGroupTransitivelySimilarFilesAndLeaveOutUnrelatedOnes() {
+        Random random = new Random(1);
+        String original = randomText(random, 400);
+        String edited = editWords(random, original, 5);
+        String reedited = editWords(random, edited, 5);
+        long[] ids = {10, 20, 30, 40};
+        int[][] signatures = {signature(original), signature(randomText(random, 400)), signature(edited), signature(reedited)};
+
+        List<SimilarityClusterer.Cluster> clusters = clusterer.cluster(ids, signatures, THRESHOLD, pool);
+
+        assertEquals(1, clusters.size());
+        assertEquals(List.of(10L, 30L, 40L), clusters.get(0).getFileIds());
+        SimilarityClusterer.Pair strongest = clusters.get(0).getPairs().get(0);
+        assertTrue(strongest.getFirstId() < strongest.getSecondId());
+        assertTrue(strongest.getSimilarity() >= THRESHOLD);
+    }
+
+    @Test
+    void cluster_ShouldFindTheSamePairsAsComparingEveryPair() {
+        Random random = new Random(2);
+        List<int[]> corpus = new ArrayList<>();
+        for (int base = 0; base < 300; base++) {
+            String text = randomText(random, 300);
+            corpus.add(signature(text));
+            for (int copy = random.nextInt(3); copy > 0; copy--) {
+                corpus.add(signature(editWords(random, text, 3)));
+            }
+        }
+        long[] ids = new long[corpus.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i + 1;
+        }
+        int[][] signatures = corpus.toArray(new int[0][]);
+
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < signatures.length; i++) {
+            for (int j = i + 1; j < signatures.length; j++) {
+                if (MinHasher.estimateSimilarity(signatures[i], signatures[j]) >= THRESHOLD) {
+                    expected.add(ids[i] + "-" + ids[j]);
+                }
+            }
+        }
+        ForkJoinPool singleThread = new ForkJoinPool(1);
+        try {
+            assertFalse(expected.isEmpty());
+            assertEquals(expected, pairs(clusterer.cluster(ids, signatures, THRESHOLD, pool)));
+            assertEquals(expected, pairs(clusterer.cluster(ids, signatures, THRESHOLD, singleThread)));
+        } finally {
+            singleThread.shutdownNow();
+        }
+    }
+
+    private static Set<String> pairs(List<SimilarityClusterer.Cluster> clusters) {
+        Set<String> pairs = new HashSet<>();
+        for (SimilarityClusterer.Cluster cluster : clusters) {
+            for (SimilarityClusterer.Pair pair : cluster.getPairs()) {
+                assertTrue(pairs.add(pair.getFirstId() + "-" + pair.getSecondId()), "pair reported twice");
+            }
+        }
+        return pairs;
+    }
+
+    private int[] signature(String text) {
+        return minHasher.signature(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String randomText(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            text.append("w").append(random.nextInt(5000)).append(' ');
+        }
+        return text.toString();
+    }
+
+    private static String editWords(Random random, String text, int edits) {
+        String[] words = text.split(" ");
+        for (int i = 0; i < edits; i++) {
+            words[random.nextInt(words.length)] = "edit" + random.nextInt(1000);
+        }
+        return String.join(" ", words);
+    }
+}
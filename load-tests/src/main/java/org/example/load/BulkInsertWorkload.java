@@ -0,0 +1,45 @@
+package org.example.load;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Bulk uploads of many small essays, whose metadata and upload events are inserted in one
+ * transaction per request. Run once per persistence profile to compare insert throughput.
+ */
+final class BulkInsertWorkload {
+
+    private BulkInsertWorkload() {
+    }
+
+    static void run(ServiceStack stack, LoadTestOptions options, LoadReport.Section section) throws InterruptedException {
+        LatencyRecorder recorder = new LatencyRecorder();
+        GatewayClient client = new GatewayClient(stack.gatewayUrl(), recorder);
+        VirtualUsers.Iteration iteration = user -> {
+            Map<String, byte[]> files = new LinkedHashMap<>();
+            for (int i = 0; i < options.bulkFiles(); i++) {
+                String text = TextGenerator.document(ThreadLocalRandom.current(), options.fileSize());
+                files.put("essay-" + i + ".txt", text.getBytes(StandardCharsets.UTF_8));
+            }
+            client.bulkUpload(files);
+        };
+        VirtualUsers.run(options.users(), options.warmup(), iteration);
+        recorder.reset();
+        long started = System.nanoTime();
+        VirtualUsers.run(options.users(), options.duration(), iteration);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        List<EndpointReport> rows = recorder.report(elapsed);
+        long requests = rows.stream().filter(row -> row.getEndpoint().equals(GatewayClient.BULK_UPLOAD))
+                .mapToLong(EndpointReport::getRequests).sum();
+        section.fact("concurrent requests", options.users())
+                .fact("files per request", options.bulkFiles())
+                .fact("file size", LoadTestOptions.formatSize(options.fileSize()))
+                .fact("files stored per second", Math.round(requests * options.bulkFiles() / (elapsed.toNanos() / 1e9)))
+                .endpoints(rows);
+    }
+}
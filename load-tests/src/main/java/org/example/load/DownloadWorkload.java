@@ -0,0 +1,63 @@
+package org.example.load;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Concurrent downloads of one stored file per size. Downloads are streamed from disk, so the bytes
+ * the storing service and the gateway allocate per download should not grow with the file size.
+ */
+final class DownloadWorkload {
+    private static final String ALLOCATED_BYTES = "jvm.gc.memory.allocated";
+    /**
+     * The JVM only counts allocations at each young collection, so a small young generation keeps
+     * the count close to the truth.
+     */
+    static final List<String> JVM_OPTIONS = List.of("-Xmn16m");
+
+    private DownloadWorkload() {
+    }
+
+    static void run(ServiceStack stack, LoadTestOptions options, LoadReport report) throws IOException, InterruptedException {
+        List<ServiceProcess> services = List.of(stack.apiGateway(), stack.fileStoringService());
+        for (long size : options.sizes()) {
+            Path file = options.workDirectory().resolve("download-" + size + ".txt");
+            TextGenerator.write(file, new Random(size), size);
+            long fileId = new GatewayClient(stack.gatewayUrl(), new LatencyRecorder()).upload("download.txt", file);
+            Files.delete(file);
+
+            LatencyRecorder recorder = new LatencyRecorder();
+            GatewayClient client = new GatewayClient(stack.gatewayUrl(), recorder);
+            VirtualUsers.run(options.users(), options.warmup(), user -> client.download(fileId));
+            recorder.reset();
+            double[] allocatedBefore = allocated(services);
+            long started = System.nanoTime();
+            VirtualUsers.run(options.users(), options.duration(), user -> client.download(fileId));
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+            double[] allocatedAfter = allocated(services);
+
+            List<EndpointReport> rows = recorder.report(elapsed);
+            long downloads = rows.stream().filter(row -> row.getEndpoint().equals(GatewayClient.DOWNLOAD))
+                    .mapToLong(EndpointReport::getRequests).sum();
+            LoadReport.Section section = report.addSection("concurrent downloads of " + LoadTestOptions.formatSize(size))
+                    .fact("concurrent downloads", options.users());
+            for (int i = 0; i < services.size(); i++) {
+                section.fact("allocated KB per download, " + services.get(i).name(),
+                        downloads == 0 ? 0 : Math.round((allocatedAfter[i] - allocatedBefore[i]) / downloads / 1024));
+            }
+            section.endpoints(rows);
+        }
+    }
+
+    private static double[] allocated(List<ServiceProcess> services) throws IOException, InterruptedException {
+        double[] bytes = new double[services.size()];
+        for (int i = 0; i < services.size(); i++) {
+            bytes[i] = services.get(i).metric(ALLOCATED_BYTES, null);
+        }
+        return bytes;
+    }
+}
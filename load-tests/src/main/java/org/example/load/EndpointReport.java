@@ -0,0 +1,69 @@
+package org.example.load;
+
+/**
+ * Throughput and latency percentiles of one endpoint over a measured run. Latencies are in
+ * milliseconds.
+ */
+public class EndpointReport {
+    private final String endpoint;
+    private final long requests;
+    private final long errors;
+    private final double throughput;
+    private final double p50;
+    private final double p90;
+    private final double p99;
+    private final double p999;
+    private final double max;
+
+    EndpointReport(String endpoint, long requests, long errors, double throughput,
+                   double p50, double p90, double p99, double p999, double max) {
+        this.endpoint = endpoint;
+        this.requests = requests;
+        this.errors = errors;
+        this.throughput = throughput;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return successful requests per second
+     */
+    public double getThroughput() {
+        return throughput;
+    }
+
+    public double getP50() {
+        return p50;
+    }
+
+    public double getP90() {
+        return p90;
+    }
+
+    public double getP99() {
+        return p99;
+    }
+
+    public double getP999() {
+        return p999;
+    }
+
+    public double getMax() {
+        return max;
+    }
+}
@@ -0,0 +1,200 @@
+package org.example.load;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.example.dto.AnalysisJobDTO;
+import org.example.dto.AnalysisResponseDTO;
+import org.example.dto.BulkUploadResponseDTO;
+import org.example.dto.FilePlagiarismResponseDTO;
+import org.example.dto.FileUploadResponseDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Calls the public API through the gateway, as a browser or a script of a teacher would, and
+ * records the latency of every call under its endpoint.
+ */
+final class GatewayClient {
+    static final String UPLOAD = "POST /api/files/upload";
+    static final String BULK_UPLOAD = "POST /api/files/upload/bulk";
+    static final String DOWNLOAD = "GET /api/files/{id}";
+    static final String PLAGIARISM = "GET /api/files/plagiarism/{id}";
+    static final String ANALYSIS = "GET /api/analysis/{id}";
+    static final String ANALYSIS_JOB = "GET /api/analysis/jobs/{jobId}";
+    /**
+     * From the first analysis request until the result is available, polling included.
+     */
+    static final String ANALYSIS_COMPLETE = "analysis until completed";
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(5);
+    private static final Duration JOB_POLL_INTERVAL = Duration.ofMillis(100);
+
+    private final String gatewayUrl;
+    private final LatencyRecorder recorder;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    GatewayClient(String gatewayUrl, LatencyRecorder recorder) {
+        this.gatewayUrl = gatewayUrl;
+        this.recorder = recorder;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    long upload(String filename, byte[] content) {
+        return upload(filename, HttpRequest.BodyPublishers.ofByteArray(content));
+    }
+
+    /**
+     * Streams the file from disk, preceded by a line that makes every upload unique.
+     */
+    long upload(String filename, Path content) throws IOException {
+        return upload(filename, HttpRequest.BodyPublishers.concat(
+                HttpRequest.BodyPublishers.ofString(UUID.randomUUID() + "\n"),
+                HttpRequest.BodyPublishers.ofFile(content)));
+    }
+
+    private long upload(String filename, HttpRequest.BodyPublisher content) {
+        Multipart multipart = new Multipart();
+        HttpRequest request = multipart.request(api("/files/upload"), List.of(multipart.part("file", filename, content)));
+        return json(send(UPLOAD, request), FileUploadResponseDTO.class).getId();
+    }
+
+    BulkUploadResponseDTO bulkUpload(Map<String, byte[]> files) {
+        Multipart multipart = new Multipart();
+        List<HttpRequest.BodyPublisher> parts = new ArrayList<>();
+        files.forEach((filename, content) ->
+                parts.add(multipart.part("files", filename, HttpRequest.BodyPublishers.ofByteArray(content))));
+        return json(send(BULK_UPLOAD, multipart.request(api("/files/upload/bulk"), parts)), BulkUploadResponseDTO.class);
+    }
+
+    /**
+     * @return the size of the downloaded content
+     */
+    long download(long fileId) {
+        HttpRequest request = HttpRequest.newBuilder(api("/files/" + fileId)).timeout(REQUEST_TIMEOUT).build();
+        return send(DOWNLOAD, request, HttpResponse.BodyHandlers.ofInputStream(), response -> {
+            try (InputStream body = response.body()) {
+                return body.transferTo(OutputStream.nullOutputStream());
+            }
+        });
+    }
+
+    FilePlagiarismResponseDTO plagiarism(long fileId) {
+        HttpRequest request = HttpRequest.newBuilder(api("/files/plagiarism/" + fileId)).timeout(REQUEST_TIMEOUT).build();
+        return json(send(PLAGIARISM, request), FilePlagiarismResponseDTO.class);
+    }
+
+    /**
+     * Fetches the analysis of a file, polling its job if it is not computed yet.
+     */
+    AnalysisResponseDTO analyse(long fileId) throws InterruptedException {
+        long started = System.nanoTime();
+        HttpResponse<byte[]> response = send(ANALYSIS,
+                HttpRequest.newBuilder(api("/analysis/" + fileId)).timeout(REQUEST_TIMEOUT).build());
+        if (response.statusCode() == 200) {
+            recorder.record(ANALYSIS_COMPLETE, System.nanoTime() - started);
+            return json(response, AnalysisResponseDTO.class);
+        }
+        URI job = URI.create(gatewayUrl).resolve(response.headers().firstValue("Location")
+                .orElseThrow(() -> new RequestFailedException("No job location for file " + fileId)));
+        while (true) {
+            AnalysisJobDTO status = json(send(ANALYSIS_JOB, HttpRequest.newBuilder(job).timeout(REQUEST_TIMEOUT).build()),
+                    AnalysisJobDTO.class);
+            if (status.getStatus().isFinished()) {
+                if (status.getResult() == null) {
+                    recorder.recordError(ANALYSIS_COMPLETE);
+                    throw new RequestFailedException("Analysis of file " + fileId + " failed: " + status.getError());
+                }
+                recorder.record(ANALYSIS_COMPLETE, System.nanoTime() - started);
+                return status.getResult();
+            }
+            Thread.sleep(JOB_POLL_INTERVAL.toMillis());
+        }
+    }
+
+    private URI api(String path) {
+        return URI.create(gatewayUrl + "/api" + path);
+    }
+
+    private HttpResponse<byte[]> send(String endpoint, HttpRequest request) {
+        return send(endpoint, request, HttpResponse.BodyHandlers.ofByteArray(), response -> response);
+    }
+
+    /**
+     * The latency includes reading the whole response body.
+     */
+    private <B, T> T send(String endpoint, HttpRequest request, HttpResponse.BodyHandler<B> handler,
+                          ResponseReader<B, T> reader) {
+        long started = System.nanoTime();
+        try {
+            HttpResponse<B> response = httpClient.send(request, handler);
+            T result = reader.read(response);
+            if (response.statusCode() >= 400) {
+                recorder.recordError(endpoint);
+                throw new RequestFailedException(endpoint + " returned " + response.statusCode());
+            }
+            recorder.record(endpoint, System.nanoTime() - started);
+            return result;
+        } catch (IOException e) {
+            recorder.recordError(endpoint);
+            throw new RequestFailedException(endpoint + " failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestFailedException(endpoint + " interrupted", e);
+        }
+    }
+
+    private <T> T json(HttpResponse<byte[]> response, Class<T> type) {
+        try {
+            return objectMapper.readValue(response.body(), type);
+        } catch (IOException e) {
+            throw new RequestFailedException("Unexpected response " + new String(response.body(), StandardCharsets.UTF_8), e);
+        }
+    }
+
+    private interface ResponseReader<B, T> {
+        T read(HttpResponse<B> response) throws IOException;
+    }
+
+    private static final class Multipart {
+        private final String boundary = "load-test-" + UUID.randomUUID();
+
+        HttpRequest.BodyPublisher part(String name, String filename, HttpRequest.BodyPublisher content) {
+            return HttpRequest.BodyPublishers.concat(
+                    HttpRequest.BodyPublishers.ofString("--" + boundary + "\r\n"
+                            + "Content-Disposition: form-data; name=\"" + name + "\"; filename=\"" + filename + "\"\r\n"
+                            + "Content-Type: text/plain\r\n\r\n", StandardCharsets.UTF_8),
+                    content,
+                    HttpRequest.BodyPublishers.ofString("\r\n"));
+        }
+
+        HttpRequest request(URI uri, List<HttpRequest.BodyPublisher> parts) {
+            List<HttpRequest.BodyPublisher> body = new ArrayList<>(parts);
+            body.add(HttpRequest.BodyPublishers.ofString("--" + boundary + "--\r\n"));
+            return HttpRequest.newBuilder(uri)
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                    .POST(HttpRequest.BodyPublishers.concat(body.toArray(HttpRequest.BodyPublisher[]::new)))
+                    .build();
+        }
+    }
+}
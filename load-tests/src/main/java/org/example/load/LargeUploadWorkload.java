@@ -0,0 +1,40 @@
+package org.example.load;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Concurrent uploads of ever larger files through the gateway. Uploads are streamed end to end, so
+ * the peak heap of the gateway and the storing service should not grow with the file size.
+ */
+final class LargeUploadWorkload {
+
+    private LargeUploadWorkload() {
+    }
+
+    static void run(ServiceStack stack, LoadTestOptions options, LoadReport report) throws IOException, InterruptedException {
+        for (long size : options.sizes()) {
+            Path file = options.workDirectory().resolve("upload-" + size + ".txt");
+            TextGenerator.write(file, new Random(size), size);
+            LatencyRecorder recorder = new LatencyRecorder();
+            GatewayClient client = new GatewayClient(stack.gatewayUrl(), recorder);
+            LoadReport.Section section = report.addSection("concurrent uploads of " + LoadTestOptions.formatSize(size));
+            try (MemorySampler sampler = MemorySampler.start(List.of(stack.apiGateway(), stack.fileStoringService()))) {
+                long started = System.nanoTime();
+                VirtualUsers.run(options.users(), options.duration(), user -> client.upload("large.txt", file));
+                Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+                section.fact("concurrent uploads", options.users())
+                        .fact("service heap", options.serviceHeap());
+                sampler.peakHeapMegabytes().forEach((service, megabytes) ->
+                        section.fact("peak heap MB, " + service, megabytes));
+                section.endpoints(recorder.report(elapsed));
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and errors per endpoint, recorded concurrently by all virtual users into HdrHistograms
+ * with microsecond resolution.
+ */
+class LatencyRecorder {
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Map<String, Recorder> latencies = new ConcurrentSkipListMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long elapsedNanos) {
+        latencies.computeIfAbsent(endpoint, name -> new Recorder(SIGNIFICANT_DIGITS))
+                .recordValue(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+    }
+
+    void recordError(String endpoint) {
+        latencies.computeIfAbsent(endpoint, name -> new Recorder(SIGNIFICANT_DIGITS));
+        errors.computeIfAbsent(endpoint, name -> new LongAdder()).increment();
+    }
+
+    /**
+     * Drops everything recorded so far, e.g. during warmup.
+     */
+    void reset() {
+        latencies.values().forEach(Recorder::reset);
+        errors.values().forEach(LongAdder::reset);
+    }
+
+    /**
+     * @return one row per endpoint for what was recorded since the last report or reset
+     */
+    List<EndpointReport> report(Duration elapsed) {
+        double seconds = elapsed.toNanos() / 1e9;
+        List<EndpointReport> rows = new ArrayList<>();
+        latencies.forEach((endpoint, recorder) -> {
+            Histogram histogram = recorder.getIntervalHistogram();
+            LongAdder failed = errors.get(endpoint);
+            rows.add(new EndpointReport(endpoint, histogram.getTotalCount(), failed == null ? 0 : failed.sumThenReset(),
+                    histogram.getTotalCount() / seconds,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue())));
+        });
+        return rows;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
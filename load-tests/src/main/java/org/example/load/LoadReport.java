@@ -0,0 +1,82 @@
+package org.example.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Results of a harness run: one section per measured run, printed and written as JSON once the
+ * scenario is over.
+ */
+public class LoadReport {
+    private final List<Section> sections = new ArrayList<>();
+
+    public List<Section> getSections() {
+        return sections;
+    }
+
+    Section addSection(String title) {
+        Section section = new Section(title);
+        sections.add(section);
+        return section;
+    }
+
+    void writeJson(Path file) throws IOException {
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), this);
+    }
+
+    public static class Section {
+        private final String title;
+        private final Map<String, Object> facts = new LinkedHashMap<>();
+        private final List<EndpointReport> endpoints = new ArrayList<>();
+
+        Section(String title) {
+            this.title = title;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Map<String, Object> getFacts() {
+            return facts;
+        }
+
+        public List<EndpointReport> getEndpoints() {
+            return endpoints;
+        }
+
+        Section fact(String name, Object value) {
+            facts.put(name, value);
+            return this;
+        }
+
+        Section endpoints(List<EndpointReport> rows) {
+            endpoints.addAll(rows);
+            return this;
+        }
+
+        void print(PrintStream out) {
+            out.println();
+            out.println("== " + title);
+            facts.forEach((name, value) -> out.printf("   %-32s %s%n", name, value));
+            if (endpoints.isEmpty()) {
+                return;
+            }
+            out.printf("   %-34s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                    "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+            for (EndpointReport row : endpoints) {
+                out.printf("   %-34s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                        row.getEndpoint(), row.getRequests(), row.getErrors(), row.getThroughput(),
+                        row.getP50(), row.getP90(), row.getP99(), row.getP999(), row.getMax());
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package org.example.load;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Command line of the harness: {@code --name=value} pairs, each with a default.
+ */
+final class LoadTestOptions {
+    static final Set<String> SCENARIOS = Set.of("mixed", "virtual-threads", "large-uploads", "downloads", "bulk-insert");
+
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+            Map.entry("scenario", "mixed"),
+            Map.entry("users", "16"),
+            Map.entry("duration", "60s"),
+            Map.entry("warmup", "10s"),
+            Map.entry("file-size", "16KB"),
+            Map.entry("sizes", "1MB,16MB,64MB"),
+            Map.entry("corpus", "200"),
+            Map.entry("bulk-files", "200"),
+            Map.entry("profiles", "prod"),
+            Map.entry("service-heap", "512m"),
+            Map.entry("stub-latency", "100ms"),
+            Map.entry("project-dir", "."),
+            Map.entry("work-dir", "load-tests/target/run"),
+            Map.entry("report", "load-report.json"),
+            Map.entry("jdbc-url", ""),
+            Map.entry("jdbc-username", "antiplagiat"),
+            Map.entry("jdbc-password", "antiplagiat"));
+
+    private final Map<String, String> values;
+
+    private LoadTestOptions(Map<String, String> values) {
+        this.values = values;
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0 || !DEFAULTS.containsKey(arg.substring(2, separator))) {
+                throw new IllegalArgumentException("Unknown option " + arg + ", expected --name=value with name one of "
+                        + DEFAULTS.keySet());
+            }
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        if (!SCENARIOS.contains(values.get("scenario"))) {
+            throw new IllegalArgumentException("Unknown scenario " + values.get("scenario") + ", expected one of " + SCENARIOS);
+        }
+        return new LoadTestOptions(values);
+    }
+
+    String scenario() {
+        return values.get("scenario");
+    }
+
+    int users() {
+        return Integer.parseInt(values.get("users"));
+    }
+
+    Duration duration() {
+        return parseDuration(values.get("duration"));
+    }
+
+    Duration warmup() {
+        return parseDuration(values.get("warmup"));
+    }
+
+    long fileSize() {
+        return parseSize(values.get("file-size"));
+    }
+
+    List<Long> sizes() {
+        return Arrays.stream(values.get("sizes").split(",")).map(LoadTestOptions::parseSize).toList();
+    }
+
+    int corpus() {
+        return Integer.parseInt(values.get("corpus"));
+    }
+
+    int bulkFiles() {
+        return Integer.parseInt(values.get("bulk-files"));
+    }
+
+    /**
+     * @return Spring profiles of the services, empty for the default profile
+     */
+    String profiles() {
+        return values.get("profiles");
+    }
+
+    String serviceHeap() {
+        return values.get("service-heap");
+    }
+
+    Duration stubLatency() {
+        return parseDuration(values.get("stub-latency"));
+    }
+
+    Path projectDirectory() {
+        return Path.of(values.get("project-dir")).toAbsolutePath().normalize();
+    }
+
+    Path workDirectory() {
+        return projectDirectory().resolve(values.get("work-dir"));
+    }
+
+    Path reportFile() {
+        return Path.of(values.get("report"));
+    }
+
+    /**
+     * @return URL of an existing PostgreSQL database, empty to start an embedded one
+     */
+    String jdbcUrl() {
+        return values.get("jdbc-url");
+    }
+
+    String jdbcUsername() {
+        return values.get("jdbc-username");
+    }
+
+    String jdbcPassword() {
+        return values.get("jdbc-password");
+    }
+
+    /**
+     * Parses {@code 500ms}, {@code 30s} or {@code 5m}.
+     */
+    static Duration parseDuration(String value) {
+        String text = value.trim().toLowerCase(Locale.ROOT);
+        if (text.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+        }
+        if (text.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(text.substring(0, text.length() - 1)));
+        }
+        if (text.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(text.substring(0, text.length() - 1)));
+        }
+        throw new IllegalArgumentException("Invalid duration " + value + ", expected e.g. 500ms, 30s or 5m");
+    }
+
+    /**
+     * Parses a byte count such as {@code 512}, {@code 16KB} or {@code 64MB}.
+     */
+    static long parseSize(String value) {
+        String text = value.trim().toUpperCase(Locale.ROOT);
+        if (text.endsWith("KB")) {
+            return Long.parseLong(text.substring(0, text.length() - 2)) * 1024;
+        }
+        if (text.endsWith("MB")) {
+            return Long.parseLong(text.substring(0, text.length() - 2)) * 1024 * 1024;
+        }
+        if (text.endsWith("B")) {
+            return Long.parseLong(text.substring(0, text.length() - 1));
+        }
+        return Long.parseLong(text);
+    }
+
+    static String formatSize(long bytes) {
+        if (bytes >= 1024 * 1024 && bytes % (1024 * 1024) == 0) {
+            return bytes / (1024 * 1024) + "MB";
+        }
+        if (bytes >= 1024 && bytes % 1024 == 0) {
+            return bytes / 1024 + "KB";
+        }
+        return bytes + "B";
+    }
+}
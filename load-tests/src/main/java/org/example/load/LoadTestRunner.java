@@ -0,0 +1,102 @@
+package org.example.load;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Entry point of {@code load-tests.jar}. Starts PostgreSQL, a stub word cloud API and the three
+ * services from their built jars on this machine, runs the chosen scenario through the gateway
+ * and prints throughput and latency percentiles per endpoint. The report is also written as JSON.
+ *
+ * <ul>
+ *     <li>{@code mixed}: upload, analysis, plagiarism check and download by concurrent users</li>
+ *     <li>{@code virtual-threads}: {@code mixed} with and without the virtual-threads profile</li>
+ *     <li>{@code large-uploads}: peak heap of the gateway and the storing service by upload size</li>
+ *     <li>{@code downloads}: bytes allocated per download by file size</li>
+ *     <li>{@code bulk-insert}: bulk upload throughput with the default and the given profiles</li>
+ * </ul>
+ */
+public final class LoadTestRunner {
+    private static final String VIRTUAL_THREADS_PROFILE = "virtual-threads";
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        deleteRecursively(options.workDirectory());
+        Files.createDirectories(options.workDirectory());
+        LoadReport report = new LoadReport();
+
+        try (LocalPostgres postgres = LocalPostgres.start(options, options.workDirectory().resolve("postgres"));
+             StubWordCloudServer wordClouds = StubWordCloudServer.start(options.stubLatency())) {
+            switch (options.scenario()) {
+                case "mixed" -> mixed(options, postgres, wordClouds, options.profiles(), report);
+                case "virtual-threads" -> {
+                    mixed(options, postgres, wordClouds, options.profiles(), report);
+                    mixed(options, postgres, wordClouds, withProfile(options.profiles(), VIRTUAL_THREADS_PROFILE), report);
+                }
+                case "large-uploads" -> {
+                    try (ServiceStack stack = ServiceStack.start(options, postgres, wordClouds, options.profiles())) {
+                        LargeUploadWorkload.run(stack, options, report);
+                    }
+                }
+                case "downloads" -> {
+                    try (ServiceStack stack = ServiceStack.start(options, postgres, wordClouds, options.profiles(),
+                            DownloadWorkload.JVM_OPTIONS)) {
+                        DownloadWorkload.run(stack, options, report);
+                    }
+                }
+                case "bulk-insert" -> {
+                    // Without the prod profile Hibernate sends the inserts one by one
+                    for (String profiles : List.of("", options.profiles())) {
+                        try (ServiceStack stack = ServiceStack.start(options, postgres, wordClouds, profiles)) {
+                            BulkInsertWorkload.run(stack, options,
+                                    report.addSection("bulk upload, profiles: " + describe(profiles)));
+                        }
+                    }
+                }
+                default -> throw new IllegalArgumentException("Unknown scenario " + options.scenario());
+            }
+        }
+
+        report.getSections().forEach(section -> section.print(System.out));
+        report.writeJson(options.reportFile());
+        System.out.println();
+        System.out.println("Report written to " + options.reportFile().toAbsolutePath());
+    }
+
+    private static void mixed(LoadTestOptions options, LocalPostgres postgres, StubWordCloudServer wordClouds,
+                              String profiles, LoadReport report) throws IOException, InterruptedException {
+        try (ServiceStack stack = ServiceStack.start(options, postgres, wordClouds, profiles)) {
+            long renderedBefore = wordClouds.requests();
+            LoadReport.Section section = report.addSection("upload, analysis, plagiarism, download; profiles: "
+                    + describe(profiles));
+            MixedWorkload.run(stack, options, section);
+            section.fact("word clouds rendered", wordClouds.requests() - renderedBefore);
+        }
+    }
+
+    private static String withProfile(String profiles, String profile) {
+        return profiles.isEmpty() ? profile : profiles + "," + profile;
+    }
+
+    private static String describe(String profiles) {
+        return profiles.isEmpty() ? "default" : profiles;
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
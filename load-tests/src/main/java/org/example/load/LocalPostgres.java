@@ -0,0 +1,59 @@
+package org.example.load;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * The database of the services: an embedded PostgreSQL unpacked from the harness jar, or an
+ * existing one given by {@code --jdbc-url}. Note that PostgreSQL refuses to run as root, so the
+ * embedded one needs an unprivileged user.
+ */
+final class LocalPostgres implements AutoCloseable {
+    private static final String EMBEDDED_USER = "postgres";
+
+    private final EmbeddedPostgres embedded;
+    private final String jdbcUrl;
+    private final String username;
+    private final String password;
+
+    private LocalPostgres(EmbeddedPostgres embedded, String jdbcUrl, String username, String password) {
+        this.embedded = embedded;
+        this.jdbcUrl = jdbcUrl;
+        this.username = username;
+        this.password = password;
+    }
+
+    static LocalPostgres start(LoadTestOptions options, Path dataDirectory) throws IOException {
+        if (!options.jdbcUrl().isEmpty()) {
+            return new LocalPostgres(null, options.jdbcUrl(), options.jdbcUsername(), options.jdbcPassword());
+        }
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                .setDataDirectory(dataDirectory)
+                .setCleanDataDirectory(true)
+                // Both services keep a connection pool, and are restarted between runs of a comparison
+                .setServerConfig("max_connections", "200")
+                .start();
+        return new LocalPostgres(postgres, postgres.getJdbcUrl(EMBEDDED_USER, EMBEDDED_USER), EMBEDDED_USER, "");
+    }
+
+    String jdbcUrl() {
+        return jdbcUrl;
+    }
+
+    String username() {
+        return username;
+    }
+
+    String password() {
+        return password;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (embedded != null) {
+            embedded.close();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.load;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the used heap of each service while a run is in progress and keeps the peak.
+ */
+final class MemorySampler implements AutoCloseable {
+    private static final long SAMPLE_INTERVAL_MILLIS = 100;
+
+    private final List<ServiceProcess> services;
+    private final Map<String, Double> peakHeap = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private MemorySampler(List<ServiceProcess> services) {
+        this.services = services;
+    }
+
+    static MemorySampler start(List<ServiceProcess> services) {
+        MemorySampler sampler = new MemorySampler(services);
+        sampler.scheduler.scheduleWithFixedDelay(sampler::sample, 0, SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        return sampler;
+    }
+
+    /**
+     * @return peak used heap in MB, by service name
+     */
+    Map<String, Long> peakHeapMegabytes() {
+        Map<String, Long> peaks = new LinkedHashMap<>();
+        for (ServiceProcess service : services) {
+            peaks.put(service.name(), Math.round(peakHeap.getOrDefault(service.name(), 0.0) / (1024 * 1024)));
+        }
+        return peaks;
+    }
+
+    private void sample() {
+        for (ServiceProcess service : services) {
+            try {
+                double used = service.metric("jvm.memory.used", "area:heap");
+                peakHeap.merge(service.name(), used, Math::max);
+            } catch (IOException e) {
+                // A busy service may miss a sample
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.load;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The main user journey: every iteration uploads an essay, waits for its analysis, checks it for
+ * plagiarism and downloads it back. Some essays are near-copies of an earlier corpus.
+ */
+final class MixedWorkload {
+    private static final int NEAR_DUPLICATE_PERCENT = 10;
+
+    private MixedWorkload() {
+    }
+
+    static void run(ServiceStack stack, LoadTestOptions options, LoadReport.Section section) throws InterruptedException {
+        LatencyRecorder recorder = new LatencyRecorder();
+        GatewayClient client = new GatewayClient(stack.gatewayUrl(), recorder);
+        Random random = new Random(42);
+        List<String> corpus = new ArrayList<>();
+        for (int i = 0; i < options.corpus(); i++) {
+            String text = TextGenerator.document(random, options.fileSize());
+            client.upload("corpus-" + i + ".txt", text.getBytes(StandardCharsets.UTF_8));
+            corpus.add(text);
+        }
+
+        VirtualUsers.Iteration iteration = user -> {
+            ThreadLocalRandom userRandom = ThreadLocalRandom.current();
+            String text = userRandom.nextInt(100) < NEAR_DUPLICATE_PERCENT
+                    ? TextGenerator.nearDuplicate(corpus.get(userRandom.nextInt(corpus.size())), userRandom)
+                    : TextGenerator.document(userRandom, options.fileSize());
+            long fileId = client.upload("essay-" + user + ".txt", text.getBytes(StandardCharsets.UTF_8));
+            client.analyse(fileId);
+            client.plagiarism(fileId);
+            client.download(fileId);
+        };
+        VirtualUsers.run(options.users(), options.warmup(), iteration);
+        recorder.reset();
+        long started = System.nanoTime();
+        VirtualUsers.run(options.users(), options.duration(), iteration);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        section.fact("users", options.users())
+                .fact("file size", LoadTestOptions.formatSize(options.fileSize()))
+                .fact("corpus", options.corpus())
+                .fact("measured seconds", elapsed.toSeconds())
+                .endpoints(recorder.report(elapsed));
+    }
+}
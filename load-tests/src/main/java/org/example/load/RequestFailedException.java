@@ -0,0 +1,15 @@
+package org.example.load;
+
+/**
+ * A request of a virtual user failed; it is already counted as an error of its endpoint, so the
+ * user just moves on to its next iteration.
+ */
+class RequestFailedException extends RuntimeException {
+    RequestFailedException(String message) {
+        super(message);
+    }
+
+    RequestFailedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One service started from its executable jar in a separate JVM, with its output in a log file
+ * of the work directory. Its actuator is used to wait for startup and to read JVM metrics.
+ */
+final class ServiceProcess implements AutoCloseable {
+    private static final Duration HEALTH_POLL_INTERVAL = Duration.ofMillis(500);
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final String name;
+    private final int port;
+    private final Process process;
+    private final Path logFile;
+
+    private ServiceProcess(String name, int port, Process process, Path logFile) {
+        this.name = name;
+        this.port = port;
+        this.process = process;
+        this.logFile = logFile;
+    }
+
+    static ServiceProcess start(String name, Path jar, int port, List<String> jvmOptions, List<String> arguments,
+                                Path logDirectory) throws IOException {
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalStateException("Missing " + jar + ", build the services with mvn package first");
+        }
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-jar");
+        command.add(jar.toString());
+        command.add("--server.port=" + port);
+        command.addAll(arguments);
+        Files.createDirectories(logDirectory);
+        Path logFile = logDirectory.resolve(name + ".log");
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(logFile.toFile()))
+                .start();
+        return new ServiceProcess(name, port, process, logFile);
+    }
+
+    String name() {
+        return name;
+    }
+
+    String url() {
+        return "http://localhost:" + port;
+    }
+
+    void awaitHealthy(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException(name + " exited with code " + process.exitValue() + ", see " + logFile);
+            }
+            try {
+                HttpResponse<Void> response = HTTP_CLIENT.send(
+                        HttpRequest.newBuilder(URI.create(url() + "/actuator/health")).build(),
+                        HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(HEALTH_POLL_INTERVAL.toMillis());
+        }
+        throw new IllegalStateException(name + " did not become healthy within " + timeout + ", see " + logFile);
+    }
+
+    /**
+     * @param tag {@code key:value} to narrow the metric down, or {@code null}
+     * @return the first measurement of an actuator metric, e.g. the value of a gauge or the count
+     * of a counter
+     */
+    double metric(String metricName, String tag) throws IOException, InterruptedException {
+        String query = tag == null ? "" : "?tag=" + URLEncoder.encode(tag, StandardCharsets.UTF_8);
+        HttpResponse<String> response = HTTP_CLIENT.send(
+                HttpRequest.newBuilder(URI.create(url() + "/actuator/metrics/" + metricName + query)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException(name + " returned " + response.statusCode() + " for metric " + metricName);
+        }
+        JsonNode measurements = OBJECT_MAPPER.readTree(response.body()).path("measurements");
+        return measurements.path(0).path("value").asDouble();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.load;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The three services wired to each other, the local database and the stub word cloud API, as
+ * docker-compose wires them in production. Each service runs in its own JVM with a fixed heap.
+ */
+final class ServiceStack implements AutoCloseable {
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(3);
+
+    private final ServiceProcess fileStoringService;
+    private final ServiceProcess fileAnalysisService;
+    private final ServiceProcess apiGateway;
+
+    private ServiceStack(ServiceProcess fileStoringService, ServiceProcess fileAnalysisService, ServiceProcess apiGateway) {
+        this.fileStoringService = fileStoringService;
+        this.fileAnalysisService = fileAnalysisService;
+        this.apiGateway = apiGateway;
+    }
+
+    static ServiceStack start(LoadTestOptions options, LocalPostgres postgres, StubWordCloudServer wordClouds,
+                              String profiles) throws IOException, InterruptedException {
+        return start(options, postgres, wordClouds, profiles, List.of());
+    }
+
+    /**
+     * @param profiles        Spring profiles of the storing and analysis services, empty for the default one
+     * @param jvmExtraOptions added to the command line of every service
+     */
+    static ServiceStack start(LoadTestOptions options, LocalPostgres postgres, StubWordCloudServer wordClouds,
+                              String profiles, List<String> jvmExtraOptions) throws IOException, InterruptedException {
+        Path project = options.projectDirectory();
+        Path work = options.workDirectory();
+        Path logs = work.resolve("logs");
+        List<String> jvmOptions = new ArrayList<>(List.of("-Xms" + options.serviceHeap(), "-Xmx" + options.serviceHeap()));
+        jvmOptions.addAll(jvmExtraOptions);
+        List<String> database = List.of(
+                "--spring.datasource.url=" + postgres.jdbcUrl(),
+                "--spring.datasource.username=" + postgres.username(),
+                "--spring.datasource.password=" + postgres.password(),
+                "--spring.profiles.active=" + profiles);
+
+        List<ServiceProcess> started = new ArrayList<>();
+        try {
+            List<String> storingArguments = new ArrayList<>(database);
+            storingArguments.add("--file.storage.location=" + work.resolve("uploads"));
+            ServiceProcess fileStoringService = ServiceProcess.start("file-storing-service",
+                    project.resolve("file-storing-service/target/file-storing-service-1.0-SNAPSHOT-exec.jar"),
+                    freePort(), jvmOptions, storingArguments, logs);
+            started.add(fileStoringService);
+            // Let the storing service create its tables before the analysis service polls its outbox
+            fileStoringService.awaitHealthy(STARTUP_TIMEOUT);
+
+            List<String> analysisArguments = new ArrayList<>(database);
+            analysisArguments.add("--file-storage.service.url=" + fileStoringService.url());
+            analysisArguments.add("--wordcloud.renderer=quickchart");
+            analysisArguments.add("--quickchart.api.url=" + wordClouds.url());
+            analysisArguments.add("--wordcloud.storage.path=" + work.resolve("wordclouds"));
+            // Shares the uploads directory as docker-compose shares the volume
+            analysisArguments.add("--analysis.uploads.location=" + work.resolve("uploads"));
+            ServiceProcess fileAnalysisService = ServiceProcess.start("file-analysis-service",
+                    project.resolve("file-analysis-service/target/file-analysis-service-1.0-SNAPSHOT-exec.jar"),
+                    freePort(), jvmOptions, analysisArguments, logs);
+            started.add(fileAnalysisService);
+
+            ServiceProcess apiGateway = ServiceProcess.start("api-gateway",
+                    project.resolve("api-gateway/target/api-gateway-1.0-SNAPSHOT.jar"),
+                    freePort(), jvmOptions, List.of(
+                            "--file-storage.service.url=" + fileStoringService.url(),
+                            "--file-analysis.service.url=" + fileAnalysisService.url()), logs);
+            started.add(apiGateway);
+            fileAnalysisService.awaitHealthy(STARTUP_TIMEOUT);
+            apiGateway.awaitHealthy(STARTUP_TIMEOUT);
+            return new ServiceStack(fileStoringService, fileAnalysisService, apiGateway);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            for (ServiceProcess process : started) {
+                process.close();
+            }
+            throw e;
+        }
+    }
+
+    String gatewayUrl() {
+        return apiGateway.url();
+    }
+
+    ServiceProcess fileStoringService() {
+        return fileStoringService;
+    }
+
+    ServiceProcess fileAnalysisService() {
+        return fileAnalysisService;
+    }
+
+    ServiceProcess apiGateway() {
+        return apiGateway;
+    }
+
+    List<ServiceProcess> services() {
+        return List.of(apiGateway, fileStoringService, fileAnalysisService);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        apiGateway.close();
+        fileAnalysisService.close();
+        fileStoringService.close();
+    }
+}
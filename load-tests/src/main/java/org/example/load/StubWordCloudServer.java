@@ -0,0 +1,95 @@
+package org.example.load;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stands in for the QuickChart word cloud API: answers every request with the same PNG after a
+ * fixed delay, so analyses go through the remote renderer without leaving the machine.
+ */
+final class StubWordCloudServer implements AutoCloseable {
+    private static final int IMAGE_SIZE = 400;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong requests = new AtomicLong();
+
+    private StubWordCloudServer(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    static StubWordCloudServer start(Duration latency) throws IOException {
+        byte[] image = renderImage();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        // Requests wait out their latency concurrently, as they would against the real API
+        ExecutorService executor = Executors.newCachedThreadPool();
+        StubWordCloudServer stub = new StubWordCloudServer(server, executor);
+        server.createContext("/wordcloud", exchange -> stub.handle(exchange, image, latency));
+        server.setExecutor(executor);
+        server.start();
+        return stub;
+    }
+
+    String url() {
+        return "http://localhost:" + server.getAddress().getPort() + "/wordcloud";
+    }
+
+    long requests() {
+        return requests.get();
+    }
+
+    private void handle(HttpExchange exchange, byte[] image, Duration latency) throws IOException {
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            body.transferTo(OutputStream.nullOutputStream());
+            requests.incrementAndGet();
+            Thread.sleep(latency.toMillis());
+            exchange.getResponseHeaders().set("Content-Type", "image/png");
+            exchange.sendResponseHeaders(200, image.length);
+            exchange.getResponseBody().write(image);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A noisy image, so its PNG is about as large as a real word cloud.
+     */
+    private static byte[] renderImage() throws IOException {
+        BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, IMAGE_SIZE, IMAGE_SIZE);
+        Random random = new Random(42);
+        for (int i = 0; i < 150; i++) {
+            graphics.setColor(new Color(random.nextInt(0xFFFFFF)));
+            graphics.drawString("word" + i, random.nextInt(IMAGE_SIZE - 40), 10 + random.nextInt(IMAGE_SIZE - 10));
+        }
+        graphics.dispose();
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        return png.toByteArray();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
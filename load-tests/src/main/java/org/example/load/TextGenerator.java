@@ -0,0 +1,90 @@
+package org.example.load;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Essay-like text: Cyrillic words from a fixed vocabulary with a skewed frequency distribution,
+ * in sentences, lines and paragraphs.
+ */
+final class TextGenerator {
+    private static final String[] SYLLABLES = {
+        "про", "ана", "лиз", "тек", "ст", "ра", "бо", "та", "ми", "ни", "ко", "ве", "де", "ло", "сть", "ка", "ре", "за"
+    };
+    private static final String[] VOCABULARY = buildVocabulary(5000);
+    private static final int SENTENCES_PER_PARAGRAPH = 6;
+
+    private TextGenerator() {
+    }
+
+    static String document(Random random, long approximateBytes) {
+        StringBuilder text = new StringBuilder();
+        // Cyrillic letters take two bytes in UTF-8
+        while (text.length() * 2L < approximateBytes) {
+            appendParagraph(text, random);
+        }
+        return text.toString();
+    }
+
+    /**
+     * @return a copy of the document with about one word in thirty replaced
+     */
+    static String nearDuplicate(String document, Random random) {
+        String[] words = document.split(" ");
+        for (int i = random.nextInt(30); i < words.length; i += 30) {
+            words[i] = word(random);
+        }
+        return String.join(" ", words);
+    }
+
+    /**
+     * Writes a large document without holding it in memory.
+     */
+    static void write(Path file, Random random, long approximateBytes) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            long written = 0;
+            StringBuilder paragraph = new StringBuilder();
+            while (written < approximateBytes) {
+                paragraph.setLength(0);
+                appendParagraph(paragraph, random);
+                writer.append(paragraph);
+                written += paragraph.length() * 2L;
+            }
+        }
+    }
+
+    private static void appendParagraph(StringBuilder text, Random random) {
+        for (int sentence = 0; sentence < SENTENCES_PER_PARAGRAPH; sentence++) {
+            int words = 8 + random.nextInt(12);
+            for (int i = 0; i < words; i++) {
+                String word = word(random);
+                text.append(i == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+                text.append(i == words - 1 ? ". " : " ");
+            }
+        }
+        text.append("\n\n");
+    }
+
+    private static String word(Random random) {
+        // Frequent words are picked far more often than rare ones, as in natural text
+        return VOCABULARY[(int) (Math.pow(random.nextDouble(), 3) * VOCABULARY.length)];
+    }
+
+    private static String[] buildVocabulary(int size) {
+        Random random = new Random(7);
+        String[] vocabulary = new String[size];
+        for (int i = 0; i < size; i++) {
+            StringBuilder word = new StringBuilder();
+            int syllables = 1 + random.nextInt(4);
+            for (int j = 0; j < syllables; j++) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            vocabulary[i] = word.toString();
+        }
+        return vocabulary;
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.load;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a fixed number of users, each repeating its iteration back to back until the run is over.
+ * A failed iteration is abandoned and the user starts the next one.
+ */
+final class VirtualUsers {
+    private static final int MAX_LOGGED_FAILURES = 10;
+    private static final Duration SHUTDOWN_GRACE = Duration.ofMinutes(5);
+
+    private VirtualUsers() {
+    }
+
+    @FunctionalInterface
+    interface Iteration {
+        void run(int user) throws Exception;
+    }
+
+    static void run(int users, Duration duration, Iteration iteration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicInteger failures = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(users);
+        for (int i = 0; i < users; i++) {
+            int user = i;
+            executor.execute(() -> {
+                while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                    try {
+                        iteration.run(user);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (Exception e) {
+                        if (failures.incrementAndGet() <= MAX_LOGGED_FAILURES) {
+                            System.err.println("User " + user + ": " + e.getMessage());
+                        }
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        // Iterations in flight at the deadline are allowed to finish
+        if (!executor.awaitTermination(duration.plus(SHUTDOWN_GRACE).toMillis(), TimeUnit.MILLISECONDS)) {
+            executor.shutdownNow();
+        }
+        if (failures.get() > MAX_LOGGED_FAILURES) {
+            System.err.println((failures.get() - MAX_LOGGED_FAILURES) + " more failed iterations");
+        }
+    }
+}